@@ -10,17 +10,19 @@ import lombok.extern.slf4j.Slf4j;
 import okhttp3.*;
 
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.time.Clock;
 import java.time.Duration;
 import java.util.*;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.ScheduledFuture;
-import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 @Slf4j
 public abstract class AbstractHostAvailabler implements HostAvailabler {
+    private static final MetricsLog.Logger metricsLog = MetricsLog.getLogger("HostAvailabler");
+
     @AllArgsConstructor
     @Getter
     protected static class HostAvailabilityScore {
@@ -42,6 +44,9 @@ public abstract class AbstractHostAvailabler implements HostAvailabler {
 
     private static final double MAIN_HOST_AVAILABLE_SCORE = 0.9;
 
+    // a changed host order is saved at most so many times per snapshotMaxAge
+    private static final int SNAPSHOT_MAX_WRITES_PER_MAX_AGE = 10;
+
     private final Clock clock = Clock.systemDefaultZone();
 
 
@@ -53,14 +58,28 @@ public abstract class AbstractHostAvailabler implements HostAvailabler {
 
     private boolean skipFetchHosts;
 
-    private ScheduledExecutorService executor;
-
     private ScheduledFuture<?> fetchHostsFromServerFuture;
 
+    private ScheduledFuture<?> scoreHostsFuture;
+
     private OkHttpClient fetchHostsHTTPClient;
 
     private volatile Map<String, List<String>> hostConfig;
 
+    // optional local snapshot of hostConfig and host scores, used for warm restarts
+    private Path snapshotPath;
+
+    private Duration snapshotMaxAge;
+
+    private HostSnapshot lastSnapshot;
+
+    private OutlierDetector.Config outlierDetectionConfig;
+
+    // eject hosts per path according to the results of real requests
+    private OutlierDetector outlierDetector;
+
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+
     public AbstractHostAvailabler(List<String> defaultHosts, boolean initImmediately) throws BizException {
         if (Objects.isNull(defaultHosts) || defaultHosts.isEmpty()) {
             throw new BizException("default hosts are empty");
@@ -106,17 +125,119 @@ public abstract class AbstractHostAvailabler implements HostAvailabler {
     }
 
     protected void init(Duration fetchHostInterval, Duration scoreHostInterval) throws BizException {
-        this.setHosts(defaultHosts);
-        executor = Executors.newSingleThreadScheduledExecutor();
+        init(fetchHostInterval, scoreHostInterval, null, null);
+    }
+
+    // if snapshotPath is set and the snapshot is not older than snapshotMaxAge,
+    // hosts are restored from it and the first fetch from server no longer blocks init
+    protected void init(Duration fetchHostInterval, Duration scoreHostInterval,
+                        String snapshotPath, Duration snapshotMaxAge) throws BizException {
+        if (Utils.noneEmptyString(snapshotPath) && Objects.nonNull(snapshotMaxAge)) {
+            this.snapshotPath = Paths.get(snapshotPath);
+            this.snapshotMaxAge = snapshotMaxAge;
+        }
+        outlierDetector = new OutlierDetector(projectID, outlierDetectionConfig);
+        boolean restored = restoreFromSnapshot();
+        if (!restored) {
+            this.setHosts(defaultHosts);
+        }
+        SdkRuntime runtime = SdkRuntime.get();
         if (!skipFetchHosts) {
             fetchHostsHTTPClient = Utils.buildOkHTTPClient(Duration.ofSeconds(5));
-            fetchHostsFromServer();
-            fetchHostsFromServerFuture = executor.
-                    scheduleAtFixedRate(this::fetchHostsFromServer,
-                            fetchHostInterval.toMillis(), fetchHostInterval.toMillis(), TimeUnit.MILLISECONDS);
+            Duration initialDelay = fetchHostInterval;
+            if (restored) {
+                // refresh in background, the restored config is good enough for now
+                initialDelay = Duration.ZERO;
+            } else {
+                fetchHostsFromServer();
+            }
+            fetchHostsFromServerFuture = runtime.scheduleAtFixedRate("fetch_hosts", SdkRuntime.Workload.BLOCKING,
+                    this::fetchHostsFromServer, initialDelay, fetchHostInterval);
+        }
+        scoreHostsFuture = runtime.scheduleAtFixedRate("score_hosts",
+                this::scoreAndUpdateHosts, scoreHostInterval, scoreHostInterval);
+    }
+
+    // must be called before init
+    protected void setOutlierDetectionConfig(OutlierDetector.Config outlierDetectionConfig) {
+        this.outlierDetectionConfig = outlierDetectionConfig;
+    }
+
+    private boolean restoreFromSnapshot() {
+        if (Objects.isNull(snapshotPath)) {
+            return false;
+        }
+        HostSnapshot snapshot = HostSnapshot.load(snapshotPath);
+        if (Objects.isNull(snapshot) || !snapshot.containsDefaultHosts()) {
+            return false;
+        }
+        if (!Objects.equals(snapshot.getProjectID(), projectID) || !snapshot.isFresh(clock.millis(), snapshotMaxAge)) {
+            log.info("[ByteplusSDK] host snapshot is stale or belongs to other project, ignore it, path:{}",
+                    snapshotPath);
+            return false;
+        }
+        // hosts set by user must not be overridden by an old snapshot
+        if (skipFetchHosts && !new HashSet<>(defaultHosts).equals(new HashSet<>(distinctHosts(snapshot.getHostConfig())))) {
+            log.info("[ByteplusSDK] hosts in snapshot are different from hosts set by user, ignore it, path:{}",
+                    snapshotPath);
+            return false;
+        }
+        if (Objects.nonNull(snapshot.getHostScores())) {
+            restoreHostScores(snapshot.getHostScores());
+        }
+        this.hostConfig = snapshot.getHostConfig();
+        this.lastSnapshot = snapshot;
+        String[] metricsTags = new String[]{
+                "type:restore_host_snapshot",
+                "project_id:" + projectID
+        };
+        Metrics.counter(Constant.METRICS_KEY_COMMON_INFO, 1, metricsTags);
+        metricsLog.info("snapshot_" + UUID.randomUUID(),
+                "[ByteplusSDK][Snapshot] restore hosts from snapshot, project_id:%s, age:%dms, config:%s",
+                projectID, clock.millis() - snapshot.getTimestamp(), snapshot.getHostConfig());
+        log.info("[ByteplusSDK] restore hosts from snapshot, config:{} scores:{}",
+                snapshot.getHostConfig(), snapshot.getHostScores());
+        return true;
+    }
+
+    // called before the first scoring round, subclass can use the restored scores as
+    // the initial state of host availability.
+    protected void restoreHostScores(Map<String, Double> hostScores) {
+    }
+
+    private void saveSnapshotIfChanged(Map<String, List<String>> hostConfig,
+                                       List<HostAvailabilityScore> hostScores) {
+        if (Objects.isNull(snapshotPath)) {
+            return;
+        }
+        long now = clock.millis();
+        HostSnapshot last = this.lastSnapshot;
+        if (Objects.nonNull(last)) {
+            // scores change on almost every round, so they are only saved along with other writes.
+            // An unchanged host order is rewritten periodically, so it never looks stale to a restarted process
+            boolean changed = !isHostConfigNotUpdated(last.getHostConfig(), hostConfig);
+            if (!changed && last.isFresh(now, snapshotMaxAge.dividedBy(2))) {
+                return;
+            }
+            // a flapping host order is saved at most once per interval, the latest one wins
+            if (changed && last.isFresh(now, snapshotMaxAge.dividedBy(SNAPSHOT_MAX_WRITES_PER_MAX_AGE))) {
+                return;
+            }
+        }
+        Map<String, Double> hostScoreIndex = new HashMap<>();
+        hostScores.forEach(hostScore -> hostScoreIndex.put(hostScore.getHost(), hostScore.getScore()));
+        HostSnapshot snapshot = new HostSnapshot(projectID, now, hostConfig, hostScoreIndex);
+        try {
+            snapshot.save(snapshotPath);
+            this.lastSnapshot = snapshot;
+        } catch (Throwable e) {
+            String[] metricsTags = new String[]{
+                    "type:save_host_snapshot_fail",
+                    "project_id:" + projectID
+            };
+            Metrics.counter(Constant.METRICS_KEY_COMMON_WARN, 1, metricsTags);
+            log.warn("[ByteplusSDK] save host snapshot fail, path:{} err:{}", snapshotPath, e.toString());
         }
-        executor.scheduleAtFixedRate(this::scoreAndUpdateHosts,
-                scoreHostInterval.toMillis(), scoreHostInterval.toMillis(), TimeUnit.MILLISECONDS);
     }
 
     // clear origin host config, and use hosts as default config
@@ -154,7 +275,7 @@ public abstract class AbstractHostAvailabler implements HostAvailabler {
             if (isServerHostsNotUpdated(rspHostConfig)) {
                 String metricsLogFormat = "[ByteplusSDK][Fetch] hosts from server are not changed," +
                         " project_id:%s, config:%s";
-                MetricsLog.info(reqID, metricsLogFormat, projectID, rspHostConfig);
+                metricsLog.info(reqID, metricsLogFormat, projectID, rspHostConfig);
                 log.debug("[ByteplusSDK] hosts from server are not changed, config: {}", rspHostConfig);
                 return;
             }
@@ -167,7 +288,7 @@ public abstract class AbstractHostAvailabler implements HostAvailabler {
                 Metrics.counter(Constant.METRICS_KEY_COMMON_WARN, 1, metricsTags);
                 String metricsLogFormat = "[ByteplusSDK][Fetch] no default value in hosts from server," +
                         " project_id:%s, config:%s";
-                MetricsLog.warn(reqID, metricsLogFormat, projectID, rspHostConfig);
+                metricsLog.warn(reqID, metricsLogFormat, projectID, rspHostConfig);
                 log.warn("[ByteplusSDK] no default value in hosts from server, config: {}", rspHostConfig);
                 return;
             }
@@ -182,7 +303,7 @@ public abstract class AbstractHostAvailabler implements HostAvailabler {
         Metrics.counter(Constant.METRICS_KEY_COMMON_ERROR, 1, metricsTags);
         String metricsLogFormat = "[ByteplusSDK][Fetch] fetch host from server fail although retried," +
                 " project_id:%s url:%s";
-        MetricsLog.warn(reqID, metricsLogFormat, projectID, url);
+        metricsLog.warn(reqID, metricsLogFormat, projectID, url);
         log.warn("[ByteplusSDK] fetch host from server fail although retried, url: {}", url);
     }
 
@@ -209,7 +330,7 @@ public abstract class AbstractHostAvailabler implements HostAvailabler {
                 Metrics.counter(Constant.METRICS_KEY_COMMON_ERROR, 1, metricsTags);
                 String metricsLogFormat = "[ByteplusSDK][Fetch] fetch host from server return not found status," +
                         " project_id:%s cost:%dms";
-                MetricsLog.warn(reqID, metricsLogFormat, projectID, cost);
+                metricsLog.warn(reqID, metricsLogFormat, projectID, cost);
                 log.warn("[ByteplusSDK] fetch host from server return not found status, cost:{}ms", cost);
                 return Collections.emptyMap();
             }
@@ -222,7 +343,7 @@ public abstract class AbstractHostAvailabler implements HostAvailabler {
                 Metrics.counter(Constant.METRICS_KEY_COMMON_ERROR, 1, metricsTags);
                 String metricsLogFormat = "[ByteplusSDK][Fetch] fetch host from server return not ok status," +
                         " project_id:%s, status:%d, cost:%dms";
-                MetricsLog.warn(reqID, metricsLogFormat, projectID, httpRsp.code(), cost);
+                metricsLog.warn(reqID, metricsLogFormat, projectID, httpRsp.code(), cost);
                 log.warn("[ByteplusSDK] fetch host from server return not ok status:{} cost:{}ms", httpRsp.code(), cost);
                 return null;
             }
@@ -236,7 +357,7 @@ public abstract class AbstractHostAvailabler implements HostAvailabler {
             Metrics.timer(Constant.METRICS_KEY_REQUEST_TOTAL_COST, cost, metricsTags);
             String metricsLogFormat = "[ByteplusSDK][Fetch] fetch host from server," +
                     " project_id:%s, url:%s, cost:%dms, rsp: %s";
-            MetricsLog.info(reqID, metricsLogFormat, projectID, url, cost, rspBodyStr);
+            metricsLog.info(reqID, metricsLogFormat, projectID, url, cost, rspBodyStr);
             log.debug("[ByteplusSDK] fetch host from server, cost:{}ms rsp:{}", cost, rspBodyStr);
             if (Objects.nonNull(rspBodyStr) && rspBodyStr.length() > 0) {
                 return JSON.parseObject(rspBodyStr, new TypeReference<Map<String, List<String>>>() {
@@ -254,7 +375,7 @@ public abstract class AbstractHostAvailabler implements HostAvailabler {
             Metrics.counter(Constant.METRICS_KEY_COMMON_ERROR, 1, metricsTags);
             String metricsLogFormat = "[ByteplusSDK][Fetch] fetch host from server fail," +
                     " project_id:%s, url:%s, cost:%dms, err: %s";
-            MetricsLog.warn(reqID, metricsLogFormat, projectID, url, cost, e.toString());
+            metricsLog.warn(reqID, metricsLogFormat, projectID, url, cost, e.toString());
             log.warn("[ByteplusSDK] fetch host from server fail, url:{} cost:{}ms err:{}", url, cost, e.toString());
             return null;
         }
@@ -300,7 +421,7 @@ public abstract class AbstractHostAvailabler implements HostAvailabler {
         String logID = "score_" + UUID.randomUUID().toString();
         List<String> hosts = distinctHosts(hostConfig);
         List<HostAvailabilityScore> newHostScores = doScoreHosts(hosts);
-        MetricsLog.info(logID, "[ByteplusSDK][Score] score hosts, project_id:%s, result:%s",
+        metricsLog.info(logID, "[ByteplusSDK][Score] score hosts, project_id:%s, result:%s",
                 projectID, newHostScores);
         log.debug("[ByteplusSDK] score hosts result: {}", newHostScores);
         if (Objects.isNull(newHostScores) || newHostScores.isEmpty()) {
@@ -309,13 +430,14 @@ public abstract class AbstractHostAvailabler implements HostAvailabler {
                     "project_id:" + projectID
             };
             Metrics.counter(Constant.METRICS_KEY_COMMON_ERROR, 1, metricsTags);
-            MetricsLog.error(logID, "[ByteplusSDK][Score] scoring hosts return an empty list, project_id:%s", projectID);
+            metricsLog.error(logID, "[ByteplusSDK][Score] scoring hosts return an empty list, project_id:%s", projectID);
             log.error("[ByteplusSDK] scoring hosts return an empty list");
             return;
         }
         Map<String, List<String>> newHostConfig = copyAndSortHost(hostConfig, newHostScores);
+        saveSnapshotIfChanged(newHostConfig, newHostScores);
         if (isHostConfigNotUpdated(this.hostConfig, newHostConfig)) {
-            MetricsLog.info(logID, "[ByteplusSDK][Score] host order is not changed, project_id:%s, hosts:%s",
+            metricsLog.info(logID, "[ByteplusSDK][Score] host order is not changed, project_id:%s, hosts:%s",
                     projectID, newHostScores);
             log.debug("[ByteplusSDK] host order is not changed, {}", newHostConfig);
             return;
@@ -325,12 +447,58 @@ public abstract class AbstractHostAvailabler implements HostAvailabler {
                 "project_id:" + projectID
         };
         Metrics.counter(Constant.METRICS_KEY_COMMON_INFO, 1, metricsTags);
-        MetricsLog.info(logID, "[ByteplusSDK][Score] set new host config: %s, old config: %s, project_id: %s",
+        metricsLog.info(logID, "[ByteplusSDK][Score] set new host config: %s, old config: %s, project_id: %s",
                 newHostConfig, hostConfig, projectID);
         log.warn("[ByteplusSDK] set new host config: {}, old config: {}", newHostConfig, hostConfig);
+        notifyListeners(this.hostConfig, newHostConfig);
         this.hostConfig = newHostConfig;
     }
 
+    private void notifyListeners(Map<String, List<String>> oldHostConfig, Map<String, List<String>> newHostConfig) {
+        if (listeners.isEmpty()) {
+            return;
+        }
+        Set<String> oldHosts = Objects.isNull(oldHostConfig) ?
+                Collections.emptySet() : new HashSet<>(distinctHosts(oldHostConfig));
+        Set<String> newHosts = new HashSet<>(distinctHosts(newHostConfig));
+        List<String> addedHosts = newHosts.stream()
+                .filter(host -> !oldHosts.contains(host))
+                .collect(Collectors.toList());
+        List<String> removedHosts = oldHosts.stream()
+                .filter(host -> !newHosts.contains(host))
+                .collect(Collectors.toList());
+        for (Listener listener : listeners) {
+            try {
+                if (!addedHosts.isEmpty()) {
+                    listener.onHostsAdded(addedHosts);
+                }
+                if (Objects.nonNull(oldHostConfig)) {
+                    newHostConfig.forEach((path, hosts) -> {
+                        List<String> oldPathHosts = oldHostConfig.getOrDefault(path, oldHostConfig.get("*"));
+                        if (!hosts.equals(oldPathHosts)) {
+                            listener.onHostOrderChanged(path, oldPathHosts, hosts);
+                        }
+                    });
+                }
+                if (!removedHosts.isEmpty()) {
+                    listener.onHostsRemoved(removedHosts);
+                }
+            } catch (Throwable e) {
+                log.error("[ByteplusSDK] host availabler listener fail, err:{}", e.toString());
+            }
+        }
+    }
+
+    @Override
+    public void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
+    @Override
+    public void removeListener(Listener listener) {
+        listeners.remove(listener);
+    }
+
     private List<String> distinctHosts(Map<String, List<String>> hostConfig) {
         Set<String> hostSet = new HashSet<>();
         hostConfig.forEach((path, hosts) -> hostSet.addAll(hosts));
@@ -391,11 +559,23 @@ public abstract class AbstractHostAvailabler implements HostAvailabler {
 
     @Override
     public String getHost(String httpPath) {
+        Map<String, List<String>> hostConfig = this.hostConfig;
         List<String> hosts = hostConfig.get(httpPath);
         if (Objects.isNull(hosts) || hosts.isEmpty()) {
-            return hostConfig.get("*").get(0);
+            return outlierDetector.select("*", hostConfig.get("*"));
         }
-        return hosts.get(0);
+        return outlierDetector.select(httpPath, hosts);
+    }
+
+    @Override
+    public void feedback(String httpPath, String host, boolean success, long costMs) {
+        Map<String, List<String>> hostConfig = this.hostConfig;
+        List<String> hosts = hostConfig.get(httpPath);
+        if (Objects.isNull(hosts) || hosts.isEmpty()) {
+            httpPath = "*";
+            hosts = hostConfig.get("*");
+        }
+        outlierDetector.record(httpPath, host, success, hosts.size());
     }
 
     @Override
@@ -405,9 +585,9 @@ public abstract class AbstractHostAvailabler implements HostAvailabler {
 
     @Override
     public void shutdown() {
-        if (Objects.isNull(executor)) {
-            return;
+        stopFetchHostsFromServer();
+        if (Objects.nonNull(scoreHostsFuture)) {
+            scoreHostsFuture.cancel(false);
         }
-        executor.shutdown();
     }
 }
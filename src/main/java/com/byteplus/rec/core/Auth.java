@@ -1,6 +1,8 @@
 package com.byteplus.rec.core;
 
 import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
@@ -10,22 +12,61 @@ import okhttp3.Request;
 
 import javax.crypto.Mac;
 import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
 import java.security.MessageDigest;
-import java.text.DateFormat;
-import java.text.SimpleDateFormat;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.Date;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
-import java.util.TimeZone;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class Auth {
-    private static final TimeZone tz = TimeZone.getTimeZone("UTC");
     private static final Set<String> H_INCLUDE = new HashSet<>();
-    private static final String TIME_FORMAT_V4 = "yyyyMMdd'T'HHmmss'Z'";
+    private static final DateTimeFormatter TIME_FORMATTER_V4 =
+            DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss'Z'").withZone(ZoneOffset.UTC);
+
+    // the characters encoded by HttpUrl in query components, besides controls and non-ascii
+    private static final String QUERY_COMPONENT_ENCODE_SET = " !\"#$&'(),/:;<=>?@[]\\^`{|}~";
+    private static final char[] UPPER_HEX_DIGITS = "0123456789ABCDEF".toCharArray();
+
+    private static final int INITIAL_SIGN_BUFFER_CAPACITY = 1024;
+    // larger buffers are not kept, to avoid holding memory by threads
+    private static final int MAX_SIGN_BUFFER_CAPACITY = 16 * 1024;
+    private static final ThreadLocal<StringBuilder> signBuffers =
+            ThreadLocal.withInitial(() -> new StringBuilder(INITIAL_SIGN_BUFFER_CAPACITY));
+
+    private static final int MAX_SIGNED_HEADER_NAME_CACHE_SIZE = 256;
+    // header name->lowercase name if it's signed, otherwise empty
+    private static final Map<String, String> signedHeaderNames = new ConcurrentHashMap<>();
+
+    // signing keys only change with the date, keep the ones of a few days at most
+    private static final int MAX_SIGNING_KEY_CACHE_SIZE = 64;
+
+    private static final Map<SigningKeyID, byte[]> signingKeyCache = new ConcurrentHashMap<>();
+
+    // provider lookups of getInstance are expensive, reuse the instances by thread
+    private static final ThreadLocal<MessageDigest> sha256Digests = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    });
+
+    private static final ThreadLocal<Mac> hmacSHA256Macs = ThreadLocal.withInitial(() -> {
+        try {
+            return Mac.getInstance("HmacSHA256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    });
 
     static {
         H_INCLUDE.add("Content-Type");
@@ -34,6 +75,10 @@ public class Auth {
     }
 
     protected static Headers sign(Request request, byte[] reqBytes, Credential credential) throws Exception {
+        // the session token is signed with the other "X-" headers
+        if (Objects.nonNull(credential.getSessionToken()) && !credential.getSessionToken().isEmpty()) {
+            request = request.newBuilder().header("X-Security-Token", credential.getSessionToken()).build();
+        }
         Headers.Builder headerBuilder = request.headers().newBuilder();
 
         String formatDate = getCurrentFormatDate();
@@ -49,73 +94,131 @@ public class Auth {
         String bodyHash = hashSHA256(reqBytes);
         headerBuilder.set("X-Content-Sha256", bodyHash);
         // step 2 generate signature
-        meta.setCredentialScope(String.join(
-                "/", new String[]{
-                        meta.getDate(),
-                        meta.getRegion(),
-                        meta.getService(),
-                        "request"
-                }));
-
-        String stringToSign = String.join(
-                "\n", new String[]{
-                        meta.getAlgorithm(),
-                        formatDate,
-                        meta.getCredentialScope(),
-                        hashCanonicalRequest(request, bodyHash, meta),
-                });
+        meta.setCredentialScope(meta.getDate() + "/" + meta.getRegion() + "/" + meta.getService() + "/request");
+
+        String canonicalRequestHash = hashCanonicalRequest(request, bodyHash, meta);
+        StringBuilder stringToSign = signBuffer();
+        stringToSign.append(meta.getAlgorithm()).append('\n')
+                .append(formatDate).append('\n')
+                .append(meta.getCredentialScope()).append('\n')
+                .append(canonicalRequestHash);
 
         // step 3 hash signature
         byte[] signingKey = genSigningSecretKeyV4(
                 credential.getSecretAccessKey(), meta.getDate(), meta.getRegion(), meta.getService());
 
-        String signature = Utils.bytes2Hex(hmacSHA256(signingKey, stringToSign));
+        String signature = Utils.bytes2Hex(hmacSHA256(signingKey, stringToSign.toString()));
         headerBuilder.set("Authorization", buildAuthHeaderV4(signature, meta, credential));
         return headerBuilder.build();
     }
 
+    // the buffer of current thread, cleared
+    private static StringBuilder signBuffer() {
+        StringBuilder buffer = signBuffers.get();
+        if (buffer.capacity() > MAX_SIGN_BUFFER_CAPACITY) {
+            buffer = new StringBuilder(INITIAL_SIGN_BUFFER_CAPACITY);
+            signBuffers.set(buffer);
+        }
+        buffer.setLength(0);
+        return buffer;
+    }
+
     private static String hashCanonicalRequest(Request request, String bodyHash, MetaData meta) throws Exception {
-        List<String> signedHeaders = new ArrayList<>();
-        for (String headerName : request.headers().names()) {
-            if (H_INCLUDE.contains(headerName) || headerName.startsWith("X-")) {
-                signedHeaders.add(headerName.toLowerCase());
+        return hashSHA256(appendCanonicalRequest(signBuffer(), request, bodyHash, meta).toString().getBytes());
+    }
+
+    // the canonical request which is hashed by sign, only used by tests
+    static String canonicalRequest(Request request, String bodyHash) {
+        return appendCanonicalRequest(new StringBuilder(), request, bodyHash, new MetaData()).toString();
+    }
+
+    // sets the signed headers of meta
+    private static StringBuilder appendCanonicalRequest(StringBuilder canonicalRequest, Request request,
+                                                        String bodyHash, MetaData meta) {
+        Headers headers = request.headers();
+        List<String> signedHeaders = new ArrayList<>(headers.size());
+        for (int i = 0; i < headers.size(); i++) {
+            // like Headers.names, only the first spelling of a name decides whether it's signed
+            if (!isFirstHeaderName(headers, i)) {
+                continue;
+            }
+            String signedHeaderName = signedHeaderName(headers.name(i));
+            if (!signedHeaderName.isEmpty()) {
+                signedHeaders.add(signedHeaderName);
             }
         }
         Collections.sort(signedHeaders);
-        StringBuilder signedHeadersToSignStr = new StringBuilder();
+        meta.setSignedHeaders(String.join(";", signedHeaders));
+
+        canonicalRequest.append(request.method()).append('\n')
+                .append(normUri(request.url().encodedPath())).append('\n');
+        appendNormQuery(canonicalRequest, request.url());
+        canonicalRequest.append('\n');
         for (String header : signedHeaders) {
-            String value = Objects.requireNonNull(request.header(header)).trim();
+            String value = Objects.requireNonNull(headers.get(header)).trim();
             if (header.equals("host")) {
-                if (value.contains(":")) {
-                    String[] split = value.split(":");
-                    String port = split[1];
+                int portStart = value.indexOf(':') + 1;
+                if (portStart > 0) {
+                    int portEnd = value.indexOf(':', portStart);
+                    String port = value.substring(portStart, portEnd < 0 ? value.length() : portEnd);
                     if (port.equals("80") || port.equals("443")) {
-                        value = split[0];
+                        value = value.substring(0, portStart - 1);
                     }
                 }
             }
-            signedHeadersToSignStr.append(header).append(":").append(value).append("\n");
+            canonicalRequest.append(header).append(':').append(value).append('\n');
         }
+        canonicalRequest.append('\n')
+                .append(meta.getSignedHeaders()).append('\n')
+                .append(bodyHash);
+        return canonicalRequest;
+    }
 
-        meta.setSignedHeaders(String.join(";", signedHeaders));
-
-        String canonicalRequest = String.join(
-                "\n", new String[]{
-                        request.method(),
-                        normUri(request.url().encodedPath()),
-                        normQuery(request.url()),
-                        signedHeadersToSignStr.toString(),
-                        meta.getSignedHeaders(),
-                        bodyHash
-                });
+    private static boolean isFirstHeaderName(Headers headers, int index) {
+        String name = headers.name(index);
+        for (int i = 0; i < index; i++) {
+            if (headers.name(i).equalsIgnoreCase(name)) {
+                return false;
+            }
+        }
+        return true;
+    }
 
-        return hashSHA256(canonicalRequest.getBytes());
+    // lowercase name if the header is signed, otherwise empty
+    private static String signedHeaderName(String headerName) {
+        String signedHeaderName = signedHeaderNames.get(headerName);
+        if (Objects.nonNull(signedHeaderName)) {
+            return signedHeaderName;
+        }
+        signedHeaderName = H_INCLUDE.contains(headerName) || headerName.startsWith("X-") ?
+                headerName.toLowerCase() : "";
+        if (signedHeaderNames.size() < MAX_SIGNED_HEADER_NAME_CACHE_SIZE) {
+            signedHeaderNames.put(headerName, signedHeaderName);
+        }
+        return signedHeaderName;
     }
 
     private static byte[] genSigningSecretKeyV4(String secretKey,
                                                 String date,
                                                 String region,
                                                 String service) throws Exception {
+        SigningKeyID keyID = new SigningKeyID(secretKey, date, region, service);
+        byte[] signingKey = signingKeyCache.get(keyID);
+        if (Objects.nonNull(signingKey)) {
+            return signingKey;
+        }
+        signingKey = doGenSigningSecretKeyV4(secretKey, date, region, service);
+        if (signingKeyCache.size() >= MAX_SIGNING_KEY_CACHE_SIZE) {
+            signingKeyCache.clear();
+        }
+        signingKeyCache.put(keyID, signingKey);
+        return signingKey;
+    }
+
+    private static byte[] doGenSigningSecretKeyV4(String secretKey,
+                                                  String date,
+                                                  String region,
+                                                  String service) throws Exception {
         byte[] kDate = hmacSHA256((secretKey).getBytes(), date);
         byte[] kRegion = hmacSHA256(kDate, region);
         byte[] kService = hmacSHA256(kRegion, service);
@@ -130,9 +233,7 @@ public class Auth {
     }
 
     private static String getCurrentFormatDate() {
-        DateFormat df = new SimpleDateFormat(TIME_FORMAT_V4);
-        df.setTimeZone(tz);
-        return df.format(new Date());
+        return TIME_FORMATTER_V4.format(Instant.now());
     }
 
     private static String toDate(String timestamp) {
@@ -143,23 +244,55 @@ public class Auth {
         return encodedPath.replace("%2F", "/").replace("+", "%20");
     }
 
-    private static String normQuery(HttpUrl url) {
-        final HttpUrl.Builder urlBuilder = url.newBuilder();
-        final HttpUrl finalUrl = url;
-        url.queryParameterNames()
-                .stream()
-                .sorted()
-                .forEach(queryName -> urlBuilder.setQueryParameter(queryName, finalUrl.queryParameter(queryName)));
-        String sortedQuery = urlBuilder.build().encodedQuery();
-        if (Objects.nonNull(sortedQuery)) {
-            return sortedQuery.replace("+", "%20");
+    // Appends the query with parameters sorted by name, only the first value of a name is kept.
+    // Names and values are encoded in the same way as HttpUrl.Builder.setQueryParameter,
+    // then "+" is replaced with "%20", without rebuilding the url.
+    private static void appendNormQuery(StringBuilder sb, HttpUrl url) {
+        int querySize = url.querySize();
+        if (querySize == 0) {
+            return;
+        }
+        List<String> names = new ArrayList<>(url.queryParameterNames());
+        Collections.sort(names);
+        for (int i = 0; i < names.size(); i++) {
+            String name = names.get(i);
+            if (i > 0) {
+                sb.append('&');
+            }
+            appendEncodedQueryComponent(sb, name);
+            String value = url.queryParameter(name);
+            if (Objects.nonNull(value)) {
+                sb.append('=');
+                appendEncodedQueryComponent(sb, value);
+            }
+        }
+    }
+
+    private static void appendEncodedQueryComponent(StringBuilder sb, String component) {
+        for (int i = 0; i < component.length(); ) {
+            int codePoint = component.codePointAt(i);
+            int charCount = Character.charCount(codePoint);
+            if (codePoint >= 0x20 && codePoint < 0x7f && codePoint != '%' && codePoint != '+' &&
+                    QUERY_COMPONENT_ENCODE_SET.indexOf(codePoint) < 0) {
+                sb.append((char) codePoint);
+            } else if (codePoint == ' ') {
+                sb.append("%20");
+            } else {
+                byte[] bytes = component.substring(i, i + charCount).getBytes(StandardCharsets.UTF_8);
+                for (byte b : bytes) {
+                    sb.append('%')
+                            .append(UPPER_HEX_DIGITS[(b >> 4) & 0xf])
+                            .append(UPPER_HEX_DIGITS[b & 0xf]);
+                }
+            }
+            i += charCount;
         }
-        return "";
     }
 
     private static String hashSHA256(byte[] content) throws Exception {
         try {
-            MessageDigest md = MessageDigest.getInstance("SHA-256");
+            MessageDigest md = sha256Digests.get();
+            md.reset();
             return Utils.bytes2Hex(md.digest(content));
         } catch (Exception e) {
             throw new Exception("Unable to compute hash while signing request: " + e.getMessage(), e);
@@ -168,7 +301,7 @@ public class Auth {
 
     private static byte[] hmacSHA256(byte[] key, String content) throws Exception {
         try {
-            Mac mac = Mac.getInstance("HmacSHA256");
+            Mac mac = hmacSHA256Macs.get();
             mac.init(new SecretKeySpec(key, "HmacSHA256"));
             return mac.doFinal(content.getBytes());
         } catch (Exception e) {
@@ -194,6 +327,15 @@ public class Auth {
     }
 
 
+    @AllArgsConstructor
+    @EqualsAndHashCode
+    private static class SigningKeyID {
+        private final String secretKey;
+        private final String date;
+        private final String region;
+        private final String service;
+    }
+
     @Setter(AccessLevel.PRIVATE)
     @Getter(AccessLevel.PRIVATE)
     @NoArgsConstructor(access = AccessLevel.PRIVATE)
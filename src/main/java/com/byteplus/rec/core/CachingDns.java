@@ -0,0 +1,213 @@
+package com.byteplus.rec.core;
+
+import com.byteplus.rec.core.metrics.Metrics;
+import lombok.extern.slf4j.Slf4j;
+import okhttp3.Call;
+import okhttp3.Dns;
+import okhttp3.EventListener;
+import okhttp3.Protocol;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Proxy;
+import java.net.UnknownHostException;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Dns with a local cache, addresses are refreshed in background by SdkRuntime,
+// so that only the first lookup of a host name is resolved on the request path.
+// It also tracks the connect results of every address, and returns the failing ones last.
+@Slf4j
+public class CachingDns implements Dns {
+    private static final Duration DEFAULT_TTL = Duration.ofSeconds(60);
+
+    // addresses with connect failures in this duration are returned last
+    private static final Duration FAILURE_PENALTY = Duration.ofSeconds(60);
+
+    // host names not looked up in this many ttls are removed from cache
+    private static final int EXPIRE_TTL_TIMES = 10;
+
+    private static final CachingDns defaultDns = new CachingDns(Dns.SYSTEM, DEFAULT_TTL);
+
+    private final Clock clock = Clock.systemDefaultZone();
+
+    private final Dns delegate;
+
+    private final Duration ttl;
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+    private final Map<InetAddress, AddressStat> addressStats = new ConcurrentHashMap<>();
+
+    private volatile ScheduledFuture<?> refreshFuture;
+
+    public CachingDns(Dns delegate, Duration ttl) {
+        this.delegate = delegate;
+        this.ttl = Objects.isNull(ttl) || ttl.isZero() ? DEFAULT_TTL : ttl;
+    }
+
+    public static CachingDns getDefault() {
+        return defaultDns;
+    }
+
+    // Resolves host names by the given map, such as {"bytedance.com": ["10.0.0.1", "10.0.0.2"]},
+    // useful for tests and local environments. Values must be ip literals.
+    public static Dns staticResolver(Map<String, List<String>> hostIPs) {
+        return hostname -> {
+            List<String> ips = hostIPs.get(hostname);
+            if (Objects.isNull(ips) || ips.isEmpty()) {
+                throw new UnknownHostException("no static address for " + hostname);
+            }
+            List<InetAddress> addresses = new ArrayList<>(ips.size());
+            for (String ip : ips) {
+                addresses.add(InetAddress.getByName(ip));
+            }
+            return addresses;
+        };
+    }
+
+    @NotNull
+    @Override
+    public List<InetAddress> lookup(@NotNull String hostname) throws UnknownHostException {
+        ensureRefreshing();
+        Entry entry = entries.get(hostname);
+        if (Objects.isNull(entry)) {
+            // the first lookup of a host name has to be resolved on caller thread
+            entry = new Entry(delegate.lookup(hostname), clock.millis());
+            entries.put(hostname, entry);
+        }
+        entry.lastLookupTime = clock.millis();
+        return sortByHealth(entry.addresses);
+    }
+
+    private List<InetAddress> sortByHealth(List<InetAddress> addresses) {
+        if (addresses.size() <= 1 || addressStats.isEmpty()) {
+            return addresses;
+        }
+        long now = clock.millis();
+        List<InetAddress> sorted = new ArrayList<>(addresses);
+        // stable sort, keep the order of dns server for healthy addresses
+        sorted.sort(Comparator.comparingInt(address -> isFailing(address, now) ? 1 : 0));
+        return sorted;
+    }
+
+    private boolean isFailing(InetAddress address, long now) {
+        AddressStat stat = addressStats.get(address);
+        return Objects.nonNull(stat) && stat.consecutiveFailures.get() > 0 &&
+                now - stat.lastFailureTime < FAILURE_PENALTY.toMillis();
+    }
+
+    // called by NetworkListener when a connection to address is established or failed
+    public void recordConnect(InetAddress address, boolean success) {
+        if (Objects.isNull(address)) {
+            return;
+        }
+        if (success) {
+            AddressStat stat = addressStats.get(address);
+            if (Objects.nonNull(stat) && stat.consecutiveFailures.get() != 0) {
+                stat.consecutiveFailures.set(0);
+            }
+            return;
+        }
+        AddressStat stat = addressStats.computeIfAbsent(address, key -> new AddressStat());
+        stat.consecutiveFailures.incrementAndGet();
+        stat.lastFailureTime = clock.millis();
+    }
+
+    // Only tracks connect results, used when NetworkListener is not installed.
+    public EventListener.Factory connectListenerFactory() {
+        EventListener listener = new EventListener() {
+            @Override
+            public void connectEnd(@NotNull Call call, @NotNull InetSocketAddress inetSocketAddress,
+                                   @NotNull Proxy proxy, @Nullable Protocol protocol) {
+                recordConnect(inetSocketAddress.getAddress(), true);
+            }
+
+            @Override
+            public void connectFailed(@NotNull Call call, @NotNull InetSocketAddress inetSocketAddress,
+                                      @NotNull Proxy proxy, @Nullable Protocol protocol, @NotNull IOException ioe) {
+                recordConnect(inetSocketAddress.getAddress(), false);
+            }
+        };
+        // the listener is stateless, share it by all calls
+        return call -> listener;
+    }
+
+    private void ensureRefreshing() {
+        ScheduledFuture<?> future = refreshFuture;
+        if (Objects.nonNull(future) && !future.isDone()) {
+            return;
+        }
+        synchronized (this) {
+            if (Objects.nonNull(refreshFuture) && !refreshFuture.isDone()) {
+                return;
+            }
+            Duration refreshInterval = ttl.dividedBy(2);
+            refreshFuture = SdkRuntime.get().scheduleAtFixedRate("dns_refresh", SdkRuntime.Workload.BLOCKING, this::refresh,
+                    refreshInterval, refreshInterval);
+        }
+    }
+
+    private void refresh() {
+        long now = clock.millis();
+        entries.forEach((hostname, entry) -> {
+            if (now - entry.lastLookupTime > ttl.toMillis() * EXPIRE_TTL_TIMES) {
+                entries.remove(hostname, entry);
+                return;
+            }
+            if (now - entry.resolveTime < ttl.toMillis() / 2) {
+                return;
+            }
+            try {
+                List<InetAddress> addresses = delegate.lookup(hostname);
+                if (!addresses.isEmpty()) {
+                    Entry newEntry = new Entry(addresses, now);
+                    newEntry.lastLookupTime = entry.lastLookupTime;
+                    entries.put(hostname, newEntry);
+                }
+            } catch (Throwable e) {
+                // keep serving the old addresses, it's better than failing the requests
+                String[] metricsTags = new String[]{
+                        "type:dns_refresh_fail",
+                        "host:" + Utils.escapeMetricsTagValue(hostname)
+                };
+                Metrics.counter(Constant.METRICS_KEY_COMMON_WARN, 1, metricsTags);
+                log.warn("[ByteplusSDK] refresh dns fail, host:{} err:{}", hostname, e.toString());
+            }
+        });
+        // forget addresses which are not failing anymore
+        addressStats.entrySet().removeIf(stat -> now - stat.getValue().lastFailureTime > FAILURE_PENALTY.toMillis());
+    }
+
+    private static class Entry {
+        private final List<InetAddress> addresses;
+
+        private final long resolveTime;
+
+        private volatile long lastLookupTime;
+
+        private Entry(List<InetAddress> addresses, long resolveTime) {
+            this.addresses = Collections.unmodifiableList(new ArrayList<>(addresses));
+            this.resolveTime = resolveTime;
+            this.lastLookupTime = resolveTime;
+        }
+    }
+
+    private static class AddressStat {
+        private final AtomicInteger consecutiveFailures = new AtomicInteger(0);
+
+        private volatile long lastFailureTime;
+    }
+}
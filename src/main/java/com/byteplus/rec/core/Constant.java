@@ -7,6 +7,8 @@ public final class Constant {
 
     public final static int HTTP_STATUS_NOT_FOUND = 404;
 
+    public final static int HTTP_STATUS_SERVER_ERROR = 500;
+
     /**
      * All requests will have a XXXResponse corresponding to them,
      * and all XXXResponses will contain a 'Status' field.
@@ -36,6 +38,22 @@ public final class Constant {
 
     public final static int DEFAULT_MAX_KEEPALIVE_CONNECTIONS = 3;
 
+    // The scheduler of sdk runtime only triggers tasks, the tasks themselves run in the pool of their workload
+    public final static int DEFAULT_RUNTIME_SCHEDULER_THREADS = 1;
+
+    // Short probes with tight timeouts, see SdkRuntime.Workload.PROBE
+    public final static int DEFAULT_RUNTIME_PROBE_THREADS = 8;
+
+    public final static int DEFAULT_RUNTIME_PROBE_QUEUE_SIZE = 1024;
+
+    // Work which may block for seconds, see SdkRuntime.Workload.BLOCKING
+    public final static int DEFAULT_RUNTIME_BLOCKING_THREADS = 4;
+
+    public final static int DEFAULT_RUNTIME_BLOCKING_QUEUE_SIZE = 256;
+
+    // Idle io threads of sdk runtime exit after this duration
+    public final static Duration DEFAULT_RUNTIME_IO_KEEPALIVE = Duration.ofSeconds(60);
+
     // Metrics Key
     public final static String METRICS_KEY_COMMON_INFO = "common.info";
     public final static String METRICS_KEY_COMMON_WARN = "common.warn";
@@ -49,4 +67,8 @@ public final class Constant {
     public final static String METRICS_KEY_NETWORK_CONNECT_FAIL = "network.connect.fail";
     public final static String METRICS_KEY_NETWORK_CALL_FAIL = "network.call.fail";
     public final static String METRICS_KEY_HEARTBEAT_COUNT = "heartbeat.count";
+    public final static String METRICS_KEY_OUTLIER_EJECTION = "outlier.ejection";
+    public final static String METRICS_KEY_RUNTIME_QUEUE_LAG = "runtime.queue.lag";
+    public final static String METRICS_KEY_RUNTIME_TASK_REJECTED = "runtime.task.rejected";
+    public final static String METRICS_KEY_RUNTIME_TASK_SKIPPED = "runtime.task.skipped";
 }
@@ -0,0 +1,13 @@
+package com.byteplus.rec.core;
+
+// Provides the credentials used to sign every request.
+// getCredentials is called on the request path, so it must return the current credentials
+// without blocking, refreshing must be done in background, see RefreshingCredentialProvider.
+public interface CredentialProvider {
+    Credentials getCredentials();
+
+    // Stops background refreshing, the provider may be shared by clients,
+    // so it is never shut down by HTTPClient.
+    default void shutdown() {
+    }
+}
@@ -0,0 +1,29 @@
+package com.byteplus.rec.core;
+
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.time.Instant;
+
+// Immutable access key used to sign requests, provided by a CredentialProvider.
+@Getter
+@AllArgsConstructor
+@EqualsAndHashCode
+@ToString(exclude = {"secretAccessKey", "sessionToken"})
+public class Credentials {
+    private final String accessKeyID;
+
+    private final String secretAccessKey;
+
+    // Optional, sent as "X-Security-Token" and signed with the request.
+    private final String sessionToken;
+
+    // Optional, null means the credentials never expire.
+    private final Instant expiration;
+
+    public Credentials(String accessKeyID, String secretAccessKey) {
+        this(accessKeyID, secretAccessKey, null, null);
+    }
+}
@@ -0,0 +1,79 @@
+package com.byteplus.rec.core;
+
+import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.JSONObject;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.util.Objects;
+
+// Credentials read from a json file, reloaded in background when the file is modified, e.g.
+// {
+//   "access_key_id": "AK...",
+//   "secret_access_key": "...",
+//   "session_token": "...",
+//   "expiration": "2024-01-01T00:00:00Z"
+// }
+// session_token and expiration are optional.
+public class FileCredentialProvider extends RefreshingCredentialProvider {
+    private final FileLoader fileLoader;
+
+    public FileCredentialProvider(String path) throws BizException {
+        this(path, null);
+    }
+
+    public FileCredentialProvider(String path, Config config) throws BizException {
+        this(new FileLoader(Paths.get(path)), config);
+    }
+
+    private FileCredentialProvider(FileLoader fileLoader, Config config) throws BizException {
+        super(fileLoader, config);
+        this.fileLoader = fileLoader;
+    }
+
+    @Override
+    protected boolean shouldRefresh(Credentials current, long now) {
+        // fileLoader is null if the first check comes before the constructor returns
+        return (Objects.nonNull(fileLoader) && fileLoader.isModified()) || super.shouldRefresh(current, now);
+    }
+
+    private static class FileLoader implements Loader {
+        private final Path path;
+
+        private volatile long lastModifiedTime;
+
+        private FileLoader(Path path) {
+            this.path = path;
+        }
+
+        private boolean isModified() {
+            try {
+                return Files.getLastModifiedTime(path).toMillis() != lastModifiedTime;
+            } catch (IOException e) {
+                // the file may be being replaced, check again later
+                return false;
+            }
+        }
+
+        @Override
+        public Credentials load() throws Exception {
+            long modifiedTime = Files.getLastModifiedTime(path).toMillis();
+            JSONObject json = JSON.parseObject(new String(Files.readAllBytes(path), StandardCharsets.UTF_8));
+            if (Objects.isNull(json)) {
+                throw new BizException("credentials file is empty: " + path);
+            }
+            String expiration = json.getString("expiration");
+            Credentials credentials = new Credentials(
+                    json.getString("access_key_id"),
+                    json.getString("secret_access_key"),
+                    json.getString("session_token"),
+                    Utils.noneEmptyString(expiration) ? Instant.parse(expiration) : null);
+            lastModifiedTime = modifiedTime;
+            return credentials;
+        }
+    }
+}
@@ -2,6 +2,7 @@ package com.byteplus.rec.core;
 
 import com.byteplus.rec.core.Auth.Credential;
 import com.alibaba.fastjson.JSON;
+import com.byteplus.rec.core.metrics.MetricHandle;
 import com.byteplus.rec.core.metrics.Metrics;
 import com.byteplus.rec.core.metrics.MetricsLog;
 import com.google.protobuf.InvalidProtocolBufferException;
@@ -10,6 +11,8 @@ import com.google.protobuf.Parser;
 import lombok.*;
 import lombok.extern.slf4j.Slf4j;
 import okhttp3.Call;
+import okhttp3.ConnectionPool;
+import okhttp3.Dns;
 import okhttp3.Headers;
 import okhttp3.OkHttpClient;
 import okhttp3.Request;
@@ -20,6 +23,10 @@ import okhttp3.ResponseBody;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.net.ConnectException;
+import java.net.NoRouteToHostException;
+import java.net.SocketTimeoutException;
+import java.net.UnknownHostException;
 import java.nio.charset.StandardCharsets;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
@@ -28,26 +35,30 @@ import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
-import java.util.UUID;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.TimeUnit;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.zip.GZIPInputStream;
 import java.util.zip.GZIPOutputStream;
 
 @Slf4j
 @Getter(AccessLevel.PRIVATE)
 public class HTTPCaller {
+    private static final MetricsLog.Logger metricsLog = MetricsLog.getLogger("HTTPCaller");
+
     private final static Duration DEFAULT_TIMEOUT = Duration.ofSeconds(5);
 
-    private static final String DEFAULT_PING_URL_FORMAT = "%s://%s/predict/api/ping";
+    // connection pools being warmed up, so callers sharing a pool warm it up only once per switch
+    private final static Set<ConnectionPool> warmingUpPools = ConcurrentHashMap.newKeySet();
 
-    private final Clock clock = Clock.systemDefaultZone();
+    private final static int MAX_URL_METRICS_CACHE_SIZE = 256;
 
-    private volatile Map<Duration, OkHttpClient> timeoutHTTPCliMap = new HashMap<>();
+    private final Clock clock = Clock.systemDefaultZone();
 
     private final ThreadLocal<String> requestID = new ThreadLocal<>();
 
@@ -59,7 +70,22 @@ public class HTTPCaller {
 
     private String airAuthToken;
 
-    private Credential authCredential;
+    // SHA-256 state primed with airAuthToken, cloned by every signature and never updated itself
+    private MessageDigest airAuthDigest;
+
+    private byte[] tenantIDBytes;
+
+    private CredentialProvider credentialProvider;
+
+    private String authService;
+
+    private String authRegion;
+
+    // auth region->credential used to sign requests, rebuilt when the provider rotates credentials
+    private final Map<String, RegionCredential> regionCredentials = new ConcurrentHashMap<>();
+
+    // url->metric handles of requests to the url, so the tags are built once per url
+    private final Map<String, URLMetrics> urlMetricsCache = new ConcurrentHashMap<>();
 
     private final HostAvailabler hostAvailabler;
 
@@ -69,9 +95,30 @@ public class HTTPCaller {
 
     private final boolean keepAlive;
 
-    private ScheduledExecutorService heartbeatExecutor;
+    private ScheduledFuture<?> heartbeatFuture;
+
+    private final HostAvailabler.Listener hostListener = new HostAvailabler.Listener() {
+        @Override
+        public void onHostOrderChanged(String httpPath, List<String> oldHosts, List<String> newHosts) {
+            if (newHosts.isEmpty() || (Objects.nonNull(oldHosts) && !oldHosts.isEmpty() &&
+                    oldHosts.get(0).equals(newHosts.get(0)))) {
+                return;
+            }
+            warmUp(newHosts.get(0));
+        }
+
+        @Override
+        public void onHostsAdded(List<String> hosts) {
+            hosts.forEach(host -> HostConnectionPools.retainHost(HTTPCaller.this, host,
+                    config.maxIdleConnections, config.keepAliveDuration));
+        }
 
-    private ExecutorService keepAliveExecutor;
+        @Override
+        public void onHostsRemoved(List<String> hosts) {
+            hosts.forEach(host -> HostConnectionPools.releaseHost(HTTPCaller.this, host,
+                    config.maxIdleConnections, config.keepAliveDuration));
+        }
+    };
 
     protected HTTPCaller(String projectID, String tenantID, String air_auth_token,
                          HostAvailabler hostAvailabler, Config callerConfig, String schema, boolean keepAlive) {
@@ -80,26 +127,44 @@ public class HTTPCaller {
         this.projectID = projectID;
         this.tenantID = tenantID;
         this.airAuthToken = air_auth_token;
+        this.airAuthDigest = newAirAuthDigest(air_auth_token);
+        this.tenantIDBytes = tenantID.getBytes(StandardCharsets.UTF_8);
         this.hostAvailabler = hostAvailabler;
         this.schema = schema;
         this.keepAlive = keepAlive;
         if (this.keepAlive) {
             initHeartbeatExecutor(this.config.getKeepAlivePingInterval());
         }
+        this.hostAvailabler.addListener(hostListener);
+        hostListener.onHostsAdded(this.hostAvailabler.getHosts());
     }
 
     protected HTTPCaller(String projectID, String tenantID, Credential authCredential,
                          HostAvailabler hostAvailabler, Config callerConfig, String schema, boolean keepAlive) {
+        this(projectID, tenantID,
+                new StaticCredentialProvider(new Credentials(authCredential.getAccessKeyID(),
+                        authCredential.getSecretAccessKey(), authCredential.getSessionToken(), null)),
+                authCredential.getService(), authCredential.getRegion(),
+                hostAvailabler, callerConfig, schema, keepAlive);
+    }
+
+    protected HTTPCaller(String projectID, String tenantID, CredentialProvider credentialProvider,
+                         String authService, String authRegion, HostAvailabler hostAvailabler,
+                         Config callerConfig, String schema, boolean keepAlive) {
         this.config = fillDefaultConfig(callerConfig);
         this.projectID = projectID;
         this.tenantID = tenantID;
-        this.authCredential = authCredential;
+        this.credentialProvider = credentialProvider;
+        this.authService = authService;
+        this.authRegion = authRegion;
         this.hostAvailabler = hostAvailabler;
         this.schema = schema;
         this.keepAlive = keepAlive;
         if (this.keepAlive) {
             initHeartbeatExecutor(this.config.getKeepAlivePingInterval());
         }
+        this.hostAvailabler.addListener(hostListener);
+        hostListener.onHostsAdded(this.hostAvailabler.getHosts());
     }
 
     private String getReqID() {
@@ -120,48 +185,95 @@ public class HTTPCaller {
         if (config.maxKeepAliveConnections <= 0) {
             config.maxKeepAliveConnections = Constant.DEFAULT_MAX_KEEPALIVE_CONNECTIONS;
         }
+        if (Objects.isNull(config.dns)) {
+            config.dns = CachingDns.getDefault();
+        }
         return config;
     }
 
     protected void initHeartbeatExecutor(Duration keepAlivePingInterval) {
-        heartbeatExecutor = Executors.newSingleThreadScheduledExecutor();
-        keepAliveExecutor = Executors.newFixedThreadPool(this.config.maxKeepAliveConnections);
-        heartbeatExecutor.scheduleAtFixedRate(this::heartbeat, 1,
-                keepAlivePingInterval.getSeconds(), TimeUnit.SECONDS);
+        heartbeatFuture = SdkRuntime.get().scheduleAtFixedRate("heartbeat", this::heartbeat,
+                Duration.ofSeconds(1), keepAlivePingInterval);
     }
 
+    // Requests and probes of a host share one connection pool, see HostConnectionPools,
+    // so the probes keep the connections used by requests alive, and their results
+    // are also used to score the hosts.
     private void heartbeat() {
         for(String host: hostAvailabler.getHosts()) {
-            for(Map.Entry<Duration, OkHttpClient> entry: timeoutHTTPCliMap.entrySet()) {
-                long timeoutMs = entry.getKey().toMillis();
-                OkHttpClient client = entry.getValue();
-                for (int i = 0; i < config.maxKeepAliveConnections; i++) {
-                   keepAliveExecutor.submit(new Runnable() {
-                       @Override
-                       public void run() {
-                           String[] metricsTags = new String[] {
-                                   "from:http_caller",
-                                   "project_id:" + getProjectID(),
-                                   "timeout:" + timeoutMs,
-                                   "host:" + Utils.escapeMetricsTagValue(host)
-                           };
-                           Metrics.counter(Constant.METRICS_KEY_HEARTBEAT_COUNT, 1, metricsTags);
-                           Utils.ping(getProjectID(), client, DEFAULT_PING_URL_FORMAT, schema, host);
-                       }
-                   });
+            OkHttpClient client = selectHTTPClient(host, DEFAULT_TIMEOUT);
+            for (int i = 0; i < config.maxKeepAliveConnections; i++) {
+               SdkRuntime.get().submit("keepalive", new Runnable() {
+                   @Override
+                   public void run() {
+                       String[] metricsTags = new String[] {
+                               "from:http_caller",
+                               "project_id:" + getProjectID(),
+                               "host:" + Utils.escapeMetricsTagValue(host)
+                       };
+                       Metrics.counter(Constant.METRICS_KEY_HEARTBEAT_COUNT, 1, metricsTags);
+                       HostProber.get().probe(getProjectID(), HostProber.DEFAULT_PING_URL_FORMAT, schema, host, client);
+                   }
+               });
+            }
+        }
+    }
+
+    // Opens connections to the new primary host in background, so that the first requests after
+    // the switch are likely to find them ready. It never blocks the switch, which runs on the
+    // host scoring thread shared by all callers of the HostAvailabler.
+    private void warmUp(String host) {
+        OkHttpClient client = selectHTTPClient(host, DEFAULT_TIMEOUT);
+        ConnectionPool pool = client.connectionPool();
+        if (!warmingUpPools.add(pool)) {
+            return;
+        }
+        AtomicInteger remaining = new AtomicInteger(config.maxKeepAliveConnections);
+        Runnable done = () -> {
+            if (remaining.decrementAndGet() == 0) {
+                warmingUpPools.remove(pool);
+            }
+        };
+        for (int i = 0; i < config.maxKeepAliveConnections; i++) {
+            Future<?> future = SdkRuntime.get().submit("warm_up", () -> {
+                try {
+                    HostProber.get().probe(getProjectID(), HostProber.DEFAULT_PING_URL_FORMAT, schema, host, client);
+                } finally {
+                    done.run();
                 }
+            });
+            if (Objects.isNull(future)) {
+                done.run();
             }
         }
+        String[] metricsTags = new String[]{
+                "type:warm_up_host",
+                "project_id:" + getProjectID(),
+                "host:" + Utils.escapeMetricsTagValue(host)
+        };
+        Metrics.counter(Constant.METRICS_KEY_COMMON_INFO, 1, metricsTags);
+        log.debug("[ByteplusSDK] warm up host:{}", host);
+    }
+
+    protected <Rsp extends Message, Req extends Message> Rsp doPBRequest(
+            String url,
+            Req request,
+            Parser<Rsp> rspParser,
+            Options options) throws NetException, BizException {
+        return doPBRequest(null, url, request, rspParser, options);
     }
 
+    // httpPath is the path used to select host from hostAvailabler,
+    // the result of the request is reported back to hostAvailabler with it.
     protected <Rsp extends Message, Req extends Message> Rsp doPBRequest(
+            String httpPath,
             String url,
             Req request,
             Parser<Rsp> rspParser,
             Options options) throws NetException, BizException {
         byte[] reqBytes = request.toByteArray();
         String contentType = "application/x-protobuf";
-        byte[] rspBytes = doRequest(url, reqBytes, contentType, options);
+        byte[] rspBytes = doRequest(httpPath, url, reqBytes, contentType, options);
         try {
             return rspParser.parseFrom(rspBytes);
         } catch (InvalidProtocolBufferException e) {
@@ -170,7 +282,7 @@ public class HTTPCaller {
                     "project_id:" + getProjectID()
             };
             Metrics.counter(Constant.METRICS_KEY_COMMON_ERROR, 1, metricsTags);
-            MetricsLog.error(getReqID(),"[ByteplusSDK]parse response fail, project_id:%s, url:%s err:%s ",
+            metricsLog.error(getReqID(),"[ByteplusSDK]parse response fail, project_id:%s, url:%s err:%s ",
                     getProjectID(), url, e.getMessage());
             log.error("[ByteplusSDK]parse response fail, url:{} err:{} ", url, e.getMessage());
             throw new BizException("parse response fail");
@@ -182,20 +294,30 @@ public class HTTPCaller {
             Object request,
             Rsp resp,
             Options options) throws NetException, BizException {
+        return doJSONRequest(null, url, request, resp, options);
+    }
+
+    protected <Rsp> Rsp doJSONRequest(
+            String httpPath,
+            String url,
+            Object request,
+            Rsp resp,
+            Options options) throws NetException, BizException {
         byte[] reqBytes = JSON.toJSONBytes(request);
         String contentType = "application/json";
-        byte[] rspBytes = doRequest(url, reqBytes, contentType, options);
+        byte[] rspBytes = doRequest(httpPath, url, reqBytes, contentType, options);
         return JSON.parseObject(rspBytes, resp.getClass());
     }
 
-    private byte[] doRequest(String url,
+    private byte[] doRequest(String httpPath,
+                             String url,
                              byte[] reqBytes,
                              String contentType,
                              Options options) throws NetException, BizException {
         reqBytes = gzipCompress(reqBytes);
         Headers headers = buildHeaders(options, contentType);
         url = buildUrlWithQueries(options, url);
-        return doHTTPRequest(url, headers, reqBytes, options.getTimeout());
+        return doHTTPRequest(httpPath, url, headers, reqBytes, options.getTimeout());
     }
 
     private byte[] gzipCompress(byte[] bodyBytes) {
@@ -254,7 +376,7 @@ public class HTTPCaller {
         }
         String requestID = options.getRequestID();
         if (Objects.isNull(requestID)) {
-            requestID = UUID.randomUUID().toString();
+            requestID = Utils.fastRandomUUID();
             log.info("[ByteplusSDK] requestID is generated by sdk: '{}'", requestID);
             builder.set("Request-Id", requestID);
         } else {
@@ -266,26 +388,41 @@ public class HTTPCaller {
         this.requestID.set(requestID);
     }
 
-    private String calSignature(byte[] httpBody, String ts, String nonce) {
-        MessageDigest digest;
+    private static MessageDigest newAirAuthDigest(String airAuthToken) {
         try {
-            digest = MessageDigest.getInstance("SHA-256");
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(airAuthToken.getBytes(StandardCharsets.UTF_8));
+            return digest;
         } catch (NoSuchAlgorithmException ignored) {
+            return null;
+        }
+    }
+
+    private String calSignature(byte[] httpBody, String ts, String nonce) {
+        MessageDigest primedDigest = this.getAirAuthDigest();
+        if (Objects.isNull(primedDigest)) {
             return "";
         }
+        MessageDigest digest;
+        try {
+            digest = (MessageDigest) primedDigest.clone();
+        } catch (CloneNotSupportedException e) {
+            digest = newAirAuthDigest(this.getAirAuthToken());
+        }
         // Splice in the order of "token", "HttpBody", "tenant_id", "ts", and "nonce".
         // The order must not be mistaken.
         // String need to be encoded as byte arrays by UTF-8
-        digest.update(this.getAirAuthToken().getBytes(StandardCharsets.UTF_8));
+        // "token" is already in the primed digest
         digest.update(httpBody);
-        digest.update(getTenantID().getBytes(StandardCharsets.UTF_8));
+        digest.update(getTenantIDBytes());
         digest.update(ts.getBytes(StandardCharsets.UTF_8));
         digest.update(nonce.getBytes(StandardCharsets.UTF_8));
         return Utils.bytes2Hex(digest.digest());
     }
 
 
-    private byte[] doHTTPRequest(String url,
+    private byte[] doHTTPRequest(String httpPath,
+                                 String url,
                                  Headers headers,
                                  byte[] bodyBytes,
                                  Duration timeout) throws NetException, BizException {
@@ -299,9 +436,15 @@ public class HTTPCaller {
         headers = withAuthHeaders(request, bodyBytes);
         request = request.newBuilder().headers(headers).build();
         log.debug("[ByteplusSDK][HTTPCaller] URL:{} Request Headers:\n{}", url, request.headers());
-        Call call = selectHTTPClient(timeout).newCall(request);
+        String host = Utils.hostOf(request.url());
+        OkHttpClient httpClient = selectHTTPClient(host, timeout);
+        Call call = httpClient.newCall(request);
         LocalDateTime startTime = LocalDateTime.now();
+        // 0 means no response is received
+        int status = 0;
+        boolean connectFailed = false;
         try (Response response = call.execute()) {
+            status = response.code();
             ResponseBody rspBody = response.body();
             if (response.code() != Constant.HTTP_STATUS_OK) {
                 logErrHTTPResponse(url, response);
@@ -311,29 +454,28 @@ public class HTTPCaller {
                 return null;
             }
             long cost = response.receivedResponseAtMillis() - response.sentRequestAtMillis();
-            String[] metricsTags = new String[]{
-                    "url:" + Utils.escapeMetricsTagValue(url),
-                    "project_id:" + getProjectID()
-            };
-            Metrics.timer(Constant.METRICS_KEY_REQUEST_COST, cost, metricsTags);
+            urlMetricsOf(url).requestCost.record(cost);
             String metricsLogFormat = "[ByteplusSDK][HTTPCaller] project_id:%s, sent:%d, received:%d, cost:%d, start:%d, end:%d," +
                     " start->sent: %d, connection count:%d, header:%s";
-            MetricsLog.info(getReqID(), metricsLogFormat,
-                    getProjectID(),
-                    response.sentRequestAtMillis(), response.receivedResponseAtMillis(),
-                    response.receivedResponseAtMillis() - response.sentRequestAtMillis(),
-                    start,
-                    System.currentTimeMillis(),
-                    response.sentRequestAtMillis() - start,
-                    selectHTTPClient(timeout).connectionPool().connectionCount(),
-                    response.headers()
-            );
+            if (metricsLog.isInfoEnabled()) {
+                metricsLog.info(getReqID(), metricsLogFormat,
+                        getProjectID(),
+                        response.sentRequestAtMillis(), response.receivedResponseAtMillis(),
+                        response.receivedResponseAtMillis() - response.sentRequestAtMillis(),
+                        start,
+                        System.currentTimeMillis(),
+                        response.sentRequestAtMillis() - start,
+                        httpClient.connectionPool().connectionCount(),
+                        response.headers()
+                );
+            }
             String rspEncoding = response.header("Content-Encoding");
             if (Objects.isNull(rspEncoding) || !rspEncoding.contains("gzip")) {
                 return rspBody.bytes();
             }
             return gzipDecompress(rspBody.bytes(), url);
         } catch (IOException e) {
+            connectFailed = isConnectFailure(e);
             if (e.getMessage().toLowerCase().contains("timeout")) {
                 long cost = Duration.between(startTime, LocalDateTime.now()).toMillis();
                 String[] metricsTags = new String[]{
@@ -343,7 +485,7 @@ public class HTTPCaller {
                 };
                 Metrics.counter(Constant.METRICS_KEY_COMMON_ERROR, 1, metricsTags);
                 String metricsLogFormat = "[ByteplusSDK] do http request timeout, project_id:%s, cost:%dms, msg:%s, url:%s";
-                MetricsLog.error(getReqID(), metricsLogFormat, getProjectID(), cost, e.getMessage(), url);
+                metricsLog.error(getReqID(), metricsLogFormat, getProjectID(), cost, e.getMessage(), url);
                 log.error("[ByteplusSDK] do http request timeout, cost:{}ms msg:{} url:{}", cost, e.getMessage(), url);
                 throw new NetException(e.toString());
             }
@@ -354,35 +496,105 @@ public class HTTPCaller {
             };
             Metrics.counter(Constant.METRICS_KEY_COMMON_ERROR, 1, metricsTags);
             String metricsLogFormat = "[ByteplusSDK] do http request occur exception, project_id:%s, msg:%s, url:%s";
-            MetricsLog.error(getReqID(), metricsLogFormat, getProjectID(), e.getMessage(), url);
+            metricsLog.error(getReqID(), metricsLogFormat, getProjectID(), e.getMessage(), url);
             log.error("[ByteplusSDK] do http request occur exception, msg:{} url:{}", e.getMessage(), url);
             throw new BizException(e.toString());
         } finally {
-            String[] metricsTags = new String[]{
-                    "project_id:" + getProjectID(),
-                    "url:" + Utils.escapeMetricsTagValue(url)
-            };
             long cost = Duration.between(startTime, LocalDateTime.now()).toMillis();
-            Metrics.timer(Constant.METRICS_KEY_REQUEST_TOTAL_COST, cost, metricsTags);
-            Metrics.counter(Constant.METRICS_KEY_REQUEST_COUNT, 1, metricsTags);
-            MetricsLog.info(getReqID(), "[ByteplusSDK] http request, project_id:%s, http url:%s, cost:%dms",
-                    getProjectID(), url, cost);
+            // Only connect failures and 5xx count against the host. Client errors such as 4xx don't mean
+            // the host is unavailable, and a request timing out after it is sent may only mean the
+            // timeout of the caller is tight, so it is not fed back at all
+            if (status != 0 || connectFailed) {
+                boolean hostAvailable = status != 0 && status < Constant.HTTP_STATUS_SERVER_ERROR;
+                hostAvailabler.feedback(httpPath, host, hostAvailable, cost);
+            }
+            URLMetrics urlMetrics = urlMetricsOf(url);
+            urlMetrics.requestTotalCost.record(cost);
+            urlMetrics.requestCount.inc(1);
+            if (metricsLog.isInfoEnabled()) {
+                metricsLog.info(getReqID(), "[ByteplusSDK] http request, project_id:%s, http url:%s, cost:%dms",
+                        getProjectID(), url, cost);
+            }
             log.debug("[ByteplusSDK] http url:{}, cost:{}ms", url, cost);
         }
     }
 
-    private Headers withAuthHeaders(Request request, byte[] bodyBytes) throws BizException {
+    // the host could not be reached at all, as opposed to a request which timed out or was canceled
+    private static boolean isConnectFailure(IOException e) {
+        if (e instanceof ConnectException || e instanceof NoRouteToHostException || e instanceof UnknownHostException) {
+            return true;
+        }
+        return e instanceof SocketTimeoutException && Objects.nonNull(e.getMessage()) &&
+                e.getMessage().toLowerCase().contains("connect");
+    }
+
+    private URLMetrics urlMetricsOf(String url) {
+        URLMetrics urlMetrics = urlMetricsCache.get(url);
+        if (Objects.nonNull(urlMetrics)) {
+            return urlMetrics;
+        }
+        // urls are made of hosts and paths, so the limit is only reached by unexpected urls
+        if (urlMetricsCache.size() >= MAX_URL_METRICS_CACHE_SIZE) {
+            urlMetricsCache.clear();
+        }
+        return urlMetricsCache.computeIfAbsent(url, key -> new URLMetrics(getProjectID(), key));
+    }
+
+    private static class URLMetrics {
+        private final MetricHandle requestCost;
+
+        private final MetricHandle requestTotalCost;
+
+        private final MetricHandle requestCount;
+
+        private URLMetrics(String projectID, String url) {
+            String urlTag = "url:" + Utils.escapeMetricsTagValue(url);
+            String projectIDTag = "project_id:" + projectID;
+            requestCost = Metrics.timerHandle(Constant.METRICS_KEY_REQUEST_COST, urlTag, projectIDTag);
+            requestTotalCost = Metrics.timerHandle(Constant.METRICS_KEY_REQUEST_TOTAL_COST, projectIDTag, urlTag);
+            requestCount = Metrics.counterHandle(Constant.METRICS_KEY_REQUEST_COUNT, projectIDTag, urlTag);
+        }
+    }
+
+    // package-private for HTTPCallerAuthBenchmark
+    Headers withAuthHeaders(Request request, byte[] bodyBytes) throws BizException {
         if (useAirAuth) {
             Headers originHeaders = request.headers();
             return withAirAuthHeaders(originHeaders, bodyBytes);
         }
         try {
-            return Auth.sign(request, bodyBytes, this.getAuthCredential());
+            return Auth.sign(request, bodyBytes, credentialOf(Utils.hostOf(request.url())));
         } catch (Exception e) {
             throw new BizException(e.getMessage());
         }
     }
 
+    // requests sent to the hosts of another region must be signed with the auth region of that region
+    private Credential credentialOf(String host) {
+        Credentials credentials = credentialProvider.getCredentials();
+        String region = hostAvailabler.getAuthRegion(host);
+        if (Objects.isNull(region)) {
+            region = this.getAuthRegion();
+        }
+        RegionCredential regionCredential = regionCredentials.get(region);
+        if (Objects.nonNull(regionCredential) && regionCredential.credentials == credentials) {
+            return regionCredential.credential;
+        }
+        Credential credential = new Credential(credentials.getAccessKeyID(), credentials.getSecretAccessKey(),
+                this.getAuthService(), region);
+        credential.setSessionToken(credentials.getSessionToken());
+        regionCredentials.put(region, new RegionCredential(credentials, credential));
+        return credential;
+    }
+
+    @AllArgsConstructor
+    private static class RegionCredential {
+        // the credentials from provider which the credential is built from
+        private final Credentials credentials;
+
+        private final Credential credential;
+    }
+
     private Headers withAirAuthHeaders(Headers originHeaders, byte[] reqBytes) {
         // Gets the second-level timestamp of the current time.
         // The server only supports the second-level timestamp.
@@ -390,9 +602,9 @@ public class HTTPCaller {
         // When current time exceeds a certain time, such as 5 seconds, of 'ts',
         // the signature will be invalid and cannot pass authentication
         String ts = "" + (clock.millis() / 1000);
-        // Use sub string of UUID as "nonce",  too long will be wasted.
+        // Use 8 random hex chars as "nonce",  too long will be wasted.
         // You can also use 'ts' as' nonce'
-        String nonce = UUID.randomUUID().toString().substring(0, 8);
+        String nonce = Utils.randomHex(8);
         // calculate the authentication signature
         String signature = calSignature(reqBytes, ts, nonce);
         return originHeaders.newBuilder()
@@ -403,26 +615,12 @@ public class HTTPCaller {
                 .build();
     }
 
-    private OkHttpClient selectHTTPClient(Duration timeout) {
+    private OkHttpClient selectHTTPClient(String host, Duration timeout) {
         if (Objects.isNull(timeout) || timeout.isZero()) {
             timeout = DEFAULT_TIMEOUT;
         }
-        OkHttpClient httpClient = timeoutHTTPCliMap.get(timeout);
-        if (Objects.nonNull(httpClient)) {
-            return httpClient;
-        }
-        synchronized (HTTPCaller.class) {
-            httpClient = timeoutHTTPCliMap.get(timeout);
-            if (Objects.nonNull(httpClient)) {
-                return httpClient;
-            }
-            httpClient = Utils.buildOkHTTPClient(timeout, config.maxIdleConnections, config.keepAliveDuration);
-            Map<Duration, OkHttpClient> timeoutHTTPCliMapTemp = new HashMap<>(timeoutHTTPCliMap.size());
-            timeoutHTTPCliMapTemp.putAll(timeoutHTTPCliMap);
-            timeoutHTTPCliMapTemp.put(timeout, httpClient);
-            timeoutHTTPCliMap = timeoutHTTPCliMapTemp;
-            return httpClient;
-        }
+        return HostConnectionPools.getClient(host, timeout, config.maxIdleConnections,
+                config.keepAliveDuration, config.dns);
     }
 
     private void logErrHTTPResponse(String url, Response response) throws IOException {
@@ -436,7 +634,7 @@ public class HTTPCaller {
         ResponseBody rspBody = response.body();
         if (Objects.isNull(rspBody)) {
             String logFormat = "[ByteplusSDK] http status not 200, project_id:%s, url:%s, code:%d, msg:%s, headers:\\n%s";
-            MetricsLog.error(getReqID(), logFormat,
+            metricsLog.error(getReqID(), logFormat,
                     getProjectID(), url, response.code(), response.message(), response.headers());
             log.error("[ByteplusSDK] http status not 200, url:{} code:{} msg:{} headers:\n{}",
                     url, response.code(), response.message(), response.headers());
@@ -451,7 +649,7 @@ public class HTTPCaller {
         }
         String bodyStr = new String(rspBodyBytes, StandardCharsets.UTF_8);
         String logFormat = "[ByteplusSDK] http status not 200, project_id:%s, url:%s, code:%d, msg:%s, headers:\\n%s, body:\n%s";
-        MetricsLog.error(getReqID(), logFormat,
+        metricsLog.error(getReqID(), logFormat,
                 getProjectID(), url, response.code(), response.message(), response.headers(), bodyStr);
         log.error("[ByteplusSDK] http status not 200, url:{} code:{} msg:{} headers:\n{} body:\n{}",
                 url, response.code(), response.message(), response.headers(), bodyStr);
@@ -478,11 +676,10 @@ public class HTTPCaller {
     }
 
     public void shutdown() {
-        if (!Objects.isNull(heartbeatExecutor)) {
-            heartbeatExecutor.shutdown();
-        }
-        if (!Objects.isNull(keepAliveExecutor)) {
-            keepAliveExecutor.shutdown();
+        hostAvailabler.removeListener(hostListener);
+        hostListener.onHostsRemoved(hostAvailabler.getHosts());
+        if (!Objects.isNull(heartbeatFuture)) {
+            heartbeatFuture.cancel(false);
         }
     }
 
@@ -501,12 +698,16 @@ public class HTTPCaller {
 
         // for httpCaller.
         private int maxKeepAliveConnections;
+
+        // for OkHTTP, default is CachingDns.getDefault(), set Dns.SYSTEM to resolve on every new connection.
+        private Dns dns;
     }
 
     protected static Config getDefaultConfig() {
         return new Config(Constant.DEFAULT_MAX_IDLE_CONNECTIONS,
                 Constant.DEFAULT_KEEPALIVE_DURATION,
                 Constant.DEFAULT_KEEPALIVE_PING_INTERVAL,
-                Constant.DEFAULT_MAX_KEEPALIVE_CONNECTIONS);
+                Constant.DEFAULT_MAX_KEEPALIVE_CONNECTIONS,
+                CachingDns.getDefault());
     }
 }
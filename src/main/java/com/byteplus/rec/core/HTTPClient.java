@@ -11,6 +11,7 @@ import lombok.experimental.Accessors;
 import okhttp3.OkHttpClient;
 
 import java.time.Duration;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
 
@@ -25,7 +26,7 @@ public class HTTPClient {
             Req request,
             Parser<Rsp> rspParser,
             Options options) throws NetException, BizException {
-        return httpCaller.doPBRequest(buildURL(path), request, rspParser, options);
+        return httpCaller.doPBRequest(path, buildURL(path), request, rspParser, options);
     }
 
     public <Rsp> Rsp doJSONRequest(
@@ -33,7 +34,7 @@ public class HTTPClient {
             Object request,
             Rsp response,
             Options options) throws NetException, BizException {
-        return httpCaller.doJSONRequest(buildURL(path), request, response, options);
+        return httpCaller.doJSONRequest(path, buildURL(path), request, response, options);
     }
 
     private String buildURL(String path) {
@@ -42,8 +43,9 @@ public class HTTPClient {
     }
 
     public void shutdown() {
-        hostAvailabler.shutdown();
+        // the caller releases the connection pools of the hosts it still routes to
         httpCaller.shutdown();
+        hostAvailabler.shutdown();
     }
 
     public static Builder builder() {
@@ -69,6 +71,9 @@ public class HTTPClient {
 
         private String authService;
 
+        // Rotates credentials without rebuilding the client, authAK and authSK are ignored if it is set.
+        private CredentialProvider credentialProvider;
+
         private String schema;
 
         private List<String> hosts;
@@ -77,6 +82,12 @@ public class HTTPClient {
 
         private IRegion region;
 
+        // Regions to fail over to when all hosts of `region` are down, in order of preference.
+        // Ignored if '.hosts' is set.
+        private List<IRegion> failoverRegions;
+
+        private MultiRegionHostAvailabler.Config multiRegionConfig;
+
         private HostAvailablerFactory hostAvailablerFactory;
 
         private boolean keepAlive;
@@ -123,6 +134,9 @@ public class HTTPClient {
                 }
                 return;
             }
+            if (Objects.nonNull(credentialProvider)) {
+                return;
+            }
             // auth need ak and sk
             if (Objects.isNull(authAK) || authAK.equals("") ||
                     Objects.isNull(authSK) || authSK.equals("")) {
@@ -136,7 +150,7 @@ public class HTTPClient {
             }
             // fill hostAvailabler Factory.
             if (Objects.isNull(hostAvailablerFactory)) {
-                hostAvailablerFactory = new HostAvailablerFactory();
+                hostAvailablerFactory = new HostAvailablerFactory(schema);
             }
             hostAvailabler = newHostAvailabler();
             // fill default caller config.
@@ -157,6 +171,12 @@ public class HTTPClient {
             if (Utils.isNotEmptyList(hosts)) {
                 return hostAvailablerFactory.newHostAvailabler(projectID, hosts, mainHost, true);
             }
+            if (Utils.isNotEmptyList(failoverRegions)) {
+                List<IRegion> regions = new ArrayList<>();
+                regions.add(region);
+                regions.addAll(failoverRegions);
+                return hostAvailablerFactory.newMultiRegionHostAvailabler(projectID, regions, mainHost, multiRegionConfig);
+            }
             return hostAvailablerFactory.newHostAvailabler(projectID, region.getHosts(), mainHost, false);
         }
 
@@ -164,9 +184,12 @@ public class HTTPClient {
             if (useAirAuth) {
                 return new HTTPCaller(projectID, tenantID, airAuthToken, hostAvailabler, callerConfig, schema, keepAlive);
             }
-            String authRegion = region.getAuthRegion();
-            Auth.Credential credential = new Auth.Credential(authAK, authSK, authService, authRegion);
-            return new HTTPCaller(projectID, tenantID, credential, hostAvailabler, callerConfig, schema, keepAlive);
+            CredentialProvider provider = credentialProvider;
+            if (Objects.isNull(provider)) {
+                provider = new StaticCredentialProvider(authAK, authSK);
+            }
+            return new HTTPCaller(projectID, tenantID, provider, authService, region.getAuthRegion(),
+                    hostAvailabler, callerConfig, schema, keepAlive);
         }
     }
 }
@@ -0,0 +1,114 @@
+package com.byteplus.rec.core;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+// Sliding window of request/probe results made of fixed time buckets, e.g. 60 × 1s.
+// Samples can be recorded by any thread concurrently without locking,
+// and the failure rate of the last T seconds doesn't depend on how many samples arrived.
+// A bucket is reused by the first sample of a new period, samples racing with the reset may be lost,
+// which is acceptable for health statistics.
+public class HealthWindow {
+    private final Clock clock;
+
+    private final long bucketMillis;
+
+    private final Bucket[] buckets;
+
+    public HealthWindow(int bucketCount, Duration bucketDuration) {
+        this(bucketCount, bucketDuration, Clock.systemDefaultZone());
+    }
+
+    public HealthWindow(int bucketCount, Duration bucketDuration, Clock clock) {
+        this.clock = clock;
+        this.bucketMillis = Math.max(1, bucketDuration.toMillis());
+        this.buckets = new Bucket[Math.max(1, bucketCount)];
+        for (int i = 0; i < buckets.length; i++) {
+            buckets[i] = new Bucket();
+        }
+    }
+
+    public void record(boolean success, long costMs) {
+        Bucket bucket = currentBucket();
+        if (success) {
+            bucket.successes.increment();
+        } else {
+            bucket.failures.increment();
+        }
+        bucket.costMillis.add(costMs);
+    }
+
+    // Seeds the current bucket with samples of the given failure rate,
+    // used to restore the health of a host, e.g. from a snapshot.
+    public void seed(double failureRate, int samples) {
+        long failures = Math.round(Math.max(0, Math.min(1, failureRate)) * samples);
+        Bucket bucket = currentBucket();
+        bucket.failures.add(failures);
+        bucket.successes.add(samples - failures);
+    }
+
+    // failure rate of the whole window
+    public double failureRate() {
+        return failureRate(windowDuration());
+    }
+
+    // failure rate of the last `duration`, 0 if there is no sample
+    public double failureRate(Duration duration) {
+        long[] stat = sum(duration);
+        long total = stat[0] + stat[1];
+        return total == 0 ? 0 : (double) stat[1] / total;
+    }
+
+    // average cost of the samples in the last `duration`, 0 if there is no sample
+    public double averageCostMillis(Duration duration) {
+        long[] stat = sum(duration);
+        long total = stat[0] + stat[1];
+        return total == 0 ? 0 : (double) stat[2] / total;
+    }
+
+    public Duration windowDuration() {
+        return Duration.ofMillis(bucketMillis * buckets.length);
+    }
+
+    // {successes, failures, costMillis} of the buckets covering the last `duration`
+    private long[] sum(Duration duration) {
+        long currentEpoch = clock.millis() / bucketMillis;
+        long bucketsToSum = Math.min(buckets.length, Math.max(1, (duration.toMillis() + bucketMillis - 1) / bucketMillis));
+        long[] stat = new long[3];
+        for (long epoch = currentEpoch - bucketsToSum + 1; epoch <= currentEpoch; epoch++) {
+            Bucket bucket = buckets[(int) (epoch % buckets.length)];
+            if (bucket.epoch.get() != epoch) {
+                continue;
+            }
+            stat[0] += bucket.successes.sum();
+            stat[1] += bucket.failures.sum();
+            stat[2] += bucket.costMillis.sum();
+        }
+        return stat;
+    }
+
+    private Bucket currentBucket() {
+        long epoch = clock.millis() / bucketMillis;
+        Bucket bucket = buckets[(int) (epoch % buckets.length)];
+        long bucketEpoch = bucket.epoch.get();
+        if (bucketEpoch < epoch && bucket.epoch.compareAndSet(bucketEpoch, epoch)) {
+            bucket.successes.reset();
+            bucket.failures.reset();
+            bucket.costMillis.reset();
+        }
+        return bucket;
+    }
+
+    private static class Bucket {
+        // the period this bucket is counting for, in units of bucketMillis since epoch
+        private final AtomicLong epoch = new AtomicLong(-1);
+
+        private final LongAdder successes = new LongAdder();
+
+        private final LongAdder failures = new LongAdder();
+
+        private final LongAdder costMillis = new LongAdder();
+    }
+}
@@ -3,9 +3,42 @@ package com.byteplus.rec.core;
 import java.util.List;
 
 public interface HostAvailabler {
+    // Notified by the scoring thread before the new hosts are used to route requests,
+    // so implementations should return quickly.
+    interface Listener {
+        // hosts of httpPath ("*" for the default) are reordered, the first one is used for requests
+        default void onHostOrderChanged(String httpPath, List<String> oldHosts, List<String> newHosts) {
+        }
+
+        default void onHostsAdded(List<String> hosts) {
+        }
+
+        default void onHostsRemoved(List<String> hosts) {
+        }
+    }
+
     String getHost(String httpPath);
 
     List<String> getHosts();
 
     void shutdown();
+
+    // Called after real requests with the host they were sent to,
+    // so that the traffic can be used as a passive health signal.
+    // success is false for connect failures and 5xx, requests timing out once sent are not reported.
+    // httpPath may be null if the caller doesn't know it.
+    default void feedback(String httpPath, String host, boolean success, long costMs) {
+    }
+
+    // The auth region used to sign requests sent to host,
+    // null means the auth region of the client.
+    default String getAuthRegion(String host) {
+        return null;
+    }
+
+    default void addListener(Listener listener) {
+    }
+
+    default void removeListener(Listener listener) {
+    }
 }
@@ -1,18 +1,81 @@
 package com.byteplus.rec.core;
 
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
+
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Objects;
 
 // Implement custom HostAvailabler by overriding HostAvailablerFactory.
+// HostAvailablers created by the default factory are shared by all clients
+// with the same projectID, hosts and config, see HostAvailablerRegistry.
 public class HostAvailablerFactory {
+    // the schema of the client's requests, hosts are pinged with it, so the pings share the
+    // connections of the requests. Null means the default of PingHostAvailabler.
+    private final String pingSchema;
+
+    public HostAvailablerFactory() {
+        this(null);
+    }
+
+    public HostAvailablerFactory(String pingSchema) {
+        this.pingSchema = pingSchema;
+    }
+
     public HostAvailabler newHostAvailabler(String projectID, List<String> hosts) throws BizException {
-        return new PingHostAvailabler(projectID, hosts, new PingHostAvailabler.Config());
+        PingHostAvailabler.Config config = new PingHostAvailabler.Config();
+        return HostAvailablerRegistry.acquire(new Key(projectID, new ArrayList<>(hosts), null, false, config),
+                () -> new PingHostAvailabler(projectID, hosts, config));
     }
 
     public HostAvailabler newHostAvailabler(List<String> hosts) throws BizException {
-        return new PingHostAvailabler(hosts, new PingHostAvailabler.Config());
+        PingHostAvailabler.Config config = new PingHostAvailabler.Config();
+        return HostAvailablerRegistry.acquire(new Key(null, new ArrayList<>(hosts), null, false, config),
+                () -> new PingHostAvailabler(hosts, config));
     }
 
     public HostAvailabler newHostAvailabler(String projectID, List<String> hosts, String mainHost, boolean skipFetchHosts) throws BizException {
-        return new PingHostAvailabler(projectID, hosts, new PingHostAvailabler.Config(), mainHost, skipFetchHosts);
+        PingHostAvailabler.Config config = PingHostAvailabler.Config.builder().pingSchema(pingSchema).build();
+        return HostAvailablerRegistry.acquire(new Key(projectID, new ArrayList<>(hosts), mainHost, skipFetchHosts, config),
+                () -> new PingHostAvailabler(projectID, hosts, config, mainHost, skipFetchHosts));
+    }
+
+    // regions.get(0) is the primary region, mainHost only applies to it.
+    // Every region gets its own HostAvailabler created by this factory.
+    public HostAvailabler newMultiRegionHostAvailabler(String projectID, List<IRegion> regions, String mainHost,
+                                                       MultiRegionHostAvailabler.Config config) throws BizException {
+        List<HostAvailabler> hostAvailablers = new ArrayList<>(regions.size());
+        try {
+            for (int i = 0; i < regions.size(); i++) {
+                hostAvailablers.add(newHostAvailabler(projectID, regions.get(i).getHosts(),
+                        i == 0 ? mainHost : null, false));
+            }
+            if (Objects.nonNull(pingSchema) && (Objects.isNull(config) || Objects.isNull(config.getProbeSchema()))) {
+                config = (Objects.isNull(config) ? MultiRegionHostAvailabler.Config.builder() : config.toBuilder())
+                        .probeSchema(pingSchema)
+                        .build();
+            }
+            return new MultiRegionHostAvailabler(projectID, regions, hostAvailablers, config);
+        } catch (BizException | RuntimeException e) {
+            hostAvailablers.forEach(HostAvailabler::shutdown);
+            throw e;
+        }
+    }
+
+    @AllArgsConstructor
+    @EqualsAndHashCode
+    @ToString
+    private static class Key {
+        private final String projectID;
+
+        private final List<String> hosts;
+
+        private final String mainHost;
+
+        private final boolean skipFetchHosts;
+
+        private final PingHostAvailabler.Config config;
     }
 }
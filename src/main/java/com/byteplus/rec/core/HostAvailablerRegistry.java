@@ -0,0 +1,144 @@
+package com.byteplus.rec.core;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// Process-wide registry of HostAvailablers.
+// HTTPClients built with the same key (e.g. projectID, hosts and config) share one HostAvailabler,
+// so that they share background threads, ping and fetch traffic.
+// The shared HostAvailabler is shut down when the last client using it is shut down,
+// or when SdkRuntime shuts down, as its periodic tasks are gone then.
+@Slf4j
+public class HostAvailablerRegistry {
+    public interface Creator {
+        HostAvailabler create() throws BizException;
+    }
+
+    private static final Map<Object, Entry> entries = new HashMap<>();
+
+    // key must implement equals and hashCode
+    public static HostAvailabler acquire(Object key, Creator creator) throws BizException {
+        Entry entry;
+        synchronized (entries) {
+            entry = entries.computeIfAbsent(key, Entry::new);
+            entry.refCount++;
+        }
+        try {
+            return new SharedHostAvailabler(entry, entry.getOrCreate(creator));
+        } catch (BizException | RuntimeException e) {
+            release(entry);
+            throw e;
+        }
+    }
+
+    private static void release(Entry entry) {
+        synchronized (entries) {
+            entry.refCount--;
+            if (entry.refCount > 0) {
+                return;
+            }
+            entries.remove(entry.key, entry);
+        }
+        entry.shutdown();
+    }
+
+    // Called by SdkRuntime.shutdown. All shared HostAvailablers are shut down and forgotten,
+    // so clients built afterwards get new ones scheduled on the new runtime.
+    // Clients still using the old ones release them as usual, which does nothing more.
+    static void invalidateAll() {
+        List<Entry> invalidated;
+        synchronized (entries) {
+            invalidated = new ArrayList<>(entries.values());
+            entries.clear();
+        }
+        invalidated.forEach(Entry::shutdown);
+    }
+
+    private static class Entry {
+        private final Object key;
+
+        // guarded by entries
+        private int refCount;
+
+        private HostAvailabler hostAvailabler;
+
+        private Entry(Object key) {
+            this.key = key;
+        }
+
+        // creation may block on fetching hosts, so only lock this entry instead of the whole registry
+        private synchronized HostAvailabler getOrCreate(Creator creator) throws BizException {
+            if (Objects.isNull(hostAvailabler)) {
+                hostAvailabler = creator.create();
+                log.debug("[ByteplusSDK] create shared host availabler, key:{}", key);
+            }
+            return hostAvailabler;
+        }
+
+        private synchronized void shutdown() {
+            if (Objects.isNull(hostAvailabler)) {
+                return;
+            }
+            log.debug("[ByteplusSDK] shutdown shared host availabler, key:{}", key);
+            hostAvailabler.shutdown();
+            hostAvailabler = null;
+        }
+    }
+
+    private static class SharedHostAvailabler implements HostAvailabler {
+        private final Entry entry;
+
+        private final HostAvailabler delegate;
+
+        private final AtomicBoolean released = new AtomicBoolean(false);
+
+        private SharedHostAvailabler(Entry entry, HostAvailabler delegate) {
+            this.entry = entry;
+            this.delegate = delegate;
+        }
+
+        @Override
+        public String getHost(String httpPath) {
+            return delegate.getHost(httpPath);
+        }
+
+        @Override
+        public List<String> getHosts() {
+            return delegate.getHosts();
+        }
+
+        @Override
+        public void feedback(String httpPath, String host, boolean success, long costMs) {
+            delegate.feedback(httpPath, host, success, costMs);
+        }
+
+        @Override
+        public String getAuthRegion(String host) {
+            return delegate.getAuthRegion(host);
+        }
+
+        @Override
+        public void addListener(Listener listener) {
+            delegate.addListener(listener);
+        }
+
+        @Override
+        public void removeListener(Listener listener) {
+            delegate.removeListener(listener);
+        }
+
+        // only the last shutdown really stops the shared HostAvailabler
+        @Override
+        public void shutdown() {
+            if (released.compareAndSet(false, true)) {
+                release(entry);
+            }
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package com.byteplus.rec.core;
+
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import okhttp3.ConnectionPool;
+import okhttp3.Dns;
+import okhttp3.OkHttpClient;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+// Process-wide OkHttpClients grouped by host.
+// All clients of one host share a connection pool whatever their timeouts are,
+// so that probes sent to a host keep alive the same connections used by requests.
+public class HostConnectionPools {
+    @AllArgsConstructor
+    @EqualsAndHashCode
+    private static class PoolKey {
+        private final String host;
+
+        private final int maxIdleConnections;
+
+        private final Duration keepAliveDuration;
+    }
+
+    @AllArgsConstructor
+    @EqualsAndHashCode
+    private static class ClientKey {
+        private final PoolKey poolKey;
+
+        private final Duration timeout;
+
+        private final Dns dns;
+    }
+
+    private static final Map<PoolKey, OkHttpClient> baseClients = new ConcurrentHashMap<>();
+
+    private static final Map<ClientKey, OkHttpClient> clients = new ConcurrentHashMap<>();
+
+    // pool->users still sending requests to the host of the pool, e.g. HTTPCallers of several projects
+    private static final Map<PoolKey, Set<Object>> poolUsers = new HashMap<>();
+
+    public static OkHttpClient getClient(String host, Duration timeout) {
+        return getClient(host, timeout, Constant.DEFAULT_MAX_IDLE_CONNECTIONS,
+                Constant.DEFAULT_KEEPALIVE_DURATION, CachingDns.getDefault());
+    }
+
+    // dns may be null, which means the system dns
+    public static OkHttpClient getClient(String host, Duration timeout,
+                                         int maxIdleConnections, Duration keepAliveDuration, Dns dns) {
+        PoolKey poolKey = new PoolKey(host, maxIdleConnections, keepAliveDuration);
+        ClientKey clientKey = new ClientKey(poolKey, timeout, dns);
+        OkHttpClient client = clients.get(clientKey);
+        if (client != null) {
+            return client;
+        }
+        return clients.computeIfAbsent(clientKey,
+                key -> Utils.buildOkHTTPClient(getBaseClient(poolKey), timeout, dns));
+    }
+
+    // user sends requests to host through the pool of the given config
+    public static void retainHost(Object user, String host, int maxIdleConnections, Duration keepAliveDuration) {
+        PoolKey poolKey = new PoolKey(host, maxIdleConnections, keepAliveDuration);
+        synchronized (poolUsers) {
+            poolUsers.computeIfAbsent(poolKey, key -> new HashSet<>()).add(user);
+        }
+    }
+
+    // user no longer sends requests to host, e.g. after it is removed from the host config.
+    // The idle connections of the pool are closed once no user of it is left, pools of other configs
+    // are never touched. Connections in use are kept, and expire as usual once they become idle.
+    public static void releaseHost(Object user, String host, int maxIdleConnections, Duration keepAliveDuration) {
+        PoolKey poolKey = new PoolKey(host, maxIdleConnections, keepAliveDuration);
+        synchronized (poolUsers) {
+            Set<Object> users = poolUsers.get(poolKey);
+            if (Objects.isNull(users) || !users.remove(user) || !users.isEmpty()) {
+                return;
+            }
+            poolUsers.remove(poolKey);
+        }
+        OkHttpClient client = baseClients.get(poolKey);
+        if (Objects.nonNull(client)) {
+            client.connectionPool().evictAll();
+        }
+    }
+
+    private static OkHttpClient getBaseClient(PoolKey poolKey) {
+        return baseClients.computeIfAbsent(poolKey, key -> new OkHttpClient.Builder()
+                .connectionPool(new ConnectionPool(
+                        key.maxIdleConnections,
+                        key.keepAliveDuration.toMillis(),
+                        TimeUnit.MILLISECONDS))
+                // Has no practical effect, only used for websocket
+                .pingInterval(Constant.DEFAULT_KEEPALIVE_PING_INTERVAL)
+                .build());
+    }
+}
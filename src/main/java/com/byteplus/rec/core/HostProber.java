@@ -0,0 +1,63 @@
+package com.byteplus.rec.core;
+
+import okhttp3.OkHttpClient;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+// Single entry of all probes sent by the sdk, such as heartbeat keepalive and health pings.
+// Probes are sent over the shared connection pools of HostConnectionPools,
+// and every probe result is delivered to all listeners,
+// so one probe both keeps a pooled connection alive and feeds the health of the host.
+public class HostProber {
+    public interface Listener {
+        void onProbe(String host, boolean success, long costMs);
+    }
+
+    public static final String DEFAULT_PING_URL_FORMAT = "%s://%s/predict/api/ping";
+
+    private static final HostProber instance = new HostProber();
+
+    private final Clock clock = Clock.systemDefaultZone();
+
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+
+    // host->timestamp of the last finished probe
+    private final Map<String, Long> lastProbeTimes = new ConcurrentHashMap<>();
+
+    public static HostProber get() {
+        return instance;
+    }
+
+    public void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(Listener listener) {
+        listeners.remove(listener);
+    }
+
+    public boolean probe(String projectID, String schema, String host, Duration timeout) {
+        return probe(projectID, DEFAULT_PING_URL_FORMAT, schema, host, HostConnectionPools.getClient(host, timeout));
+    }
+
+    public boolean probe(String projectID, String pingURLFormat, String schema, String host, OkHttpClient client) {
+        long start = clock.millis();
+        boolean success = Utils.ping(projectID, client, pingURLFormat, schema, host);
+        long end = clock.millis();
+        lastProbeTimes.put(host, end);
+        for (Listener listener : listeners) {
+            listener.onProbe(host, success, end - start);
+        }
+        return success;
+    }
+
+    // return 0 if the host was never probed
+    public long getLastProbeTime(String host) {
+        return lastProbeTimes.getOrDefault(host, 0L);
+    }
+}
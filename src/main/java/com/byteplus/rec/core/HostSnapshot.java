@@ -0,0 +1,87 @@
+package com.byteplus.rec.core;
+
+import com.alibaba.fastjson.JSON;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+// Local copy of the last host config and host scores, used to warm up
+// a restarted HostAvailabler before the first fetch/ping round finishes.
+@Slf4j
+@Getter
+@Setter
+@NoArgsConstructor
+public class HostSnapshot {
+    private String projectID;
+
+    // epoch millis when the snapshot was taken
+    private long timestamp;
+
+    // path->host_array, same layout as AbstractHostAvailabler.hostConfig
+    private Map<String, List<String>> hostConfig;
+
+    // host->score, range [0, 1]
+    private Map<String, Double> hostScores;
+
+    protected HostSnapshot(String projectID, long timestamp,
+                           Map<String, List<String>> hostConfig, Map<String, Double> hostScores) {
+        this.projectID = projectID;
+        this.timestamp = timestamp;
+        this.hostConfig = hostConfig;
+        this.hostScores = hostScores;
+    }
+
+    protected boolean isFresh(long now, Duration maxAge) {
+        return timestamp <= now && now - timestamp <= maxAge.toMillis();
+    }
+
+    protected boolean containsDefaultHosts() {
+        return Objects.nonNull(hostConfig) && hostConfig.containsKey("*") && !hostConfig.get("*").isEmpty();
+    }
+
+    // return null if snapshot file not exists or is broken
+    protected static HostSnapshot load(Path path) {
+        if (!Files.isRegularFile(path)) {
+            return null;
+        }
+        try {
+            byte[] bytes = Files.readAllBytes(path);
+            return JSON.parseObject(new String(bytes, StandardCharsets.UTF_8), HostSnapshot.class);
+        } catch (Throwable e) {
+            log.warn("[ByteplusSDK] load host snapshot fail, path:{} err:{}", path, e.toString());
+            return null;
+        }
+    }
+
+    // write to a temp file in the same directory, then rename it,
+    // so readers never see a half-written snapshot
+    protected void save(Path path) throws IOException {
+        Path dir = path.toAbsolutePath().getParent();
+        if (Objects.nonNull(dir)) {
+            Files.createDirectories(dir);
+        }
+        Path tmpPath = Files.createTempFile(dir, path.getFileName().toString(), ".tmp");
+        try {
+            Files.write(tmpPath, JSON.toJSONBytes(this));
+            try {
+                Files.move(tmpPath, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tmpPath, path, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(tmpPath);
+        }
+    }
+}
@@ -0,0 +1,418 @@
+package com.byteplus.rec.core;
+
+import com.byteplus.rec.core.metrics.Metrics;
+import com.byteplus.rec.core.metrics.MetricsLog;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ScheduledFuture;
+
+// Routes requests to one of several regions, the first region is the primary one.
+// Every region has its own HostAvailabler, this class only decides which region is active:
+// - a region is down when all the hosts its HostAvailabler routes to, including the ones fetched
+//   from the server, fail to be probed several times in a row
+// - hosts nobody else probed in the last evaluateInterval, e.g. the only host of a region or hosts
+//   without heartbeat, are probed by every evaluation. Until a region has a probe result, its health
+//   is unknown: it is neither switched away from nor switched to
+// - when the active region is down, switch to the best healthy region immediately
+// - otherwise switch to the preferred region only after it stays preferred for `hysteresisRounds` rounds,
+//   the preferred region is the primary one, or the nearest one if `selectNearestRegion` is set
+// Requests are signed with the auth region of the region their host belongs to.
+@Slf4j
+public class MultiRegionHostAvailabler implements HostAvailabler {
+    private static final MetricsLog.Logger metricsLog = MetricsLog.getLogger("MultiRegionHostAvailabler");
+
+    private static final Duration DEFAULT_EVALUATE_INTERVAL = Duration.ofSeconds(5);
+
+    private static final int DEFAULT_HYSTERESIS_ROUNDS = 6;
+
+    private static final double DEFAULT_RTT_IMPROVEMENT_RATIO = 0.2;
+
+    // a host is down after so many failed probes in a row
+    private static final int HOST_DOWN_FAILURES = 3;
+
+    private static final double RTT_EWMA_ALPHA = 0.3;
+
+    private static final String DEFAULT_PROBE_SCHEMA = "http";
+
+    private static final Duration DEFAULT_PROBE_TIMEOUT = Duration.ofMillis(300);
+
+    private final Clock clock = Clock.systemDefaultZone();
+
+    private final String projectID;
+
+    private final List<IRegion> regions;
+
+    private final List<HostAvailabler> hostAvailablers;
+
+    private final Config config;
+
+    // host->index of region, for the configured hosts and the hosts fetched by the region's HostAvailabler
+    private final Map<String, Integer> hostRegionIndex = new ConcurrentHashMap<>();
+
+    private final Map<String, HostStat> hostStats = new ConcurrentHashMap<>();
+
+    private final HostProber.Listener probeListener = this::onProbe;
+
+    private final ScheduledFuture<?> evaluateFuture;
+
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+
+    private final List<Listener> regionListeners = new ArrayList<>();
+
+    private volatile int activeRegion = 0;
+
+    // the preferred region of the last rounds and how many rounds it has been preferred
+    private int candidateRegion = 0;
+
+    private int candidateRounds = 0;
+
+    public MultiRegionHostAvailabler(String projectID, List<IRegion> regions,
+                                     List<HostAvailabler> hostAvailablers, Config config) throws BizException {
+        if (Utils.isEmptyList(regions) || Objects.isNull(hostAvailablers) ||
+                regions.size() != hostAvailablers.size()) {
+            throw new BizException("regions and host availablers are not matched");
+        }
+        this.projectID = projectID;
+        this.regions = new ArrayList<>(regions);
+        this.hostAvailablers = new ArrayList<>(hostAvailablers);
+        this.config = fillDefaultConfig(config);
+        for (int i = 0; i < regions.size(); i++) {
+            for (String host : regions.get(i).getHosts()) {
+                hostRegionIndex.putIfAbsent(host, i);
+            }
+            for (String host : hostAvailablers.get(i).getHosts()) {
+                hostRegionIndex.putIfAbsent(host, i);
+            }
+        }
+        for (int i = 0; i < hostAvailablers.size(); i++) {
+            Listener regionListener = new RegionListener(i);
+            regionListeners.add(regionListener);
+            hostAvailablers.get(i).addListener(regionListener);
+        }
+        HostProber.get().addListener(probeListener);
+        evaluateFuture = SdkRuntime.get().scheduleAtFixedRate("evaluate_regions", this::evaluate,
+                this.config.evaluateInterval, this.config.evaluateInterval);
+    }
+
+    private Config fillDefaultConfig(Config config) {
+        if (Objects.isNull(config)) {
+            config = new Config();
+        }
+        config = config.toBuilder().build();
+        if (Objects.isNull(config.evaluateInterval) || config.evaluateInterval.isZero()) {
+            config.evaluateInterval = DEFAULT_EVALUATE_INTERVAL;
+        }
+        if (config.hysteresisRounds <= 0) {
+            config.hysteresisRounds = DEFAULT_HYSTERESIS_ROUNDS;
+        }
+        if (config.rttImprovementRatio <= 0) {
+            config.rttImprovementRatio = DEFAULT_RTT_IMPROVEMENT_RATIO;
+        }
+        if (Objects.isNull(config.probeSchema) || config.probeSchema.isEmpty()) {
+            config.probeSchema = DEFAULT_PROBE_SCHEMA;
+        }
+        if (Objects.isNull(config.probeTimeout) || config.probeTimeout.isZero()) {
+            config.probeTimeout = DEFAULT_PROBE_TIMEOUT;
+        }
+        return config;
+    }
+
+    private void onProbe(String host, boolean success, long costMs) {
+        Integer regionIndex = hostRegionIndex.get(host);
+        if (Objects.isNull(regionIndex)) {
+            return;
+        }
+        hostStats.computeIfAbsent(host, key -> new HostStat()).update(success, costMs);
+    }
+
+    private void evaluate() {
+        probeUnwatchedHosts();
+        int active = activeRegion;
+        int preferred = preferredRegion();
+        if (preferred < 0) {
+            // no region is known to be healthy, keep using the active one
+            candidateRounds = 0;
+            return;
+        }
+        if (isRegionDown(active)) {
+            switchRegion(active, preferred, "active_region_down");
+            return;
+        }
+        if (preferred == active) {
+            candidateRounds = 0;
+            return;
+        }
+        if (preferred != candidateRegion) {
+            candidateRegion = preferred;
+            candidateRounds = 0;
+        }
+        candidateRounds++;
+        if (candidateRounds >= config.hysteresisRounds) {
+            switchRegion(active, preferred, preferred == 0 ? "back_to_primary" : "nearer_region");
+        }
+    }
+
+    // the results arrive through onProbe, at the latest in the next evaluation
+    private void probeUnwatchedHosts() {
+        HostProber prober = HostProber.get();
+        long now = clock.millis();
+        for (HostAvailabler hostAvailabler : hostAvailablers) {
+            for (String host : hostAvailabler.getHosts()) {
+                if (now - prober.getLastProbeTime(host) < config.evaluateInterval.toMillis()) {
+                    continue;
+                }
+                SdkRuntime.get().submit("probe_region_host",
+                        () -> prober.probe(projectID, config.probeSchema, host, config.probeTimeout));
+            }
+        }
+    }
+
+    // return -1 if no region is known to be healthy
+    private int preferredRegion() {
+        if (!config.selectNearestRegion) {
+            for (int i = 0; i < regions.size(); i++) {
+                if (isRegionHealthy(i)) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+        int nearest = -1;
+        double nearestRTT = Double.MAX_VALUE;
+        for (int i = 0; i < regions.size(); i++) {
+            if (!isRegionHealthy(i)) {
+                continue;
+            }
+            double rtt = regionRTT(i);
+            if (nearest < 0 || rtt < nearestRTT) {
+                nearest = i;
+                nearestRTT = rtt;
+            }
+        }
+        int active = activeRegion;
+        // a nearer region must be significantly nearer, to avoid switching back and forth on jitters
+        if (nearest != active && isRegionHealthy(active) &&
+                nearestRTT > regionRTT(active) * (1 - config.rttImprovementRatio)) {
+            return active;
+        }
+        return nearest;
+    }
+
+    // only the hosts the region routes to matter, the configured ones may be replaced by fetched ones.
+    // A region is healthy if one of its hosts is known to be up
+    private boolean isRegionHealthy(int regionIndex) {
+        for (String host : hostAvailablers.get(regionIndex).getHosts()) {
+            HostStat stat = hostStats.get(host);
+            if (Objects.nonNull(stat) && stat.consecutiveFailures < HOST_DOWN_FAILURES) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // a region is down if all of its hosts are known to be down, a host without probe result is unknown
+    private boolean isRegionDown(int regionIndex) {
+        List<String> hosts = hostAvailablers.get(regionIndex).getHosts();
+        for (String host : hosts) {
+            HostStat stat = hostStats.get(host);
+            if (Objects.isNull(stat) || stat.consecutiveFailures < HOST_DOWN_FAILURES) {
+                return false;
+            }
+        }
+        return !hosts.isEmpty();
+    }
+
+    // the rtt of the fastest host in region, unknown rtt is treated as the slowest
+    private double regionRTT(int regionIndex) {
+        double rtt = Double.MAX_VALUE;
+        for (String host : hostAvailablers.get(regionIndex).getHosts()) {
+            HostStat stat = hostStats.get(host);
+            if (Objects.nonNull(stat) && stat.rttMillis > 0 && stat.consecutiveFailures < HOST_DOWN_FAILURES) {
+                rtt = Math.min(rtt, stat.rttMillis);
+            }
+        }
+        return rtt;
+    }
+
+    private void switchRegion(int from, int to, String reason) {
+        candidateRegion = to;
+        candidateRounds = 0;
+        if (from == to) {
+            return;
+        }
+        // listeners may read getHost, which must already route to the new region
+        activeRegion = to;
+        List<String> oldHosts = routedHosts(from);
+        List<String> newHosts = routedHosts(to);
+        for (Listener listener : listeners) {
+            try {
+                listener.onHostOrderChanged("*", oldHosts, newHosts);
+            } catch (Throwable e) {
+                log.error("[ByteplusSDK] host availabler listener fail, err:{}", e.toString());
+            }
+        }
+        String[] metricsTags = new String[]{
+                "type:switch_region",
+                "reason:" + reason,
+                "project_id:" + projectID,
+                "to:" + regions.get(to).getAuthRegion()
+        };
+        Metrics.counter(Constant.METRICS_KEY_COMMON_INFO, 1, metricsTags);
+        metricsLog.warn("region_" + UUID.randomUUID(),
+                "[ByteplusSDK][Region] switch region, project_id:%s, from:%s, to:%s, reason:%s",
+                projectID, regions.get(from).getAuthRegion(), regions.get(to).getAuthRegion(), reason);
+        log.warn("[ByteplusSDK] switch region from {} to {}, reason:{}",
+                regions.get(from).getAuthRegion(), regions.get(to).getAuthRegion(), reason);
+    }
+
+    // the hosts of the region in routing order, the host serving requests first
+    private List<String> routedHosts(int regionIndex) {
+        HostAvailabler hostAvailabler = hostAvailablers.get(regionIndex);
+        Set<String> hosts = new LinkedHashSet<>();
+        String host = hostAvailabler.getHost("*");
+        if (Objects.nonNull(host)) {
+            hosts.add(host);
+        }
+        hosts.addAll(hostAvailabler.getHosts());
+        return new ArrayList<>(hosts);
+    }
+
+    @Override
+    public String getHost(String httpPath) {
+        return hostAvailablers.get(activeRegion).getHost(httpPath);
+    }
+
+    // hosts of all regions, so that connections to the standby regions are also kept alive
+    @Override
+    public List<String> getHosts() {
+        Set<String> hosts = new LinkedHashSet<>();
+        for (HostAvailabler hostAvailabler : hostAvailablers) {
+            hosts.addAll(hostAvailabler.getHosts());
+        }
+        return new ArrayList<>(hosts);
+    }
+
+    @Override
+    public String getAuthRegion(String host) {
+        Integer regionIndex = hostRegionIndex.get(host);
+        if (Objects.isNull(regionIndex)) {
+            return regions.get(activeRegion).getAuthRegion();
+        }
+        return regions.get(regionIndex).getAuthRegion();
+    }
+
+    @Override
+    public void feedback(String httpPath, String host, boolean success, long costMs) {
+        Integer regionIndex = hostRegionIndex.get(host);
+        hostAvailablers.get(Objects.isNull(regionIndex) ? activeRegion : regionIndex)
+                .feedback(httpPath, host, success, costMs);
+    }
+
+    @Override
+    public void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
+    @Override
+    public void removeListener(Listener listener) {
+        listeners.remove(listener);
+    }
+
+    @Override
+    public void shutdown() {
+        evaluateFuture.cancel(false);
+        HostProber.get().removeListener(probeListener);
+        for (int i = 0; i < hostAvailablers.size(); i++) {
+            hostAvailablers.get(i).removeListener(regionListeners.get(i));
+            hostAvailablers.get(i).shutdown();
+        }
+    }
+
+    // forwards the changes of one region, order changes only matter for the active region
+    @AllArgsConstructor
+    private class RegionListener implements Listener {
+        private final int regionIndex;
+
+        @Override
+        public void onHostOrderChanged(String httpPath, List<String> oldHosts, List<String> newHosts) {
+            if (regionIndex != activeRegion) {
+                return;
+            }
+            listeners.forEach(listener -> listener.onHostOrderChanged(httpPath, oldHosts, newHosts));
+        }
+
+        @Override
+        public void onHostsAdded(List<String> hosts) {
+            hosts.forEach(host -> hostRegionIndex.putIfAbsent(host, regionIndex));
+            listeners.forEach(listener -> listener.onHostsAdded(hosts));
+        }
+
+        @Override
+        public void onHostsRemoved(List<String> hosts) {
+            for (String host : hosts) {
+                if (hostRegionIndex.remove(host, regionIndex)) {
+                    hostStats.remove(host);
+                }
+            }
+            listeners.forEach(listener -> listener.onHostsRemoved(hosts));
+        }
+    }
+
+    private static class HostStat {
+        private volatile int consecutiveFailures;
+
+        // ewma of successful probes, 0 means unknown
+        private volatile double rttMillis;
+
+        private synchronized void update(boolean success, long costMs) {
+            if (!success) {
+                consecutiveFailures++;
+                return;
+            }
+            consecutiveFailures = 0;
+            rttMillis = rttMillis <= 0 ? costMs : RTT_EWMA_ALPHA * costMs + (1 - RTT_EWMA_ALPHA) * rttMillis;
+        }
+    }
+
+    @Getter
+    @Builder(toBuilder = true)
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @EqualsAndHashCode
+    @ToString
+    public static class Config {
+        private Duration evaluateInterval;
+
+        // rounds a region must stay preferred before switching to it, unless the active region is down
+        private int hysteresisRounds;
+
+        // prefer the healthy region with the lowest probe rtt instead of the primary region
+        private boolean selectNearestRegion;
+
+        // a nearer region must have a rtt lower than the active one by this ratio
+        private double rttImprovementRatio;
+
+        // hosts nobody else probes are probed with it, the default is http, HostAvailablerFactory
+        // sets the schema of the client
+        private String probeSchema;
+
+        private Duration probeTimeout;
+    }
+}
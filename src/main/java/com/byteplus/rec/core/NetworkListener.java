@@ -18,6 +18,8 @@ import java.util.Objects;
 
 @Slf4j
 public class NetworkListener extends EventListener {
+    private static final MetricsLog.Logger metricsLog = MetricsLog.getLogger("NetworkListener");
+
     static InetAddress addr;
 
     static {
@@ -28,12 +30,27 @@ public class NetworkListener extends EventListener {
         }
     }
 
+    // receives connect results if not null
+    private final CachingDns dns;
+
+    public NetworkListener() {
+        this(null);
+    }
+
+    public NetworkListener(CachingDns dns) {
+        this.dns = dns;
+    }
+
     public static Factory get() {
+        return get(null);
+    }
+
+    public static Factory get(CachingDns dns) {
         return new Factory() {
             @NotNull
             @Override
             public EventListener create(@NotNull Call call) {
-                return new NetworkListener();
+                return new NetworkListener(dns);
             }
         };
     }
@@ -54,11 +71,24 @@ public class NetworkListener extends EventListener {
         return call.request().headers("Project-Id").get(0);
     }
 
+    // metricsLog formats lazily, but the ids of the call are looked up from the headers,
+    // so they are only looked up once the log is accepted
+    private void logEvent(Call call, String format, long timestamp) {
+        if (metricsLog.isInfoEnabled()) {
+            metricsLog.info(getReqID(call), format, getProjectID(call), addr, timestamp);
+        }
+    }
+
+    private void logEvent(Call call, String format, long timestamp, Object detail) {
+        if (metricsLog.isInfoEnabled()) {
+            metricsLog.info(getReqID(call), format, getProjectID(call), addr, timestamp, detail);
+        }
+    }
+
     @Override
     public void callStart(@NotNull Call call) {
-        long currentTimestamp = System.currentTimeMillis();
-        MetricsLog.info(getReqID(call), "[ByteplusSDK][NetworkListener] project_id=%s, host=%s, callStart=%d, url=%s",
-                getProjectID(call), addr, currentTimestamp, call.request().url());
+        logEvent(call, "[ByteplusSDK][NetworkListener] project_id=%s, host=%s, callStart=%d, url=%s",
+                System.currentTimeMillis(), call.request().url());
     }
 
     @Override
@@ -68,16 +98,14 @@ public class NetworkListener extends EventListener {
                 "project_id:" + getProjectID(call)
         };
         Metrics.counter(Constant.METRICS_KEY_NETWORK_DNS_START, 1, metricsTags);
-        long currentTimestamp = System.currentTimeMillis();
-        MetricsLog.info(getReqID(call), "[ByteplusSDK][NetworkListener] project_id=%s, host=%s, dnsStart=%d",
-                getProjectID(call), addr, currentTimestamp);
+        logEvent(call, "[ByteplusSDK][NetworkListener] project_id=%s, host=%s, dnsStart=%d",
+                System.currentTimeMillis());
     }
 
     @Override
     public void dnsEnd(@NotNull Call call, @NotNull String domainName, @NotNull List<InetAddress> inetAddressList) {
-        long currentTimestamp = System.currentTimeMillis();
-        MetricsLog.info(getReqID(call), "[ByteplusSDK][NetworkListener] project_id=%s, host=%s, dnsEnd=%d",
-                getProjectID(call), addr, currentTimestamp);
+        logEvent(call, "[ByteplusSDK][NetworkListener] project_id=%s, host=%s, dnsEnd=%d",
+                System.currentTimeMillis());
     }
 
     @Override
@@ -87,9 +115,8 @@ public class NetworkListener extends EventListener {
                 "project_id:" + getProjectID(call)
         };
         Metrics.counter(Constant.METRICS_KEY_NETWORK_CONNECT_START, 1, metricsTags);
-        long currentTimestamp = System.currentTimeMillis();
-        MetricsLog.info(getReqID(call), "[ByteplusSDK][NetworkListener] project_id=%s, host=%s, connectStart=%d",
-                getProjectID(call), addr, currentTimestamp);
+        logEvent(call, "[ByteplusSDK][NetworkListener] project_id=%s, host=%s, connectStart=%d",
+                System.currentTimeMillis());
     }
 
     @Override
@@ -99,99 +126,92 @@ public class NetworkListener extends EventListener {
                 "project_id:" + getProjectID(call)
         };
         Metrics.counter(Constant.METRICS_KEY_NETWORK_SECURE_CONNECT_START, 1, metricsTags);
-        long currentTimestamp = System.currentTimeMillis();
-        MetricsLog.info(getReqID(call), "[ByteplusSDK][NetworkListener] project_id=%s, host=%s, secureConnectStart=%d",
-                getProjectID(call), addr, currentTimestamp);
+        logEvent(call, "[ByteplusSDK][NetworkListener] project_id=%s, host=%s, secureConnectStart=%d",
+                System.currentTimeMillis());
     }
 
     @Override
     public void secureConnectEnd(@NotNull Call call, @Nullable Handshake handshake) {
-        long currentTimestamp = System.currentTimeMillis();
-        MetricsLog.info(getReqID(call), "[ByteplusSDK][NetworkListener] project_id=%s, host=%s, secureConnectEnd=%d",
-                getProjectID(call), addr, currentTimestamp);
+        logEvent(call, "[ByteplusSDK][NetworkListener] project_id=%s, host=%s, secureConnectEnd=%d",
+                System.currentTimeMillis());
     }
 
     @Override
     public void connectEnd(@NotNull Call call, @NotNull InetSocketAddress inetSocketAddress,
                            @NotNull Proxy proxy, @Nullable Protocol protocol) {
-        long currentTimestamp = System.currentTimeMillis();
-        MetricsLog.info(getReqID(call), "[ByteplusSDK][NetworkListener] project_id=%s, host=%s, connectEnd=%d",
-                getProjectID(call), addr, currentTimestamp);
+        if (Objects.nonNull(dns)) {
+            dns.recordConnect(inetSocketAddress.getAddress(), true);
+        }
+        logEvent(call, "[ByteplusSDK][NetworkListener] project_id=%s, host=%s, connectEnd=%d",
+                System.currentTimeMillis());
     }
 
     @Override
     public void connectFailed(@NotNull Call call, @NotNull InetSocketAddress inetSocketAddress, @NotNull Proxy proxy, @Nullable Protocol protocol, @NotNull IOException ioe) {
+        if (Objects.nonNull(dns)) {
+            dns.recordConnect(inetSocketAddress.getAddress(), false);
+        }
         String[] metricsTags = new String[]{
                 "url:" + Utils.escapeMetricsTagValue(call.request().url().toString()),
                 "project_id:" + getProjectID(call)
         };
         Metrics.counter(Constant.METRICS_KEY_NETWORK_CONNECT_FAIL, 1, metricsTags);
-        long currentTimestamp = System.currentTimeMillis();
-        MetricsLog.info(getReqID(call), "[ByteplusSDK][NetworkListener] project_id=%s, host=%s, connectFailed=%d",
-                getProjectID(call), addr, currentTimestamp);
+        logEvent(call, "[ByteplusSDK][NetworkListener] project_id=%s, host=%s, connectFailed=%d",
+                System.currentTimeMillis());
     }
 
     @Override
     public void requestHeadersStart(@NotNull Call call) {
-        long currentTimestamp = System.currentTimeMillis();
-        MetricsLog.info(getReqID(call), "[ByteplusSDK][NetworkListener] project_id=%s, host=%s, requestHeadersStart=%d",
-                getProjectID(call), addr, currentTimestamp);
+        logEvent(call, "[ByteplusSDK][NetworkListener] project_id=%s, host=%s, requestHeadersStart=%d",
+                System.currentTimeMillis());
     }
 
     @Override
     public void requestHeadersEnd(@NotNull Call call, @NotNull Request request) {
-        long currentTimestamp = System.currentTimeMillis();
-        MetricsLog.info(getReqID(call), "[ByteplusSDK][NetworkListener] project_id=%s, host=%s, requestHeadersEnd=%d",
-                getProjectID(call), addr, currentTimestamp);
+        logEvent(call, "[ByteplusSDK][NetworkListener] project_id=%s, host=%s, requestHeadersEnd=%d",
+                System.currentTimeMillis());
     }
 
     @Override
     public void requestBodyStart(@NotNull Call call) {
-        long currentTimestamp = System.currentTimeMillis();
-        MetricsLog.info(getReqID(call), "[ByteplusSDK][NetworkListener] project_id=%s, host=%s, requestBodyStart=%d",
-                getProjectID(call), addr, currentTimestamp);
+        logEvent(call, "[ByteplusSDK][NetworkListener] project_id=%s, host=%s, requestBodyStart=%d",
+                System.currentTimeMillis());
     }
 
     @Override
     public void requestBodyEnd(@NotNull Call call, long byteCount) {
-        long currentTimestamp = System.currentTimeMillis();
-        MetricsLog.info(getReqID(call), "[ByteplusSDK][NetworkListener] project_id=%s, host=%s, requestBodyEnd=%d",
-                getProjectID(call), addr, currentTimestamp);
+        logEvent(call, "[ByteplusSDK][NetworkListener] project_id=%s, host=%s, requestBodyEnd=%d",
+                System.currentTimeMillis());
     }
 
     @Override
     public void responseHeadersStart(@NotNull Call call) {
-        long currentTimestamp = System.currentTimeMillis();
-        MetricsLog.info(getReqID(call), "[ByteplusSDK][NetworkListener] project_id=%s, host=%s, responseHeadersStart=%d",
-                getProjectID(call), addr, currentTimestamp);
+        logEvent(call, "[ByteplusSDK][NetworkListener] project_id=%s, host=%s, responseHeadersStart=%d",
+                System.currentTimeMillis());
     }
 
     @Override
     public void responseHeadersEnd(@NotNull Call call, @NotNull Response response) {
-        long currentTimestamp = System.currentTimeMillis();
-        MetricsLog.info(getReqID(call), "[ByteplusSDK][NetworkListener] project_id=%s, host=%s, responseHeadersEnd=%d",
-                getProjectID(call), addr, currentTimestamp);
+        logEvent(call, "[ByteplusSDK][NetworkListener] project_id=%s, host=%s, responseHeadersEnd=%d",
+                System.currentTimeMillis());
     }
 
     @Override
     public void responseBodyStart(@NotNull Call call) {
-        long currentTimestamp = System.currentTimeMillis();
-        MetricsLog.info(getReqID(call), "[ByteplusSDK][NetworkListener] project_id=%s, host=%s, responseBodyStart=%d",
-                getProjectID(call), addr, currentTimestamp);
+        logEvent(call, "[ByteplusSDK][NetworkListener] project_id=%s, host=%s, responseBodyStart=%d",
+                System.currentTimeMillis());
     }
 
     @Override
     public void responseBodyEnd(@NotNull Call call, long byteCount) {
-        long currentTimestamp = System.currentTimeMillis();
-        MetricsLog.info(getReqID(call), "[ByteplusSDK][NetworkListener] project_id=%s, host=%s, responseBodyEnd=%d",
-                getProjectID(call), addr, currentTimestamp);
+        logEvent(call, "[ByteplusSDK][NetworkListener] project_id=%s, host=%s, responseBodyEnd=%d",
+                System.currentTimeMillis());
     }
 
     @Override
     public void callEnd(@NotNull Call call) {
-        long currentTimestamp = System.currentTimeMillis();
-        MetricsLog.info(getReqID(call), "[ByteplusSDK][NetworkListener] project_id=%s, host=%s, callEnd=%d, url=%s",
-                getProjectID(call), addr, currentTimestamp, call.request().url());
+        logEvent(call, "[ByteplusSDK][NetworkListener] project_id=%s, host=%s, callEnd=%d, url=%s",
+                System.currentTimeMillis(), call.request().url());
     }
 
     @Override
@@ -201,9 +221,8 @@ public class NetworkListener extends EventListener {
                 "project_id:" + getProjectID(call)
         };
         Metrics.counter(Constant.METRICS_KEY_NETWORK_CALL_FAIL, 1, metricsTags);
-        long currentTimestamp = System.currentTimeMillis();
-        MetricsLog.info(getReqID(call), "[ByteplusSDK][NetworkListener] project_id=%s, host=%s, callFailed=%d, err=%s",
-                getProjectID(call), addr, currentTimestamp, ioe.getMessage());
+        logEvent(call, "[ByteplusSDK][NetworkListener] project_id=%s, host=%s, callFailed=%d, err=%s",
+                System.currentTimeMillis(), ioe.getMessage());
     }
 
 }
@@ -0,0 +1,304 @@
+package com.byteplus.rec.core;
+
+import com.byteplus.rec.core.metrics.Metrics;
+import com.byteplus.rec.core.metrics.MetricsLog;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+// Ejects a host from one path of the host config according to the results of real requests,
+// while the host is still used by other paths.
+// - a host is ejected after `consecutiveErrors` failed requests in a row,
+//   or when its error rate within `errorRateInterval` reaches `errorRateThreshold`
+// - it is re-admitted after the ejection time, which grows with the times it was ejected
+// - after re-admission, its share of traffic ramps up linearly during `slowStartWindow`
+@Slf4j
+public class OutlierDetector {
+    private static final MetricsLog.Logger metricsLog = MetricsLog.getLogger("OutlierDetector");
+
+    private static final int DEFAULT_CONSECUTIVE_ERRORS = 5;
+
+    private static final double DEFAULT_ERROR_RATE_THRESHOLD = 0.5;
+
+    private static final int DEFAULT_ERROR_RATE_MIN_REQUESTS = 20;
+
+    private static final Duration DEFAULT_ERROR_RATE_INTERVAL = Duration.ofSeconds(10);
+
+    private static final Duration DEFAULT_BASE_EJECTION_TIME = Duration.ofSeconds(30);
+
+    private static final Duration DEFAULT_MAX_EJECTION_TIME = Duration.ofMinutes(5);
+
+    private static final Duration DEFAULT_SLOW_START_WINDOW = Duration.ofSeconds(30);
+
+    // the minimum share of traffic of a host at the beginning of slow start
+    private static final double MIN_SLOW_START_WEIGHT = 0.1;
+
+    private final Clock clock = Clock.systemDefaultZone();
+
+    private final String projectID;
+
+    private final Config config;
+
+    // path->host->stat
+    private final Map<String, Map<String, HostStat>> pathHostStats = new ConcurrentHashMap<>();
+
+    // no host is ejected or in slow start after this time, so selecting host can skip all checks
+    private final AtomicLong activeUntil = new AtomicLong(0);
+
+    public OutlierDetector(String projectID, Config config) {
+        this.projectID = projectID;
+        this.config = fillDefaultConfig(config);
+    }
+
+    private Config fillDefaultConfig(Config config) {
+        if (Objects.isNull(config)) {
+            config = new Config();
+        }
+        config = config.toBuilder().build();
+        if (config.consecutiveErrors <= 0) {
+            config.consecutiveErrors = DEFAULT_CONSECUTIVE_ERRORS;
+        }
+        if (config.errorRateThreshold <= 0) {
+            config.errorRateThreshold = DEFAULT_ERROR_RATE_THRESHOLD;
+        }
+        if (config.errorRateMinRequests <= 0) {
+            config.errorRateMinRequests = DEFAULT_ERROR_RATE_MIN_REQUESTS;
+        }
+        if (Objects.isNull(config.errorRateInterval) || config.errorRateInterval.isZero()) {
+            config.errorRateInterval = DEFAULT_ERROR_RATE_INTERVAL;
+        }
+        if (Objects.isNull(config.baseEjectionTime) || config.baseEjectionTime.isZero()) {
+            config.baseEjectionTime = DEFAULT_BASE_EJECTION_TIME;
+        }
+        if (Objects.isNull(config.maxEjectionTime) || config.maxEjectionTime.isZero()) {
+            config.maxEjectionTime = DEFAULT_MAX_EJECTION_TIME;
+        }
+        if (Objects.isNull(config.slowStartWindow)) {
+            config.slowStartWindow = DEFAULT_SLOW_START_WINDOW;
+        }
+        return config;
+    }
+
+    // hostCount is the number of hosts of the path, the last available host of a path is never ejected
+    public void record(String path, String host, boolean success, int hostCount) {
+        if (config.disabled) {
+            return;
+        }
+        HostStat stat = pathHostStats
+                .computeIfAbsent(path, key -> new ConcurrentHashMap<>())
+                .computeIfAbsent(host, key -> new HostStat(config.errorRateInterval.toMillis()));
+        long now = clock.millis();
+        stat.rollErrorRateWindow(now);
+        stat.requests.increment();
+        if (success) {
+            if (stat.consecutiveErrors.get() != 0) {
+                stat.consecutiveErrors.set(0);
+            }
+            return;
+        }
+        stat.errors.increment();
+        int consecutiveErrors = stat.consecutiveErrors.incrementAndGet();
+        if (stat.isEjected(now)) {
+            return;
+        }
+        if (consecutiveErrors >= config.consecutiveErrors) {
+            eject(path, host, stat, now, hostCount, "consecutive_errors");
+            return;
+        }
+        long requests = stat.requests.sum();
+        if (requests >= config.errorRateMinRequests &&
+                (double) stat.errors.sum() / requests >= config.errorRateThreshold) {
+            eject(path, host, stat, now, hostCount, "error_rate");
+        }
+    }
+
+    private void eject(String path, String host, HostStat stat, long now, int hostCount, String reason) {
+        if (countEjected(path, now) + 1 >= hostCount) {
+            log.warn("[ByteplusSDK] skip ejecting host, the others are already ejected, path:{} host:{}", path, host);
+            return;
+        }
+        if (!stat.ejecting.compareAndSet(false, true)) {
+            return;
+        }
+        // ejected for too long ago, start over
+        if (now - stat.ejectedUntil > config.maxEjectionTime.toMillis()) {
+            stat.ejectionTimes = 0;
+        }
+        stat.ejectionTimes++;
+        long ejectionTime = Math.min(config.baseEjectionTime.toMillis() * stat.ejectionTimes,
+                Math.max(config.baseEjectionTime.toMillis(), config.maxEjectionTime.toMillis()));
+        stat.ejectedUntil = now + ejectionTime;
+        stat.consecutiveErrors.set(0);
+        stat.resetErrorRateWindow(now);
+        activeUntil.accumulateAndGet(stat.ejectedUntil + config.slowStartWindow.toMillis(), Math::max);
+        stat.ejecting.set(false);
+        reportEvent("eject", path, host, reason, ejectionTime);
+    }
+
+    private int countEjected(String path, long now) {
+        Map<String, HostStat> hostStats = pathHostStats.get(path);
+        if (Objects.isNull(hostStats)) {
+            return 0;
+        }
+        int count = 0;
+        for (HostStat stat : hostStats.values()) {
+            if (stat.isEjected(now)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    // select the first host which is not ejected, hosts are sorted by availability.
+    // A host in slow start only takes part of the traffic, the rest goes to the next host.
+    public String select(String path, List<String> hosts) {
+        if (config.disabled) {
+            return hosts.get(0);
+        }
+        long now = clock.millis();
+        if (now >= activeUntil.get()) {
+            return hosts.get(0);
+        }
+        Map<String, HostStat> hostStats = pathHostStats.get(path);
+        if (Objects.isNull(hostStats)) {
+            return hosts.get(0);
+        }
+        for (String host : hosts) {
+            HostStat stat = hostStats.get(host);
+            if (Objects.isNull(stat) || stat.ejectedUntil == 0) {
+                return host;
+            }
+            if (stat.isEjected(now)) {
+                continue;
+            }
+            if (stat.readmitted.compareAndSet(false, true)) {
+                reportEvent("readmit", path, host, "ejection_timeout", 0);
+            }
+            double weight = slowStartWeight(stat, now);
+            if (weight >= 1 || ThreadLocalRandom.current().nextDouble() < weight) {
+                return host;
+            }
+        }
+        // all hosts are ejected or skipped by slow start
+        return hosts.get(0);
+    }
+
+    private double slowStartWeight(HostStat stat, long now) {
+        long slowStartMillis = config.slowStartWindow.toMillis();
+        if (slowStartMillis <= 0) {
+            return 1;
+        }
+        double progress = (double) (now - stat.ejectedUntil) / slowStartMillis;
+        if (progress >= 1) {
+            return 1;
+        }
+        return MIN_SLOW_START_WEIGHT + (1 - MIN_SLOW_START_WEIGHT) * progress;
+    }
+
+    private void reportEvent(String type, String path, String host, String reason, long ejectionTime) {
+        String[] metricsTags = new String[]{
+                "type:" + type,
+                "reason:" + reason,
+                "project_id:" + projectID,
+                "path:" + Utils.escapeMetricsTagValue(path),
+                "host:" + Utils.escapeMetricsTagValue(host)
+        };
+        Metrics.counter(Constant.METRICS_KEY_OUTLIER_EJECTION, 1, metricsTags);
+        metricsLog.warn("outlier_" + UUID.randomUUID(),
+                "[ByteplusSDK][Outlier] %s host, project_id:%s, path:%s, host:%s, reason:%s, ejection time:%dms",
+                type, projectID, path, host, reason, ejectionTime);
+        log.warn("[ByteplusSDK] {} host, path:{} host:{} reason:{} ejection time:{}ms",
+                type, path, host, reason, ejectionTime);
+    }
+
+    private static class HostStat {
+        private final long errorRateInterval;
+
+        private final AtomicInteger consecutiveErrors = new AtomicInteger(0);
+
+        private final LongAdder requests = new LongAdder();
+
+        private final LongAdder errors = new LongAdder();
+
+        private final AtomicLong errorRateWindowStart = new AtomicLong(0);
+
+        private final AtomicBoolean ejecting = new AtomicBoolean(false);
+
+        private final AtomicBoolean readmitted = new AtomicBoolean(true);
+
+        // written only while holding `ejecting`
+        private volatile long ejectedUntil;
+
+        private volatile int ejectionTimes;
+
+        private HostStat(long errorRateInterval) {
+            this.errorRateInterval = errorRateInterval;
+        }
+
+        private boolean isEjected(long now) {
+            return now < ejectedUntil;
+        }
+
+        private void rollErrorRateWindow(long now) {
+            long windowStart = errorRateWindowStart.get();
+            if (now - windowStart >= 0 && now - windowStart < errorRateInterval) {
+                return;
+            }
+            if (errorRateWindowStart.compareAndSet(windowStart, now)) {
+                requests.reset();
+                errors.reset();
+            }
+        }
+
+        private void resetErrorRateWindow(long now) {
+            errorRateWindowStart.set(now);
+            requests.reset();
+            errors.reset();
+            readmitted.set(false);
+        }
+    }
+
+    @Getter
+    @Builder(toBuilder = true)
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @EqualsAndHashCode
+    @ToString
+    public static class Config {
+        private boolean disabled;
+
+        private int consecutiveErrors;
+
+        // range (0, 1]
+        private double errorRateThreshold;
+
+        // error rate is only checked when there are at least so many requests in errorRateInterval
+        private int errorRateMinRequests;
+
+        private Duration errorRateInterval;
+
+        private Duration baseEjectionTime;
+
+        private Duration maxEjectionTime;
+
+        // set to zero to disable slow start
+        private Duration slowStartWindow;
+    }
+}
@@ -2,18 +2,19 @@ package com.byteplus.rec.core;
 
 import lombok.AllArgsConstructor;
 import lombok.Builder;
+import lombok.EqualsAndHashCode;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
 import lombok.extern.slf4j.Slf4j;
-import okhttp3.OkHttpClient;
 
+import java.time.Clock;
 import java.time.Duration;
-import java.util.Arrays;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
 @Slf4j
@@ -22,19 +23,37 @@ public class PingHostAvailabler extends AbstractHostAvailabler {
 
     private static final String DEFAULT_PING_SCHEMA = "http";
 
-    private static final String DEFAULT_PING_URL_FORMAT = "%s://%s/predict/api/ping";
+    private static final String DEFAULT_PING_URL_FORMAT = HostProber.DEFAULT_PING_URL_FORMAT;
+
+    private static final Duration WINDOW_BUCKET_DURATION = Duration.ofSeconds(1);
 
     private static final Duration DEFAULT_PING_TIMEOUT = Duration.ofMillis(300);
 
     private static final Duration DEFAULT_PING_INTERVAL = Duration.ofSeconds(1);
 
+    private static final Duration DEFAULT_SLOW_PING_INTERVAL = Duration.ofSeconds(10);
+
+    private static final Duration DEFAULT_IDLE_PING_INTERVAL = Duration.ofSeconds(30);
+
     private static final Duration DEFAULT_FETCH_HOST_INTERVAL = Duration.ofSeconds(10);
 
+    private static final Duration DEFAULT_SNAPSHOT_MAX_AGE = Duration.ofMinutes(10);
+
+    private final Clock clock = Clock.systemDefaultZone();
+
     private final Config config;
 
-    private final Map<String, Window> hostWindowMap = new HashMap<>();
+    // probe results used to rank hosts, written by probes from any thread.
+    // Results of real requests are not recorded here, a request may fail or be slow for reasons
+    // unrelated to the host, e.g. a client side timeout, they drive the ping cadence and OutlierDetector instead
+    private final Map<String, HealthWindow> hostWindowMap = new ConcurrentHashMap<>();
+
+    private final HostProber.Listener probeListener = this::onProbe;
+
+    private final Map<String, ProbeState> probeStateMap = new ConcurrentHashMap<>();
 
-    private final OkHttpClient httpCli;
+    // the last time a real request is sent, used to detect idle client
+    private volatile long lastTrafficTime = clock.millis();
 
     public PingHostAvailabler(List<String> hosts) throws BizException {
         this(hosts, new Config());
@@ -43,8 +62,7 @@ public class PingHostAvailabler extends AbstractHostAvailabler {
     public PingHostAvailabler(List<String> hosts, Config config) throws BizException {
         super(hosts, false);
         this.config = fillDefaultConfig(config);
-        httpCli = Utils.buildOkHTTPClient(this.config.pingTimeout);
-        init(this.config.fetchHostInterval, this.config.pingInterval);
+        start();
     }
 
     public PingHostAvailabler(String projectID, List<String> hosts) throws BizException {
@@ -54,16 +72,20 @@ public class PingHostAvailabler extends AbstractHostAvailabler {
     public PingHostAvailabler(String projectID, List<String> hosts, Config config) throws BizException {
         super(projectID, hosts, false);
         this.config = fillDefaultConfig(config);
-        httpCli = Utils.buildOkHTTPClient(this.config.pingTimeout);
-        init(this.config.fetchHostInterval, this.config.pingInterval);
+        start();
     }
 
     public PingHostAvailabler(String projectID, List<String> hosts, Config config, String mainHost,
                               boolean skipFetchHosts) throws BizException {
         super(projectID, hosts, mainHost, skipFetchHosts, false);
         this.config = fillDefaultConfig(config);
-        httpCli = Utils.buildOkHTTPClient(this.config.pingTimeout);
-        init(this.config.fetchHostInterval, this.config.pingInterval);
+        start();
+    }
+
+    private void start() throws BizException {
+        HostProber.get().addListener(probeListener);
+        setOutlierDetectionConfig(config.outlierDetection);
+        init(config.fetchHostInterval, config.pingInterval, config.snapshotPath, config.snapshotMaxAge);
     }
 
     private Config fillDefaultConfig(Config config) {
@@ -74,6 +96,9 @@ public class PingHostAvailabler extends AbstractHostAvailabler {
         if (Objects.isNull(config.pingURLFormat)) {
             config.pingURLFormat = DEFAULT_PING_URL_FORMAT;
         }
+        if (Objects.isNull(config.pingSchema) || config.pingSchema.isEmpty()) {
+            config.pingSchema = DEFAULT_PING_SCHEMA;
+        }
         if (Objects.isNull(config.pingTimeout) || config.pingTimeout.isZero()) {
             config.pingTimeout = DEFAULT_PING_TIMEOUT;
         }
@@ -83,25 +108,59 @@ public class PingHostAvailabler extends AbstractHostAvailabler {
         if (Objects.isNull(config.pingInterval) || config.pingInterval.isZero()) {
             config.pingInterval = DEFAULT_PING_INTERVAL;
         }
+        if (Objects.isNull(config.slowPingInterval) || config.slowPingInterval.isZero()) {
+            config.slowPingInterval = DEFAULT_SLOW_PING_INTERVAL;
+        }
+        if (Objects.isNull(config.idlePingInterval) || config.idlePingInterval.isZero()) {
+            config.idlePingInterval = DEFAULT_IDLE_PING_INTERVAL;
+        }
+        // adaptive intervals never ping faster than pingInterval
+        if (config.slowPingInterval.compareTo(config.pingInterval) < 0) {
+            config.slowPingInterval = config.pingInterval;
+        }
+        if (config.idlePingInterval.compareTo(config.pingInterval) < 0) {
+            config.idlePingInterval = config.pingInterval;
+        }
         if (Objects.isNull(config.fetchHostInterval) || config.fetchHostInterval.isZero()) {
             config.fetchHostInterval = DEFAULT_FETCH_HOST_INTERVAL;
         }
+        if (Objects.isNull(config.snapshotMaxAge) || config.snapshotMaxAge.isZero()) {
+            config.snapshotMaxAge = DEFAULT_SNAPSHOT_MAX_AGE;
+        }
         return config;
     }
 
+    @Override
+    protected void restoreHostScores(Map<String, Double> hostScores) {
+        hostScores.forEach((host, score) -> {
+            HealthWindow window = newWindow();
+            window.seed(1 - score, config.windowSize);
+            hostWindowMap.put(host, window);
+        });
+    }
+
     @Override
     protected List<HostAvailabilityScore> doScoreHosts(List<String> hosts) {
         log.debug("[ByteplusSDK] do score hosts:{}", hosts);
         if (hosts.size() == 1) {
             return Collections.singletonList(new HostAvailabilityScore(hosts.get(0), 0.0));
         }
+        HostProber prober = HostProber.get();
         for (String host : hosts) {
-            Window window = hostWindowMap.get(host);
-            if (Objects.isNull(window)) {
-                window = new Window(config.windowSize);
-                hostWindowMap.put(host, window);
+            HealthWindow window = hostWindowMap.computeIfAbsent(host, key -> newWindow());
+            ProbeState probeState = probeStateMap.computeIfAbsent(host, key -> new ProbeState());
+            long now = clock.millis();
+            if (now < probeState.nextProbeTime) {
+                continue;
+            }
+            probeState.nextProbeTime = now + nextPingInterval(window, probeState, now).toMillis();
+            // the host was just probed by others, such as heartbeat, and its result is already in the window
+            if (now - prober.getLastProbeTime(host) < config.pingInterval.toMillis() / 2) {
+                continue;
             }
-            window.put(Utils.ping(projectID, httpCli, config.getPingURLFormat(), DEFAULT_PING_SCHEMA, host));
+            // the result is put into the window by onProbe
+            prober.probe(projectID, config.pingURLFormat, config.pingSchema, host,
+                    HostConnectionPools.getClient(host, config.pingTimeout));
         }
         return hosts.stream()
                 .map(host -> {
@@ -111,56 +170,106 @@ public class PingHostAvailabler extends AbstractHostAvailabler {
                 .collect(Collectors.toList());
     }
 
+    // - suspect or recovering hosts are pinged every pingInterval, to fail over and recover quickly
+    // - when the client is idle, hosts are pinged every idlePingInterval
+    // - healthy hosts which recently served real requests successfully are pinged every slowPingInterval
+    // - other hosts, e.g. backup hosts without traffic, are pinged every pingInterval
+    private Duration nextPingInterval(HealthWindow window, ProbeState probeState, long now) {
+        if (window.failureRate() > 0 || now - probeState.lastTrafficFailureTime < config.slowPingInterval.toMillis()) {
+            return config.pingInterval;
+        }
+        if (now - lastTrafficTime > config.idlePingInterval.toMillis()) {
+            return config.idlePingInterval;
+        }
+        if (now - probeState.lastTrafficSuccessTime < config.slowPingInterval.toMillis()) {
+            return config.slowPingInterval;
+        }
+        return config.pingInterval;
+    }
+
+    private HealthWindow newWindow() {
+        return new HealthWindow(config.windowSize, WINDOW_BUCKET_DURATION);
+    }
+
+    private void onProbe(String host, boolean success, long costMs) {
+        HealthWindow window = hostWindowMap.get(host);
+        if (Objects.nonNull(window)) {
+            window.record(success, costMs);
+        }
+        ProbeState probeState = probeStateMap.get(host);
+        if (!success && Objects.nonNull(probeState)) {
+            probeState.nextProbeTime = 0;
+        }
+    }
+
+    @Override
+    public void feedback(String httpPath, String host, boolean success, long costMs) {
+        super.feedback(httpPath, host, success, costMs);
+        long now = clock.millis();
+        lastTrafficTime = now;
+        ProbeState probeState = probeStateMap.get(host);
+        if (Objects.isNull(probeState)) {
+            return;
+        }
+        if (success) {
+            probeState.lastTrafficSuccessTime = now;
+            return;
+        }
+        // the host becomes suspect, ping it in the next round, and let the probe decide its rank
+        probeState.lastTrafficFailureTime = now;
+        probeState.nextProbeTime = 0;
+    }
+
+    @Override
+    public void shutdown() {
+        HostProber.get().removeListener(probeListener);
+        super.shutdown();
+    }
+
     @Getter
     @Builder(toBuilder = true)
     @NoArgsConstructor
     @AllArgsConstructor
+    @EqualsAndHashCode
+    @ToString
     public static class Config {
         private String pingURLFormat;
 
+        // Should be the schema of the requests, so pings warm and keep alive the connections
+        // used by requests, see HostConnectionPools. The default is http, HTTPClient sets the one
+        // of its requests through HostAvailablerFactory.
+        private String pingSchema;
+
         private Duration pingTimeout;
 
         private Duration pingInterval;
 
-        private Duration fetchHostInterval;
-
-        private int windowSize;
-    }
+        // Interval for healthy hosts which are serving real requests successfully.
+        private Duration slowPingInterval;
 
-    private static class Window {
+        // Interval when no request is sent by the client for a while.
+        private Duration idlePingInterval;
 
-        private final int size;
+        private Duration fetchHostInterval;
 
-        private final boolean[] items;
+        // Seconds of probe results used to score hosts.
+        private int windowSize;
 
-        private int head;
+        // If set, the last host config and host scores are persisted to this file,
+        // and restored from it on startup when it is not older than snapshotMaxAge.
+        private String snapshotPath;
 
-        private int tail = 0;
+        private Duration snapshotMaxAge;
 
-        private float failureCount = 0;
+        // Eject hosts per path according to the results of real requests, default enabled.
+        private OutlierDetector.Config outlierDetection;
+    }
 
-        private Window(int size) {
-            this.size = size;
-            this.head = size - 1;
-            items = new boolean[size];
-            Arrays.fill(items, true);
-        }
+    private static class ProbeState {
+        private volatile long nextProbeTime;
 
-        void put(boolean success) {
-            if (!success) {
-                failureCount++;
-            }
-            head = (head + 1) % size;
-            items[head] = success;
-            tail = (tail + 1) % size;
-            boolean removingItem = items[tail];
-            if (!removingItem) {
-                failureCount--;
-            }
-        }
+        private volatile long lastTrafficSuccessTime;
 
-        float failureRate() {
-            return failureCount / (float) size;
-        }
+        private volatile long lastTrafficFailureTime;
     }
 }
@@ -0,0 +1,149 @@
+package com.byteplus.rec.core;
+
+import com.byteplus.rec.core.metrics.Metrics;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.ScheduledFuture;
+
+// Credentials loaded by a callback, e.g. from a secret manager or an STS service.
+// The first load happens in the constructor, the following ones run on SdkRuntime
+// ahead of expiry or every refreshInterval, so getCredentials never blocks.
+// When a refresh fails, the current credentials are kept and retried in the next check.
+@Slf4j
+public class RefreshingCredentialProvider implements CredentialProvider {
+    public interface Loader {
+        Credentials load() throws Exception;
+    }
+
+    private static final Duration DEFAULT_CHECK_INTERVAL = Duration.ofSeconds(10);
+
+    private static final Duration DEFAULT_REFRESH_AHEAD = Duration.ofMinutes(5);
+
+    private static final Duration DEFAULT_REFRESH_INTERVAL = Duration.ofHours(1);
+
+    private final Clock clock = Clock.systemDefaultZone();
+
+    private final Loader loader;
+
+    private final Config config;
+
+    private final ScheduledFuture<?> refreshFuture;
+
+    private volatile Credentials credentials;
+
+    private volatile long lastRefreshTime;
+
+    public RefreshingCredentialProvider(Loader loader) throws BizException {
+        this(loader, null);
+    }
+
+    public RefreshingCredentialProvider(Loader loader, Config config) throws BizException {
+        this.loader = loader;
+        this.config = fillDefaultConfig(config);
+        try {
+            this.credentials = load();
+        } catch (Exception e) {
+            throw new BizException("load credentials fail: " + e.getMessage());
+        }
+        this.lastRefreshTime = clock.millis();
+        refreshFuture = SdkRuntime.get().scheduleAtFixedRate("credential_refresh", SdkRuntime.Workload.BLOCKING,
+                this::refresh, this.config.checkInterval, this.config.checkInterval);
+    }
+
+    private Config fillDefaultConfig(Config config) {
+        if (Objects.isNull(config)) {
+            config = new Config();
+        }
+        config = config.toBuilder().build();
+        if (Objects.isNull(config.checkInterval) || config.checkInterval.isZero()) {
+            config.checkInterval = DEFAULT_CHECK_INTERVAL;
+        }
+        if (Objects.isNull(config.refreshAhead) || config.refreshAhead.isZero()) {
+            config.refreshAhead = DEFAULT_REFRESH_AHEAD;
+        }
+        if (Objects.isNull(config.refreshInterval) || config.refreshInterval.isZero()) {
+            config.refreshInterval = DEFAULT_REFRESH_INTERVAL;
+        }
+        return config;
+    }
+
+    @Override
+    public Credentials getCredentials() {
+        return credentials;
+    }
+
+    // subclasses may refresh on other events, e.g. the source file is modified
+    protected boolean shouldRefresh(Credentials current, long now) {
+        if (Objects.nonNull(current.getExpiration()) &&
+                current.getExpiration().toEpochMilli() - now <= config.refreshAhead.toMillis()) {
+            return true;
+        }
+        return now - lastRefreshTime >= config.refreshInterval.toMillis();
+    }
+
+    private void refresh() {
+        long now = clock.millis();
+        Credentials current = this.credentials;
+        if (!shouldRefresh(current, now)) {
+            return;
+        }
+        try {
+            this.credentials = load();
+            this.lastRefreshTime = now;
+            log.info("[ByteplusSDK] refresh credentials, access key:{} expiration:{}",
+                    credentials.getAccessKeyID(), credentials.getExpiration());
+        } catch (Exception e) {
+            boolean expired = Objects.nonNull(current.getExpiration()) && current.getExpiration().toEpochMilli() <= now;
+            String[] metricsTags = new String[]{
+                    "type:refresh_credentials_fail",
+                    "expired:" + expired
+            };
+            Metrics.counter(Constant.METRICS_KEY_COMMON_WARN, 1, metricsTags);
+            if (expired) {
+                log.error("[ByteplusSDK] refresh credentials fail, and the current ones are expired, err:{}",
+                        e.toString());
+                return;
+            }
+            log.warn("[ByteplusSDK] refresh credentials fail, keep the current ones, err:{}", e.toString());
+        }
+    }
+
+    private Credentials load() throws Exception {
+        Credentials loaded = loader.load();
+        if (Objects.isNull(loaded) || !Utils.noneEmptyString(loaded.getAccessKeyID(), loaded.getSecretAccessKey())) {
+            throw new BizException("access key id and secret access key cannot be empty");
+        }
+        return loaded;
+    }
+
+    @Override
+    public void shutdown() {
+        refreshFuture.cancel(false);
+    }
+
+    @Getter
+    @Builder(toBuilder = true)
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @EqualsAndHashCode
+    @ToString
+    public static class Config {
+        // how often to check whether the credentials should be refreshed
+        private Duration checkInterval;
+
+        // refresh the credentials this long before they expire
+        private Duration refreshAhead;
+
+        // refresh the credentials at least this often, even if they never expire
+        private Duration refreshInterval;
+    }
+}
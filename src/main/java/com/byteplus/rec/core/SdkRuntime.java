@@ -0,0 +1,269 @@
+package com.byteplus.rec.core;
+
+import com.byteplus.rec.core.metrics.Metrics;
+import com.byteplus.rec.core.metrics.MetricsCollector;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Owns all background threads of the sdk, shared by all clients in the process:
+// - a tiny scheduler which only triggers tasks and never runs blocking work
+// - a bounded pool per Workload which runs the tasks, so slow fetches and uploads
+//   never starve or reject the health checks of any client
+// All threads are named daemon threads, so they never block JVM exiting.
+@Slf4j
+public class SdkRuntime {
+    private static final Object lock = new Object();
+
+    private static volatile SdkRuntime instance;
+
+    public enum Workload {
+        // short probes with tight timeouts, such as ping, heartbeat and warm-up
+        PROBE,
+        // work which may block for seconds, such as fetching hosts, refreshing credentials and uploading metrics
+        BLOCKING
+    }
+
+    private final ScheduledThreadPoolExecutor scheduler;
+
+    private final ThreadPoolExecutor probeExecutor;
+
+    private final ThreadPoolExecutor blockingExecutor;
+
+    // one-shot tasks waiting for their delay, told about the rejection if the runtime shuts down first
+    private final Set<DelayedTask> delayedTasks = ConcurrentHashMap.newKeySet();
+
+    private SdkRuntime() {
+        scheduler = new ScheduledThreadPoolExecutor(Constant.DEFAULT_RUNTIME_SCHEDULER_THREADS,
+                newThreadFactory("byteplus-sdk-scheduler"));
+        scheduler.setRemoveOnCancelPolicy(true);
+        probeExecutor = newExecutor("byteplus-sdk-probe",
+                Constant.DEFAULT_RUNTIME_PROBE_THREADS, Constant.DEFAULT_RUNTIME_PROBE_QUEUE_SIZE);
+        blockingExecutor = newExecutor("byteplus-sdk-io",
+                Constant.DEFAULT_RUNTIME_BLOCKING_THREADS, Constant.DEFAULT_RUNTIME_BLOCKING_QUEUE_SIZE);
+    }
+
+    private static ThreadPoolExecutor newExecutor(String namePrefix, int threads, int queueSize) {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads,
+                Constant.DEFAULT_RUNTIME_IO_KEEPALIVE.toMillis(), TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(queueSize), newThreadFactory(namePrefix));
+        // idle sdk should not hold any thread
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    public static SdkRuntime get() {
+        SdkRuntime runtime = instance;
+        if (Objects.nonNull(runtime)) {
+            return runtime;
+        }
+        synchronized (lock) {
+            if (Objects.isNull(instance)) {
+                instance = new SdkRuntime();
+            }
+            return instance;
+        }
+    }
+
+    // Stop all background work of the sdk, waiting at most timeout for running tasks.
+    // Metrics exporters are shut down too, see MetricsCollector.shutdown,
+    // and so are the shared HostAvailablers, see HostAvailablerRegistry.invalidateAll.
+    // Clients created afterwards will start a new runtime.
+    public static boolean shutdown(Duration timeout) {
+        MetricsCollector.shutdown();
+        HostAvailablerRegistry.invalidateAll();
+        SdkRuntime runtime;
+        synchronized (lock) {
+            runtime = instance;
+            instance = null;
+        }
+        if (Objects.isNull(runtime)) {
+            return true;
+        }
+        runtime.scheduler.shutdownNow();
+        runtime.rejectDelayedTasks();
+        runtime.probeExecutor.shutdown();
+        runtime.blockingExecutor.shutdown();
+        long deadline = System.currentTimeMillis() + timeout.toMillis();
+        try {
+            return runtime.probeExecutor.awaitTermination(timeout.toMillis(), TimeUnit.MILLISECONDS) &&
+                    runtime.blockingExecutor.awaitTermination(
+                            Math.max(0, deadline - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private void rejectDelayedTasks() {
+        List<DelayedTask> rejected = new ArrayList<>(delayedTasks);
+        delayedTasks.clear();
+        rejected.forEach(DelayedTask::reject);
+    }
+
+    private static ThreadFactory newThreadFactory(String namePrefix) {
+        AtomicInteger threadIndex = new AtomicInteger(0);
+        return runnable -> {
+            Thread thread = new Thread(runnable, namePrefix + "-" + threadIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    // Run a probe periodically, see scheduleAtFixedRate with workload.
+    public ScheduledFuture<?> scheduleAtFixedRate(String name, Runnable task, Duration initialDelay, Duration period) {
+        return scheduleAtFixedRate(name, Workload.PROBE, task, initialDelay, period);
+    }
+
+    // Run task periodically in the pool of workload. A run is skipped if the previous one is not finished yet.
+    // Cancel the returned future to stop the task.
+    public ScheduledFuture<?> scheduleAtFixedRate(String name, Workload workload, Runnable task,
+                                                  Duration initialDelay, Duration period) {
+        PeriodicTask periodicTask = new PeriodicTask(name, workload, task);
+        return scheduler.scheduleAtFixedRate(periodicTask::trigger,
+                initialDelay.toMillis(), period.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    // Run a one-shot task in the pool of workload after delay.
+    // onRejected, if not null, runs instead of task if the pool is saturated at that time or the runtime
+    // shuts down before, so the task is never lost silently. It must be cheap as it may run on the scheduler thread.
+    public void schedule(String name, Workload workload, Runnable task, Duration delay, Runnable onRejected) {
+        DelayedTask delayedTask = new DelayedTask(name, workload, task, onRejected);
+        delayedTasks.add(delayedTask);
+        try {
+            scheduler.schedule(delayedTask::trigger, delay.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            // the runtime is shut down
+            if (delayedTasks.remove(delayedTask)) {
+                delayedTask.reject();
+            }
+        }
+    }
+
+    // Run a one-shot probe, see submit with workload.
+    public Future<?> submit(String name, Runnable task) {
+        return submit(name, Workload.PROBE, task);
+    }
+
+    // Run a one-shot task in the pool of workload, return null if the pool is saturated.
+    public Future<?> submit(String name, Workload workload, Runnable task) {
+        long submitTime = System.currentTimeMillis();
+        try {
+            return executorOf(workload).submit(() -> {
+                reportQueueLag(name, submitTime);
+                runQuietly(name, task);
+            });
+        } catch (RejectedExecutionException e) {
+            String[] metricsTags = new String[]{
+                    "task:" + name
+            };
+            Metrics.counter(Constant.METRICS_KEY_RUNTIME_TASK_REJECTED, 1, metricsTags);
+            log.warn("[ByteplusSDK] sdk {} pool is saturated, task is rejected, task:{}", workload, name);
+            return null;
+        }
+    }
+
+    private ThreadPoolExecutor executorOf(Workload workload) {
+        return workload == Workload.BLOCKING ? blockingExecutor : probeExecutor;
+    }
+
+    private static void reportQueueLag(String name, long submitTime) {
+        String[] metricsTags = new String[]{
+                "task:" + name
+        };
+        Metrics.timer(Constant.METRICS_KEY_RUNTIME_QUEUE_LAG, System.currentTimeMillis() - submitTime, metricsTags);
+    }
+
+    private static void runQuietly(String name, Runnable task) {
+        try {
+            task.run();
+        } catch (Throwable e) {
+            // a periodic task must never die because of one failed run
+            log.error("[ByteplusSDK] sdk background task fail, task:{} err:{}", name, e.toString());
+        }
+    }
+
+    private class PeriodicTask {
+        private final String name;
+
+        private final Workload workload;
+
+        private final Runnable task;
+
+        private final AtomicBoolean running = new AtomicBoolean(false);
+
+        private PeriodicTask(String name, Workload workload, Runnable task) {
+            this.name = name;
+            this.workload = workload;
+            this.task = task;
+        }
+
+        private void trigger() {
+            if (!running.compareAndSet(false, true)) {
+                String[] metricsTags = new String[]{
+                        "task:" + name
+                };
+                Metrics.counter(Constant.METRICS_KEY_RUNTIME_TASK_SKIPPED, 1, metricsTags);
+                return;
+            }
+            Future<?> future = submit(name, workload, () -> {
+                try {
+                    task.run();
+                } finally {
+                    running.set(false);
+                }
+            });
+            if (Objects.isNull(future)) {
+                running.set(false);
+            }
+        }
+    }
+
+    private class DelayedTask {
+        private final String name;
+
+        private final Workload workload;
+
+        private final Runnable task;
+
+        private final Runnable onRejected;
+
+        private DelayedTask(String name, Workload workload, Runnable task, Runnable onRejected) {
+            this.name = name;
+            this.workload = workload;
+            this.task = task;
+            this.onRejected = onRejected;
+        }
+
+        private void trigger() {
+            if (!delayedTasks.remove(this)) {
+                // rejected by shutdown already
+                return;
+            }
+            if (Objects.isNull(submit(name, workload, task))) {
+                reject();
+            }
+        }
+
+        private void reject() {
+            if (Objects.nonNull(onRejected)) {
+                runQuietly(name, onRejected);
+            }
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package com.byteplus.rec.core;
+
+public class StaticCredentialProvider implements CredentialProvider {
+    private final Credentials credentials;
+
+    public StaticCredentialProvider(String accessKeyID, String secretAccessKey) {
+        this(new Credentials(accessKeyID, secretAccessKey));
+    }
+
+    public StaticCredentialProvider(Credentials credentials) {
+        this.credentials = credentials;
+    }
+
+    @Override
+    public Credentials getCredentials() {
+        return credentials;
+    }
+}
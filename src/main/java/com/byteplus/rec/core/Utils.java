@@ -14,12 +14,17 @@ import java.time.Duration;
 import java.util.List;
 import java.util.Objects;
 import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
 
 @Slf4j
 public class Utils {
+    private static final MetricsLog.Logger metricsLog = MetricsLog.getLogger("Utils");
+
     private final static Clock clock = Clock.systemDefaultZone();
 
+    private final static char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
     public interface Callable<Rsp extends Message, Req> {
         Rsp call(Req req, Option... opts) throws BizException, NetException;
     }
@@ -47,17 +52,37 @@ public class Utils {
         return rsp;
     }
 
-    public static String bytes2Hex(byte[] bts) {
-        StringBuilder sb = new StringBuilder();
-        String hex;
-        for (byte bt : bts) {
-            hex = (Integer.toHexString(bt & 0xff));
-            if (hex.length() == 1) {
-                sb.append("0");
+    // UUID v4 for ids which only need to be unique, not unpredictable, e.g. request ids.
+    // ThreadLocalRandom avoids the contention on the shared SecureRandom of UUID.randomUUID.
+    public static String fastRandomUUID() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long mostSigBits = (random.nextLong() & ~0xF000L) | 0x4000L;
+        long leastSigBits = (random.nextLong() & 0x3FFFFFFFFFFFFFFFL) | 0x8000000000000000L;
+        return new UUID(mostSigBits, leastSigBits).toString();
+    }
+
+    // random lowercase hex string, e.g. nonces, with the same caveat as fastRandomUUID
+    public static String randomHex(int length) {
+        char[] hex = new char[length];
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long bits = 0;
+        for (int i = 0; i < length; i++) {
+            if (i % 16 == 0) {
+                bits = random.nextLong();
             }
-            sb.append(hex);
+            hex[i] = HEX_DIGITS[(int) (bits & 0xf)];
+            bits >>>= 4;
         }
-        return sb.toString();
+        return new String(hex);
+    }
+
+    public static String bytes2Hex(byte[] bts) {
+        char[] hex = new char[bts.length * 2];
+        for (int i = 0; i < bts.length; i++) {
+            hex[i * 2] = HEX_DIGITS[(bts[i] >> 4) & 0xf];
+            hex[i * 2 + 1] = HEX_DIGITS[bts[i] & 0xf];
+        }
+        return new String(hex);
     }
 
     public static String buildURL(String schema, String host, String path) {
@@ -67,6 +92,14 @@ public class Utils {
         return String.format("%s://%s/%s", schema, host, path);
     }
 
+    // host with port unless it is the default port of the schema, same as the hosts in host config
+    public static String hostOf(HttpUrl url) {
+        if (url.port() == HttpUrl.defaultPort(url.scheme())) {
+            return url.host();
+        }
+        return url.host() + ":" + url.port();
+    }
+
     public static OkHttpClient buildOkHTTPClient(Duration timeout, int maxIdleConnections,
                                                  Duration keepAliveDuration) {
         OkHttpClient client = new OkHttpClient.Builder()
@@ -94,17 +127,28 @@ public class Utils {
     }
 
     public static OkHttpClient buildOkHTTPClient(OkHttpClient client, Duration timeout) {
-        return doBuild(client.newBuilder(), timeout);
+        return doBuild(client.newBuilder(), timeout, null);
     }
 
-    private static OkHttpClient doBuild(OkHttpClient.Builder okHTTPBuilder, Duration timeout) {
+    // dns is optional, use CachingDns to keep dns resolution off the request path
+    public static OkHttpClient buildOkHTTPClient(OkHttpClient client, Duration timeout, Dns dns) {
+        return doBuild(client.newBuilder(), timeout, dns);
+    }
+
+    private static OkHttpClient doBuild(OkHttpClient.Builder okHTTPBuilder, Duration timeout, Dns dns) {
         okHTTPBuilder
                 .connectTimeout(timeout)
                 .writeTimeout(timeout)
                 .readTimeout(timeout)
                 .callTimeout(timeout);
+        if (Objects.nonNull(dns)) {
+            okHTTPBuilder.dns(dns);
+        }
+        CachingDns cachingDns = dns instanceof CachingDns ? (CachingDns) dns : null;
         if (MetricsCollector.isEnableMetricsLog() || MetricsCollector.isEnableMetrics()) {
-            okHTTPBuilder.eventListenerFactory(NetworkListener.get());
+            okHTTPBuilder.eventListenerFactory(NetworkListener.get(cachingDns));
+        } else if (Objects.nonNull(cachingDns)) {
+            okHTTPBuilder.eventListenerFactory(cachingDns.connectListenerFactory());
         }
         return okHTTPBuilder.build();
     }
@@ -128,25 +172,25 @@ public class Utils {
         long start = clock.millis();
         try (Response httpRsp = httpCall.execute()) {
             long cost = clock.millis() - start;
-            MetricsLog.info(reqID, "[ByteplusSDK][ping] project_id:%s, sent: %d, received: %d, cost:%d, connection count:%d",
+            metricsLog.info(reqID, "[ByteplusSDK][ping] project_id:%s, sent: %d, received: %d, cost:%d, connection count:%d",
                     projectID, httpRsp.sentRequestAtMillis(), httpRsp.receivedResponseAtMillis(),
                     cost, httpCli.connectionPool().connectionCount());
             log.debug("[ByteplusSDK][ping] sent: {}, received: {}, cost:{}, connection count:{}",
                     httpRsp.sentRequestAtMillis(), httpRsp.receivedResponseAtMillis(),
                     cost, httpCli.connectionPool().connectionCount());
             if (isPingSuccess(httpRsp)) {
-                MetricsLog.info(reqID, "[ByteplusSDK] ping success, project_id:%s, host:%s, cost:%dms",
+                metricsLog.info(reqID, "[ByteplusSDK] ping success, project_id:%s, host:%s, cost:%dms",
                         projectID, Utils.escapeMetricsTagValue(host), cost);
                 log.debug("[ByteplusSDK] ping success, host:{} cost:{}ms", host, cost);
                 return true;
             }
-            MetricsLog.warn(reqID, "[ByteplusSDK] ping fail, project_id:%s, host:%s, cost:%dms, status:%d",
+            metricsLog.warn(reqID, "[ByteplusSDK] ping fail, project_id:%s, host:%s, cost:%dms, status:%d",
                     projectID, Utils.escapeMetricsTagValue(host), cost, httpRsp.code());
             log.warn("[ByteplusSDK] ping fail, host:{} cost:{}ms status:{}", host, cost, httpRsp.code());
             return false;
         } catch (Throwable e) {
             long cost = clock.millis() - start;
-            MetricsLog.warn(reqID, "[ByteplusSDK] ping find err, project_id:%s, host:%s, cost:%dms, err:%s",
+            metricsLog.warn(reqID, "[ByteplusSDK] ping find err, project_id:%s, host:%s, cost:%dms, err:%s",
                     projectID, Utils.escapeMetricsTagValue(host), cost, e.getMessage());
             log.warn("[ByteplusSDK] ping find err, host:'{}' cost:{}ms err:'{}'", host, cost, e.getMessage());
             return false;
@@ -24,13 +24,40 @@ public class Constant {
 
     public final static int MAX_TRY_TIMES = 3;
 
-    public final static int MAX_SPIN_TIMES = 5;
-
     public final static int SUCCESS_HTTP_CODE = 200;
 
     public final static int MAX_METRICS_SIZE = 10000;
 
-    public final static int MAX_METRICS_LOG_SIZE = 5000;
+    // the capacity of the metrics log buffer, a power of two
+    public final static int MAX_METRICS_LOG_SIZE = 8192;
+
+    // metrics logs are reported before the report interval ends once so many are buffered
+    public final static int DEFAULT_METRICS_LOG_FLUSH_SIZE = 2000;
+
+    // report bodies are split into chunks of at most this size before compression
+    public final static int MAX_REPORT_CHUNK_SIZE = 512 * 1024;
+
+    // compressed chunks waiting to be uploaded, the oldest are dropped beyond it
+    public final static long MAX_PENDING_REPORT_BYTES = 8 * 1024 * 1024;
+
+    public final static int DEFAULT_MAX_CONCURRENT_REPORTS = 2;
+
+    public final static Duration REPORT_RETRY_BASE_BACKOFF = Duration.ofMillis(200);
+
+    public final static Duration REPORT_RETRY_MAX_BACKOFF = Duration.ofSeconds(5);
+
+    // the size of every metrics spool segment file, and the limit of a spooled chunk
+    public final static int SPOOL_SEGMENT_SIZE = 4 * 1024 * 1024;
+
+    public final static long DEFAULT_SPOOL_MAX_BYTES = 64 * 1024 * 1024;
+
+    public final static Duration DEFAULT_SPOOL_MAX_AGE = Duration.ofHours(24);
+
+    // writes of new series rejected because there are MAX_METRICS_SIZE series already
+    public final static String METRICS_KEY_METRICS_SERIES_DROPPED = "metrics.series.dropped";
+
+    // items of reports dropped after retries or for the queue limit
+    public final static String METRICS_KEY_REPORT_DROPPED = "metrics.report.dropped";
 
     // metrics log level
     public final static String LOG_LEVEL_TRACE = "trace";
@@ -41,6 +68,21 @@ public class Constant {
     public final static String LOG_LEVEL_ERROR = "error";
     public final static String LOG_LEVEL_FATAL = "fatal";
 
+    // all metrics logs are reported by default
+    public final static String DEFAULT_METRICS_LOG_LEVEL = LOG_LEVEL_TRACE;
+
+    // metrics logs below warn are sampled
+    public final static String METRICS_LOG_KEEP_LEVEL = LOG_LEVEL_WARN;
+
+    public final static double DEFAULT_METRICS_LOG_SAMPLE_RATE = 1;
+
+    // unlimited, every sampled log is kept as before the limit was introduced
+    public final static int DEFAULT_METRICS_LOG_RATE_PER_TEMPLATE = 0;
+
+    // counters of metrics logs per template
+    public final static String METRICS_KEY_METRICS_LOG_KEPT = "metrics.log.kept";
+    public final static String METRICS_KEY_METRICS_LOG_DROPPED = "metrics.log.dropped";
+
     // metrics type
     public final static String METRICS_TYPE_COUNTER = "counter";
     public final static String METRICS_TYPE_STORE = "store";
@@ -0,0 +1,90 @@
+package com.byteplus.rec.core.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+// A concurrent log-linear histogram of non-negative long values, e.g. latencies in milliseconds.
+// Values below SUB_BUCKET_COUNT have their own bucket, every following power of two range
+// is split into SUB_BUCKET_COUNT buckets, so a bucket is at most 1/SUB_BUCKET_COUNT (6.25%)
+// of its values wide. Values above MAX_TRACKABLE_VALUE fall in the last bucket, while
+// min and max are kept exactly.
+class Histogram {
+    static final int SUB_BUCKET_BITS = 4;
+
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+
+    // about 4.6 hours in milliseconds
+    static final long MAX_TRACKABLE_VALUE = (1L << 24) - 1;
+
+    static final int BUCKET_COUNT = bucketIndex(MAX_TRACKABLE_VALUE) + 1;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_COUNT);
+
+    // never reset, a snapshot reports the growth since the previous one
+    private final LongAdder sum = new LongAdder();
+
+    // only accessed by the snapshotting thread
+    private long lastSum;
+
+    // reset with getAndSet, which never loses a concurrent update unlike LongAccumulator.getThenReset
+    private final AtomicLong min = new AtomicLong(Long.MAX_VALUE);
+
+    private final AtomicLong max = new AtomicLong(Long.MIN_VALUE);
+
+    static int bucketIndex(long value) {
+        if (value < SUB_BUCKET_COUNT) {
+            return (int) Math.max(value, 0);
+        }
+        value = Math.min(value, MAX_TRACKABLE_VALUE);
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int shift = exponent - SUB_BUCKET_BITS;
+        int subBucket = (int) (value >>> shift) - SUB_BUCKET_COUNT;
+        return SUB_BUCKET_COUNT + shift * SUB_BUCKET_COUNT + subBucket;
+    }
+
+    // the smallest value of the bucket
+    static long lowerBound(int index) {
+        if (index < SUB_BUCKET_COUNT) {
+            return index;
+        }
+        int shift = (index - SUB_BUCKET_COUNT) / SUB_BUCKET_COUNT;
+        int subBucket = (index - SUB_BUCKET_COUNT) % SUB_BUCKET_COUNT;
+        return (long) (SUB_BUCKET_COUNT + subBucket) << shift;
+    }
+
+    // the largest value of the bucket
+    static long upperBound(int index) {
+        return lowerBound(index + 1) - 1;
+    }
+
+    // the bucket is counted last, so a value is in sum, min and max once it is counted
+    void record(long value) {
+        value = Math.max(value, 0);
+        sum.add(value);
+        long current;
+        while (value < (current = min.get()) && !min.compareAndSet(current, value)) {
+            // retry
+        }
+        while (value > (current = max.get()) && !max.compareAndSet(current, value)) {
+            // retry
+        }
+        buckets.incrementAndGet(bucketIndex(value));
+    }
+
+    // Nothing recorded concurrently is lost. The buckets are read before sum, min and max, so a value
+    // counted by this snapshot is always in its sum, min and max, while a value counted by the next
+    // one may already be in the sum, min or max of this one.
+    HistogramSnapshot snapshotAndReset() {
+        long[] counts = new long[BUCKET_COUNT];
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            if (buckets.get(i) != 0) {
+                counts[i] = buckets.getAndSet(i, 0);
+            }
+        }
+        long currentSum = sum.sum();
+        long intervalSum = currentSum - lastSum;
+        lastSum = currentSum;
+        return new HistogramSnapshot(counts, intervalSum, min.getAndSet(Long.MAX_VALUE), max.getAndSet(Long.MIN_VALUE));
+    }
+}
@@ -0,0 +1,119 @@
+package com.byteplus.rec.core.metrics;
+
+import com.byteplus.rec.core.metrics.protocol.ByteplusRecSdkMetrics;
+
+// An immutable view of the values recorded by a timer in one report interval.
+// Percentiles are estimated from the histogram buckets, with at most 6.25% relative error,
+// and are clamped into [min, max]. Snapshots of the same timer can be merged, e.g. to
+// get the percentiles of several intervals.
+public class HistogramSnapshot {
+    private final long[] counts;
+
+    private final long count;
+
+    private final long sum;
+
+    private final long min;
+
+    private final long max;
+
+    HistogramSnapshot(long[] counts, long sum, long min, long max) {
+        this.counts = counts;
+        long total = 0;
+        for (long bucketCount : counts) {
+            total += bucketCount;
+        }
+        this.count = total;
+        this.sum = sum;
+        // the accumulators keep their identities when nothing is recorded
+        this.min = total == 0 ? 0 : min;
+        this.max = total == 0 ? 0 : max;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public long getSum() {
+        return sum;
+    }
+
+    public long getMin() {
+        return min;
+    }
+
+    public long getMax() {
+        return max;
+    }
+
+    public double getMean() {
+        return count == 0 ? 0 : (double) sum / count;
+    }
+
+    public double getP50() {
+        return percentile(0.5);
+    }
+
+    public double getP90() {
+        return percentile(0.9);
+    }
+
+    public double getP99() {
+        return percentile(0.99);
+    }
+
+    // quantile is in [0, 1], returns 0 if there is no value
+    public double percentile(double quantile) {
+        if (count == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(quantile * count));
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                double middle = (Histogram.lowerBound(i) + Histogram.upperBound(i)) / 2.0;
+                return Math.min(Math.max(middle, min), max);
+            }
+        }
+        return max;
+    }
+
+    public HistogramSnapshot merge(HistogramSnapshot other) {
+        if (other.count == 0) {
+            return this;
+        }
+        if (count == 0) {
+            return other;
+        }
+        long[] merged = counts.clone();
+        for (int i = 0; i < merged.length; i++) {
+            merged[i] += other.counts[i];
+        }
+        return new HistogramSnapshot(merged, sum + other.sum, Math.min(min, other.min), Math.max(max, other.max));
+    }
+
+    ByteplusRecSdkMetrics.Histogram toProto() {
+        ByteplusRecSdkMetrics.Histogram.Builder builder = ByteplusRecSdkMetrics.Histogram.newBuilder()
+                .setSubBucketBits(Histogram.SUB_BUCKET_BITS)
+                .setCount(count)
+                .setSum(sum)
+                .setMin(min)
+                .setMax(max)
+                .setP50(getP50())
+                .setP90(getP90())
+                .setP99(getP99());
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] != 0) {
+                builder.addBucketIndexes(i).addBucketCounts(counts[i]);
+            }
+        }
+        return builder.build();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("count:%d, mean:%.2f, p50:%.2f, p90:%.2f, p99:%.2f, max:%d",
+                count, getMean(), getP50(), getP90(), getP99(), max);
+    }
+}
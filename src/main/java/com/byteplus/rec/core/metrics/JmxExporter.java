@@ -0,0 +1,171 @@
+package com.byteplus.rec.core.metrics;
+
+import lombok.extern.slf4j.Slf4j;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+// Registers one MXBean per metric series in the platform MBeanServer, e.g.
+//   com.byteplus.rec.sdk:type=timer,name="byteplus.rec.sdk.request.cost",url="...",project_id="..."
+// Tags named type or name are registered as tag.type and tag.name.
+// The beans are updated once per report interval, and unregistered when their series are removed.
+@Slf4j
+public class JmxExporter implements MetricsExporter {
+    private static final String DEFAULT_DOMAIN = "com.byteplus.rec.sdk";
+
+    public interface MetricMXBean {
+        String getType();
+
+        // see MetricPoint for the meaning of value, total and count of each type
+        double getValue();
+
+        double getTotal();
+
+        long getCount();
+
+        // the percentiles and max of timers in the last report interval
+        double getP50();
+
+        double getP90();
+
+        double getP99();
+
+        long getMax();
+    }
+
+    private final MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+
+    private final String domain;
+
+    // only accessed by the report task
+    private final Map<ObjectName, MetricBean> beans = new HashMap<>();
+
+    public JmxExporter() {
+        this(DEFAULT_DOMAIN);
+    }
+
+    public JmxExporter(String domain) {
+        this.domain = domain;
+    }
+
+    @Override
+    public synchronized void export(long timestamp, List<MetricPoint> points) {
+        Set<ObjectName> alive = new HashSet<>();
+        for (MetricPoint point : points) {
+            ObjectName objectName;
+            try {
+                objectName = objectNameOf(point);
+            } catch (Exception e) {
+                log.debug("[ByteplusSDK] invalid jmx object name of metric:{}, err:{}", point.getName(), e.toString());
+                continue;
+            }
+            alive.add(objectName);
+            MetricBean bean = beans.get(objectName);
+            if (Objects.nonNull(bean)) {
+                bean.point = point;
+                continue;
+            }
+            bean = new MetricBean(point);
+            try {
+                mBeanServer.registerMBean(bean, objectName);
+                beans.put(objectName, bean);
+            } catch (Exception e) {
+                log.warn("[ByteplusSDK] register metric mbean fail, name:{}, err:{}", objectName, e.toString());
+            }
+        }
+        beans.keySet().removeIf(objectName -> {
+            if (alive.contains(objectName)) {
+                return false;
+            }
+            unregister(objectName);
+            return true;
+        });
+    }
+
+    private ObjectName objectNameOf(MetricPoint point) throws Exception {
+        StringBuilder builder = new StringBuilder(domain)
+                .append(":type=").append(point.getType())
+                .append(",name=").append(ObjectName.quote(point.getName()));
+        for (Map.Entry<String, String> tag : point.getTags().entrySet()) {
+            String key = tag.getKey();
+            if ("type".equals(key) || "name".equals(key)) {
+                key = "tag." + key;
+            }
+            builder.append(',').append(key).append('=').append(ObjectName.quote(tag.getValue()));
+        }
+        return new ObjectName(builder.toString());
+    }
+
+    private void unregister(ObjectName objectName) {
+        try {
+            mBeanServer.unregisterMBean(objectName);
+        } catch (Exception e) {
+            log.debug("[ByteplusSDK] unregister metric mbean fail, name:{}, err:{}", objectName, e.toString());
+        }
+    }
+
+    @Override
+    public synchronized void shutdown() {
+        beans.keySet().forEach(this::unregister);
+        beans.clear();
+    }
+
+    private static class MetricBean implements MetricMXBean {
+        private volatile MetricPoint point;
+
+        private MetricBean(MetricPoint point) {
+            this.point = point;
+        }
+
+        @Override
+        public String getType() {
+            return point.getType();
+        }
+
+        @Override
+        public double getValue() {
+            return point.getValue();
+        }
+
+        @Override
+        public double getTotal() {
+            return point.getTotal();
+        }
+
+        @Override
+        public long getCount() {
+            return point.getCount();
+        }
+
+        @Override
+        public double getP50() {
+            HistogramSnapshot histogram = point.getHistogram();
+            return Objects.isNull(histogram) ? 0 : histogram.getP50();
+        }
+
+        @Override
+        public double getP90() {
+            HistogramSnapshot histogram = point.getHistogram();
+            return Objects.isNull(histogram) ? 0 : histogram.getP90();
+        }
+
+        @Override
+        public double getP99() {
+            HistogramSnapshot histogram = point.getHistogram();
+            return Objects.isNull(histogram) ? 0 : histogram.getP99();
+        }
+
+        @Override
+        public long getMax() {
+            HistogramSnapshot histogram = point.getHistogram();
+            return Objects.isNull(histogram) ? 0 : histogram.getMax();
+        }
+    }
+}
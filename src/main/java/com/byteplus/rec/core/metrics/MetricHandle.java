@@ -0,0 +1,67 @@
+package com.byteplus.rec.core.metrics;
+
+import java.util.Objects;
+
+// A metric whose type, name and tags are resolved once, e.g.
+//   MetricHandle requestCount = Metrics.counterHandle("request.count", "method:user");
+//   requestCount.inc(1);
+// Recording through a handle is an atomic add on the pre-interned series,
+// without splitting tags, building maps or concatenating the name per call.
+// Handles can be created before MetricsCollector is initialized.
+public class MetricHandle {
+    private final String type;
+
+    private final String name;
+
+    private final String[] tagKvs;
+
+    // counts metrics logs, so it is recorded whenever metrics log is enabled, even if metrics is not
+    private final boolean metricsLogCounter;
+
+    // resolved lazily, and again after the series is removed for being idle
+    private volatile MetricsAggregator.Series series;
+
+    MetricHandle(String type, String name, String... tagKvs) {
+        this(type, name, false, tagKvs);
+    }
+
+    MetricHandle(String type, String name, boolean metricsLogCounter, String... tagKvs) {
+        this.type = type;
+        this.name = name;
+        this.tagKvs = tagKvs.clone();
+        this.metricsLogCounter = metricsLogCounter;
+    }
+
+    public void inc(long value) {
+        record(value);
+    }
+
+    public void record(long value) {
+        if (!MetricsCollector.isEnableMetrics() && !(metricsLogCounter && MetricsCollector.isEnableMetricsLog())) {
+            return;
+        }
+        MetricsAggregator.Series current = series;
+        if (Objects.isNull(current) || current.removed) {
+            current = MetricsCollector.resolveSeries(type, name, tagKvs);
+            if (Objects.isNull(current)) {
+                return;
+            }
+            series = current;
+        }
+        current.record(value);
+    }
+
+    // returns the values of the last report interval if this is a timer, otherwise null
+    public HistogramSnapshot snapshot() {
+        MetricsAggregator.Series current = series;
+        if (!(current instanceof MetricsAggregator.TimerSeries)) {
+            return null;
+        }
+        return ((MetricsAggregator.TimerSeries) current).getLastSnapshot();
+    }
+
+    // The unit of `begin` is milliseconds
+    public void latency(long begin) {
+        record(System.currentTimeMillis() - begin);
+    }
+}
@@ -0,0 +1,33 @@
+package com.byteplus.rec.core.metrics;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.util.Map;
+
+// The state of one metric series at a report, as seen by MetricsExporter.
+// - counter, rate_counter and meter: value is the sum in the interval, total is the sum since the series is created
+// - store: value and total are the last value
+// - timer: value is the average in the interval, total and count are the sum and the number of values
+//   since the series is created, histogram has the values of the interval
+// value is 0 and histogram is null if the series is not updated in the interval.
+@Getter
+@AllArgsConstructor
+@ToString
+public class MetricPoint {
+    private final String type;
+
+    // with MetricsCfg.prefix
+    private final String name;
+
+    private final Map<String, String> tags;
+
+    private final double value;
+
+    private final double total;
+
+    private final long count;
+
+    private final HistogramSnapshot histogram;
+}
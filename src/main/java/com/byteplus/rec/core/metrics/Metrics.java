@@ -52,4 +52,55 @@ public class Metrics {
     public static void meter(String key, long value, String... tagKvs) {
         MetricsCollector.emitMetric(Constant.METRICS_TYPE_METER, key, value, tagKvs);
     }
+
+    /**
+     * description: Returns p50/p90/p99/max and so on of the timer in the last report interval,
+     * or null if the timer has no value in it. Store tagKvs should be formatted as "key:value"
+     * example: timerSnapshot("request.cost", "method:user", "type:upload").getP99()
+     */
+    public static HistogramSnapshot timerSnapshot(String key, String... tagKvs) {
+        return MetricsCollector.timerSnapshot(key, tagKvs);
+    }
+
+    /**
+     * description: Returns a handle recording to the counter of the key and tags,
+     * it is cheaper than counter() when the same metric is emitted repeatedly.
+     * example: counterHandle("request.count", "method:user", "type:upload").inc(1)
+     */
+    public static MetricHandle counterHandle(String key, String... tagKvs) {
+        return new MetricHandle(Constant.METRICS_TYPE_COUNTER, key, tagKvs);
+    }
+
+    /**
+     * description: Returns a handle recording to the timer of the key and tags,
+     * the unit of recorded values is milliseconds.
+     * example: timerHandle("request.cost", "method:user", "type:upload").record(100)
+     */
+    public static MetricHandle timerHandle(String key, String... tagKvs) {
+        return new MetricHandle(Constant.METRICS_TYPE_TIMER, key, tagKvs);
+    }
+
+    /**
+     * description: Returns a handle recording to the store of the key and tags.
+     * example: storeHandle("goroutine.count", "ip:127.0.0.1").record(400)
+     */
+    public static MetricHandle storeHandle(String key, String... tagKvs) {
+        return new MetricHandle(Constant.METRICS_TYPE_STORE, key, tagKvs);
+    }
+
+    /**
+     * description: Returns a handle recording to the rate counter of the key and tags.
+     * example: rateCounterHandle("request.count", "method:user", "type:upload").inc(1)
+     */
+    public static MetricHandle rateCounterHandle(String key, String... tagKvs) {
+        return new MetricHandle(Constant.METRICS_TYPE_RATE_COUNTER, key, tagKvs);
+    }
+
+    /**
+     * description: Returns a handle recording to the meter of the key and tags.
+     * example: meterHandle("request.count", "method:user", "type:upload").inc(1)
+     */
+    public static MetricHandle meterHandle(String key, String... tagKvs) {
+        return new MetricHandle(Constant.METRICS_TYPE_METER, key, tagKvs);
+    }
 }
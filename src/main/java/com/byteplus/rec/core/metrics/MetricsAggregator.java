@@ -0,0 +1,312 @@
+package com.byteplus.rec.core.metrics;
+
+import com.byteplus.rec.core.metrics.protocol.ByteplusRecSdkMetrics.Metric;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import static com.byteplus.rec.core.metrics.Constant.*;
+
+// Aggregates metrics in process per series, a series is identified by (type, name, tags).
+// - counter, rate_counter and meter: the sum of values
+// - store: the last value
+// - timer: a histogram of values, reported as the average along with the histogram
+// Every series is reported as one Metric per report interval, if it was updated in the interval.
+@Slf4j
+class MetricsAggregator {
+    // series not updated in so many report intervals are removed
+    private static final int MAX_IDLE_INTERVALS = 10;
+
+    private static final SeriesKey DROPPED_SERIES_KEY = new SeriesKey(METRICS_TYPE_COUNTER,
+            METRICS_KEY_METRICS_SERIES_DROPPED, new String[0]);
+
+    private final Map<SeriesKey, Series> seriesMap = new ConcurrentHashMap<>();
+
+    private final int maxSeries;
+
+    private final LongAdder droppedCount = new LongAdder();
+
+    MetricsAggregator(int maxSeries) {
+        this.maxSeries = maxSeries;
+    }
+
+    void record(String type, String name, long value, String... tagKvs) {
+        Series series = getOrCreateSeries(type, name, tagKvs);
+        if (Objects.isNull(series)) {
+            return;
+        }
+        series.record(value);
+    }
+
+    // returns null when there are too many series
+    Series getOrCreateSeries(String type, String name, String... tagKvs) {
+        SeriesKey key = new SeriesKey(type, name, tagKvs);
+        Series series = seriesMap.get(key);
+        if (Objects.nonNull(series)) {
+            return series;
+        }
+        if (seriesMap.size() >= maxSeries) {
+            droppedCount.increment();
+            // the only series allowed beyond the limit, so the drops are always visible
+            seriesMap.computeIfAbsent(DROPPED_SERIES_KEY, Series::create).record(1);
+            log.debug("[MetricsCollector]: The number of metrics exceeds the limit, the metrics write is rejected");
+            return null;
+        }
+        // the tags array belongs to caller, keep a copy of it
+        SeriesKey ownedKey = new SeriesKey(type, name, tagKvs.clone());
+        Series created = Series.create(ownedKey);
+        Series existing = seriesMap.putIfAbsent(ownedKey, created);
+        return Objects.nonNull(existing) ? existing : created;
+    }
+
+    // returns null if the series doesn't exist
+    Series getSeries(String type, String name, String... tagKvs) {
+        return seriesMap.get(new SeriesKey(type, name, tagKvs));
+    }
+
+    // builds one Metric for every series updated since the last collection, and resets them.
+    // If points is not null, it gets one MetricPoint for every live series
+    List<Metric> collect(String prefix, long timestamp, List<MetricPoint> points) {
+        List<Metric> metrics = new ArrayList<>();
+        Iterator<Series> iterator = seriesMap.values().iterator();
+        while (iterator.hasNext()) {
+            Series series = iterator.next();
+            boolean collected = false;
+            if (series.updated) {
+                series.updated = false;
+                series.idleIntervals = 0;
+                Metric.Builder builder = Metric.newBuilder()
+                        .setType(series.key.type)
+                        .setName(series.name(prefix))
+                        .setTimestamp(timestamp)
+                        .putAllTags(series.tags());
+                collected = series.collect(builder);
+                if (collected) {
+                    metrics.add(builder.build());
+                }
+            } else if (++series.idleIntervals > MAX_IDLE_INTERVALS) {
+                series.removed = true;
+                iterator.remove();
+                continue;
+            }
+            if (Objects.nonNull(points)) {
+                points.add(series.point(prefix, collected));
+            }
+        }
+        return metrics;
+    }
+
+    long getDroppedCount() {
+        return droppedCount.sum();
+    }
+
+    static class SeriesKey {
+        private final String type;
+
+        private final String name;
+
+        private final String[] tagKvs;
+
+        private final int hash;
+
+        private SeriesKey(String type, String name, String[] tagKvs) {
+            this.type = type;
+            this.name = name;
+            this.tagKvs = tagKvs;
+            this.hash = 31 * (31 * type.hashCode() + name.hashCode()) + Arrays.hashCode(tagKvs);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof SeriesKey)) {
+                return false;
+            }
+            SeriesKey that = (SeriesKey) o;
+            return hash == that.hash && type.equals(that.type) && name.equals(that.name) &&
+                    Arrays.equals(tagKvs, that.tagKvs);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    abstract static class Series {
+        final SeriesKey key;
+
+        private Map<String, String> tags;
+
+        private String name;
+
+        // written by recording threads, reset by the collecting thread
+        volatile boolean updated;
+
+        // only accessed by the collecting thread
+        private int idleIntervals;
+
+        // set when the series is removed for being idle, values recorded after that are lost
+        volatile boolean removed;
+
+        private Series(SeriesKey key) {
+            this.key = key;
+        }
+
+        private static Series create(SeriesKey key) {
+            switch (key.type) {
+                case METRICS_TYPE_STORE:
+                    return new StoreSeries(key);
+                case METRICS_TYPE_TIMER:
+                    return new TimerSeries(key);
+                default:
+                    return new CounterSeries(key);
+            }
+        }
+
+        // only called by the collecting thread
+        Map<String, String> tags() {
+            if (Objects.isNull(tags)) {
+                tags = Collections.unmodifiableMap(MetricsCollector.recoverTags(key.tagKvs));
+            }
+            return tags;
+        }
+
+        // the prefix never changes after the collector is initialized
+        String name(String prefix) {
+            if (Objects.isNull(name)) {
+                name = prefix.isEmpty() ? key.name : prefix + "." + key.name;
+            }
+            return name;
+        }
+
+        void record(long value) {
+            doRecord(value);
+            // avoid writing the shared flag on every call
+            if (!updated) {
+                updated = true;
+            }
+        }
+
+        abstract void doRecord(long value);
+
+        // sets the value of builder and resets the interval, false if there is nothing to report
+        abstract boolean collect(Metric.Builder builder);
+
+        // the state after the last collect, which returned `collected`
+        abstract MetricPoint point(String prefix, boolean collected);
+    }
+
+    private static class CounterSeries extends Series {
+        // never reset, sumThenReset would lose the values added while it runs
+        private final LongAdder sum = new LongAdder();
+
+        // only accessed by the collecting thread
+        private long intervalSum;
+
+        private long total;
+
+        private CounterSeries(SeriesKey key) {
+            super(key);
+        }
+
+        @Override
+        void doRecord(long value) {
+            sum.add(value);
+        }
+
+        @Override
+        boolean collect(Metric.Builder builder) {
+            long current = sum.sum();
+            intervalSum = current - total;
+            total = current;
+            builder.setValue(intervalSum);
+            return true;
+        }
+
+        @Override
+        MetricPoint point(String prefix, boolean collected) {
+            return new MetricPoint(key.type, name(prefix), tags(), collected ? intervalSum : 0, total, 0, null);
+        }
+    }
+
+    private static class StoreSeries extends Series {
+        private volatile long value;
+
+        private StoreSeries(SeriesKey key) {
+            super(key);
+        }
+
+        @Override
+        void doRecord(long value) {
+            this.value = value;
+        }
+
+        @Override
+        boolean collect(Metric.Builder builder) {
+            builder.setValue(value);
+            return true;
+        }
+
+        @Override
+        MetricPoint point(String prefix, boolean collected) {
+            long current = value;
+            return new MetricPoint(key.type, name(prefix), tags(), current, current, 0, null);
+        }
+    }
+
+    static class TimerSeries extends Series {
+        private final Histogram histogram = new Histogram();
+
+        // the values of the last collected interval
+        private volatile HistogramSnapshot lastSnapshot;
+
+        // only accessed by the collecting thread
+        private long totalCount;
+
+        private long totalSum;
+
+        private TimerSeries(SeriesKey key) {
+            super(key);
+        }
+
+        @Override
+        void doRecord(long value) {
+            histogram.record(value);
+        }
+
+        @Override
+        boolean collect(Metric.Builder builder) {
+            HistogramSnapshot snapshot = histogram.snapshotAndReset();
+            if (snapshot.getCount() == 0) {
+                return false;
+            }
+            lastSnapshot = snapshot;
+            totalCount += snapshot.getCount();
+            totalSum += snapshot.getSum();
+            builder.setValue(snapshot.getMean()).setHistogram(snapshot.toProto());
+            return true;
+        }
+
+        @Override
+        MetricPoint point(String prefix, boolean collected) {
+            HistogramSnapshot snapshot = collected ? lastSnapshot : null;
+            return new MetricPoint(key.type, name(prefix), tags(), collected ? snapshot.getMean() : 0,
+                    totalSum, totalCount, snapshot);
+        }
+
+        HistogramSnapshot getLastSnapshot() {
+            return lastSnapshot;
+        }
+    }
+}
@@ -1,7 +1,7 @@
 package com.byteplus.rec.core.metrics;
 
-import com.byteplus.rec.core.BizException;
 import com.byteplus.rec.core.HostAvailabler;
+import com.byteplus.rec.core.SdkRuntime;
 import com.byteplus.rec.core.metrics.protocol.ByteplusRecSdkMetrics.Metric;
 import com.byteplus.rec.core.metrics.protocol.ByteplusRecSdkMetrics.MetricMessage;
 import com.byteplus.rec.core.metrics.protocol.ByteplusRecSdkMetrics.MetricLog;
@@ -11,13 +11,9 @@ import lombok.extern.slf4j.Slf4j;
 
 import java.time.Duration;
 import java.util.*;
-import java.util.concurrent.ConcurrentLinkedQueue;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.atomic.AtomicBoolean;
-import java.util.concurrent.locks.Lock;
-import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
 
 import static com.byteplus.rec.core.metrics.Constant.*;
 
@@ -26,17 +22,22 @@ import static com.byteplus.rec.core.metrics.Constant.*;
 public class MetricsCollector {
     private static MetricsCfg metricsCfg;
     private static MetricsReporter metricsReporter;
-    private static Queue<Metric> metricsCollector;
-    private static Queue<MetricLog> metricsLogCollector;
-    private static volatile boolean cleaningMetricsCollector;
-    private static volatile boolean cleaningMetricsLogCollector;
+    private static MetricsAggregator metricsAggregator;
+    // written by any thread, drained by the report task and the early flush
+    private static MetricsLogBuffer metricsLogBuffer;
+    // logs below this level are dropped before being formatted
+    private static volatile int minLogSeverity;
+    private static MetricsLogSampler metricsLogSampler;
     // init func can only exec once
     private static final AtomicBoolean initialed = new AtomicBoolean(false);
-    private static ScheduledExecutorService reportExecutor;
+    private static ScheduledFuture<?> reportFuture;
+    // owned by the collector once Init accepts them, see shutdown
+    private static volatile List<MetricsExporter> metricsExporters = Collections.emptyList();
     private static volatile HostAvailabler hostAvailabler;
 
     public static void Init(MetricsCfg metricsConfig, HostAvailabler hostAvailabler) {
         if (initialed.get()) {
+            shutdownIgnoredExporters(metricsConfig);
             return;
         }
         metricsConfig = fillDefaultConfig(metricsConfig);
@@ -63,52 +64,120 @@ public class MetricsCollector {
         if (Objects.isNull(metricsConfig.httpTimeout) || metricsConfig.httpTimeout.isZero()) {
             metricsConfig.httpTimeout = DEFAULT_HTTP_TIMEOUT;
         }
+        if (Objects.isNull(metricsConfig.metricsLogLevel) || metricsConfig.metricsLogLevel.isEmpty()) {
+            metricsConfig.metricsLogLevel = DEFAULT_METRICS_LOG_LEVEL;
+        }
+        if (metricsConfig.metricsLogSampleRate <= 0 || metricsConfig.metricsLogSampleRate > 1) {
+            metricsConfig.metricsLogSampleRate = DEFAULT_METRICS_LOG_SAMPLE_RATE;
+        }
+        if (metricsConfig.metricsLogFlushSize <= 0 || metricsConfig.metricsLogFlushSize > MAX_METRICS_LOG_SIZE) {
+            metricsConfig.metricsLogFlushSize = DEFAULT_METRICS_LOG_FLUSH_SIZE;
+        }
+        if (metricsConfig.maxConcurrentReports <= 0) {
+            metricsConfig.maxConcurrentReports = DEFAULT_MAX_CONCURRENT_REPORTS;
+        }
+        if (metricsConfig.spoolMaxBytes <= 0) {
+            metricsConfig.spoolMaxBytes = DEFAULT_SPOOL_MAX_BYTES;
+        }
+        if (Objects.isNull(metricsConfig.spoolMaxAge) || metricsConfig.spoolMaxAge.isZero()) {
+            metricsConfig.spoolMaxAge = DEFAULT_SPOOL_MAX_AGE;
+        }
         return metricsConfig;
     }
 
     public static void Init(MetricsOption... opts) {
-        if (initialed.get()) {
-            return;
-        }
         MetricsCfg metricsConfig = new MetricsCfg();
         // apply options
         for (MetricsOption opt : opts) {
             opt.fill((metricsConfig));
         }
+        if (initialed.get()) {
+            shutdownIgnoredExporters(metricsConfig);
+            return;
+        }
         doInit(metricsConfig, null);
     }
 
     private static synchronized void doInit(MetricsCfg metricsConfig, HostAvailabler hostAvailabler) {
         if (initialed.get()) {
+            shutdownIgnoredExporters(metricsConfig);
             return;
         }
         metricsCfg = metricsConfig;
         MetricsCollector.hostAvailabler = hostAvailabler;
         // initialize metrics reporter
-        metricsReporter = new MetricsReporter(metricsCfg);
+        metricsReporter = new MetricsReporter(metricsCfg, MetricsCollector::urlOf);
         // initialize metrics collector
-        metricsCollector = new ConcurrentLinkedQueue<>();
-        metricsLogCollector = new ConcurrentLinkedQueue<>();
+        metricsAggregator = new MetricsAggregator(MAX_METRICS_SIZE);
+        metricsLogBuffer = new MetricsLogBuffer(MAX_METRICS_LOG_SIZE);
+        minLogSeverity = MetricsLog.severityOf(metricsCfg.getMetricsLogLevel());
+        metricsLogSampler = new MetricsLogSampler(metricsCfg.getMetricsLogSampleRate(),
+                metricsCfg.getMetricsLogRatePerTemplate(), MetricsLog.severityOf(METRICS_LOG_KEEP_LEVEL));
+        if (Objects.nonNull(metricsCfg.getDisabledMetricsLoggers())) {
+            metricsCfg.getDisabledMetricsLoggers().forEach(name -> MetricsLog.setLoggerEnabled(name, false));
+        }
+
+        if (Objects.nonNull(metricsCfg.getExporters())) {
+            metricsExporters = new ArrayList<>(metricsCfg.getExporters());
+        }
 
         if (!isEnableMetrics() && !isEnableMetricsLog()) {
             initialed.set(true);
             return;
         }
-        reportExecutor = Executors.newSingleThreadScheduledExecutor();
-        reportExecutor.scheduleAtFixedRate(MetricsCollector::report, metricsCfg.reportInterval.toMillis(),
-                metricsCfg.reportInterval.toMillis(), TimeUnit.MILLISECONDS);
+        reportFuture = SdkRuntime.get().scheduleAtFixedRate("metrics_report", SdkRuntime.Workload.BLOCKING,
+                MetricsCollector::report, metricsCfg.reportInterval, metricsCfg.reportInterval);
         initialed.set(true);
     }
 
+    // Only the first Init takes effect, the exporters of a later config are never used, so they are
+    // shut down at once, e.g. a PrometheusExporter built for it would hold its port forever otherwise.
+    // Exporters shared with the accepted config are kept.
+    private static synchronized void shutdownIgnoredExporters(MetricsCfg ignoredConfig) {
+        if (Objects.isNull(ignoredConfig) || Objects.isNull(ignoredConfig.getExporters())) {
+            return;
+        }
+        for (MetricsExporter exporter : ignoredConfig.getExporters()) {
+            if (metricsExporters.stream().noneMatch(active -> active == exporter)) {
+                log.warn("[BytePlusSDK][Metrics] metrics is initialed already, shutdown the exporter of " +
+                        "the ignored config, exporter:{}", exporter.getClass().getSimpleName());
+                shutdownQuietly(exporter);
+            }
+        }
+    }
+
+    // Stops the report task and shuts down the exporters, which are owned by the collector once
+    // Init accepts them. It is called by SdkRuntime.shutdown, metrics are neither reported nor
+    // exported afterwards, and Init is not taken again.
+    public static synchronized void shutdown() {
+        if (Objects.nonNull(reportFuture)) {
+            reportFuture.cancel(false);
+            reportFuture = null;
+        }
+        List<MetricsExporter> exporters = metricsExporters;
+        metricsExporters = Collections.emptyList();
+        exporters.forEach(MetricsCollector::shutdownQuietly);
+    }
+
+    private static void shutdownQuietly(MetricsExporter exporter) {
+        try {
+            exporter.shutdown();
+        } catch (Throwable e) {
+            log.error("[BytePlusSDK][Metrics] shutdown exporter exception, exporter:{}, err:{}",
+                    exporter.getClass().getSimpleName(), e.toString());
+        }
+    }
+
     public static boolean isInitialed() {
         return initialed.get();
     }
 
+    // metrics are recorded if they are reported to byteplus or exported locally
     public static boolean isEnableMetrics() {
         if (Objects.isNull(metricsCfg)) {
             return false;
         }
-        return metricsCfg.isEnableMetrics();
+        return metricsCfg.isEnableMetrics() || !metricsExporters.isEmpty();
     }
 
     public static boolean isEnableMetricsLog() {
@@ -122,35 +191,27 @@ public class MetricsCollector {
         if (!isEnableMetrics()) {
             return;
         }
-        // spin when cleaning collector
-        int tryTimes = 0;
-        while (cleaningMetricsCollector) {
-            try {
-                if (tryTimes >= MAX_SPIN_TIMES) {
-                    return;
-                }
-                Thread.sleep(5);
-                tryTimes += 1;
-            } catch (InterruptedException e) {
-                e.printStackTrace();
-            }
+        metricsAggregator.record(type, name, value, tagKvs);
+    }
+
+    // returns null if metrics are not enabled or there are too many series
+    static MetricsAggregator.Series resolveSeries(String type, String name, String... tagKvs) {
+        if (!isEnableMetrics() && !isEnableMetricsLog()) {
+            return null;
         }
-        if (metricsCollector.size() > MAX_METRICS_SIZE) {
-            log.debug("[MetricsCollector]: The number of metrics exceeds the limit, the metrics write is rejected");
-            return;
+        return metricsAggregator.getOrCreateSeries(type, name, tagKvs);
+    }
+
+    // returns the values of the last report interval of the timer, or null if there are none
+    static HistogramSnapshot timerSnapshot(String name, String... tagKvs) {
+        if (!isEnableMetrics()) {
+            return null;
         }
-        String metricName = name;
-        if (metricsCfg.getPrefix().length() > 0) {
-            metricName = metricsCfg.getPrefix() + "." + metricName;
+        MetricsAggregator.Series series = metricsAggregator.getSeries(METRICS_TYPE_TIMER, name, tagKvs);
+        if (!(series instanceof MetricsAggregator.TimerSeries)) {
+            return null;
         }
-        Metric metric = Metric.newBuilder()
-                .setType(type)
-                .setName(metricName)
-                .setValue(value)
-                .setTimestamp(System.currentTimeMillis())
-                .putAllTags(recoverTags(tagKvs))
-                .build();
-        metricsCollector.add(metric);
+        return ((MetricsAggregator.TimerSeries) series).getLastSnapshot();
     }
 
     // recover tagString to origin Tags map
@@ -167,37 +228,65 @@ public class MetricsCollector {
     }
 
     public static void emitLog(String logID, String message, String logLevel, Long timestamp) {
-        if (!isEnableMetricsLog()) {
+        if (!isMetricsLogAccepted(MetricsLog.severityOf(logLevel))) {
             return;
         }
-        // spin when cleaning collector
-        int tryTimes = 0;
-        while (cleaningMetricsLogCollector) {
-            try {
-                if (tryTimes >= MAX_SPIN_TIMES) {
-                    return;
-                }
-                Thread.sleep(5);
-                tryTimes += 1;
-            } catch (InterruptedException e) {
-                e.printStackTrace();
-            }
+        MetricsLogSampler.TemplateState template = metricsLogSampler.sample(null, null, MetricsLog.severityOf(logLevel));
+        if (Objects.isNull(template)) {
+            return;
+        }
+        doEmitLog(logID, logLevel, timestamp, template, message, null);
+    }
+
+    // the message is formatted only if it is sampled and there is room for it
+    static void emitLog(String loggerName, String logID, String logLevel, int severity, long timestamp,
+                        String format, Object... args) {
+        MetricsLogSampler.TemplateState template = metricsLogSampler.sample(loggerName, format, severity);
+        if (Objects.isNull(template)) {
+            return;
         }
-        if (metricsLogCollector.size() > MAX_METRICS_LOG_SIZE) {
+        doEmitLog(logID, logLevel, timestamp, template, format, args);
+    }
+
+    static boolean isMetricsLogAccepted(int severity) {
+        return isEnableMetricsLog() && severity >= minLogSeverity;
+    }
+
+    // args is null if message is formatted already
+    private static void doEmitLog(String logID, String logLevel, long timestamp,
+                                  MetricsLogSampler.TemplateState template, String message, Object[] args) {
+        long position = metricsLogBuffer.claim();
+        if (position < 0) {
+            template.onBufferFull();
             log.debug("[MetricsCollector]: The number of metrics logs exceeds the limit, the metrics log write is rejected");
             return;
         }
-        MetricLog metricLog = MetricLog.newBuilder()
-                .setId(logID)
-                .setMessage(message)
-                .setLevel(logLevel)
-                .setTimestamp(timestamp)
-                .build();
-        metricsLogCollector.add(metricLog);
+        MetricLog metricLog = null;
+        try {
+            if (Objects.nonNull(args)) {
+                message = String.format(message, args);
+            }
+            metricLog = MetricLog.newBuilder()
+                    .setId(logID)
+                    .setMessage(message)
+                    .setLevel(logLevel)
+                    .setTimestamp(timestamp)
+                    .build();
+        } finally {
+            // the claimed slot must be published even if formatting fails, or the buffer stalls
+            metricsLogBuffer.publish(position, metricLog);
+        }
+        template.onKept();
+        // only the writer reaching the threshold triggers the flush
+        if (metricsLogBuffer.sizeAt(position) == metricsCfg.getMetricsLogFlushSize()) {
+            SdkRuntime.get().submit("metrics_log_flush", SdkRuntime.Workload.BLOCKING,
+                    MetricsCollector::reportMetricsLog);
+        }
     }
 
     private static void report() {
-        if (isEnableMetrics()) {
+        // the counters of metrics logs are reported even if metrics is not enabled
+        if (isEnableMetrics() || isEnableMetricsLog()) {
             reportMetrics();
         }
         if (isEnableMetricsLog()) {
@@ -206,34 +295,61 @@ public class MetricsCollector {
     }
 
     private static void reportMetrics() {
-        if (metricsCollector.size() == 0) {
+        long now = System.currentTimeMillis();
+        List<MetricPoint> points = metricsExporters.isEmpty() ? null : new ArrayList<>();
+        List<Metric> metrics = metricsAggregator.collect(metricsCfg.getPrefix(), now, points);
+        if (Objects.nonNull(points)) {
+            exportMetrics(now, points);
+        }
+        if (!metricsCfg.isEnableMetrics()) {
+            metrics = metricsLogCounters(metrics);
+        }
+        if (metrics.isEmpty()) {
             return;
         }
-        List<Metric> metrics = new ArrayList<>();
-        cleaningMetricsCollector = true;
-        while (true) {
-            Metric metric = metricsCollector.poll();
-            if (Objects.isNull(metric)) {
-                break;
+        doReportMetrics(metrics);
+    }
+
+    // only the counters of metrics logs are reported if metrics log is enabled but metrics is not
+    private static List<Metric> metricsLogCounters(List<Metric> metrics) {
+        if (!isEnableMetricsLog()) {
+            return Collections.emptyList();
+        }
+        String kept = metricName(METRICS_KEY_METRICS_LOG_KEPT);
+        String dropped = metricName(METRICS_KEY_METRICS_LOG_DROPPED);
+        return metrics.stream()
+                .filter(metric -> metric.getName().equals(kept) || metric.getName().equals(dropped))
+                .collect(Collectors.toList());
+    }
+
+    private static String metricName(String key) {
+        return metricsCfg.getPrefix() + "." + key;
+    }
+
+    private static void exportMetrics(long timestamp, List<MetricPoint> points) {
+        List<MetricPoint> readOnlyPoints = Collections.unmodifiableList(points);
+        for (MetricsExporter exporter : metricsExporters) {
+            try {
+                exporter.export(timestamp, readOnlyPoints);
+            } catch (Throwable e) {
+                log.error("[BytePlusSDK][Metrics] export metrics exception, exporter:{}, err:{}",
+                        exporter.getClass().getSimpleName(), e.toString());
             }
-            metrics.add(metric);
         }
-        cleaningMetricsCollector = false;
-        doReportMetrics(metrics);
     }
 
     private static void doReportMetrics(List<Metric> metrics) {
-        String url = String.format(METRICS_URL_FORMAT, metricsCfg.getHttpSchema(),
-                getDomain(METRICS_PATH));
         MetricMessage metricMessage = MetricMessage
                 .newBuilder()
                 .addAllMetrics(metrics)
                 .build();
-        try {
-            metricsReporter.report(metricMessage, url);
-        } catch (BizException e) {
-            log.error("[BytePlusSDK][Metrics] report metrics exception, msg:{}, url:{}", e.getMessage(), url);
-        }
+        metricsReporter.report(metricMessage, METRICS_PATH);
+    }
+
+    // the url of a report path on the host which is available now
+    private static String urlOf(String path) {
+        String urlFormat = METRICS_LOG_PATH.equals(path) ? METRICS_LOG_URL_FORMAT : METRICS_URL_FORMAT;
+        return String.format(urlFormat, metricsCfg.getHttpSchema(), getDomain(path));
     }
 
     private static String getDomain(String path) {
@@ -245,34 +361,22 @@ public class MetricsCollector {
 
 
     private static void reportMetricsLog() {
-        if (metricsLogCollector.size() == 0) {
+        if (metricsLogBuffer.isEmpty()) {
             return;
         }
-        List<MetricLog> metricLogs = new ArrayList<>();
-        cleaningMetricsLogCollector = true;
-        while (true) {
-            MetricLog metricLog = metricsLogCollector.poll();
-            if (Objects.isNull(metricLog)) {
-                break;
-            }
-            metricLogs.add(metricLog);
+        List<MetricLog> metricLogs = metricsLogBuffer.drain();
+        if (metricLogs.isEmpty()) {
+            return;
         }
-        cleaningMetricsLogCollector = false;
         doReportMetricsLogs(metricLogs);
     }
 
     private static void doReportMetricsLogs(List<MetricLog> metricsLogs) {
-        String url = String.format(METRICS_LOG_URL_FORMAT, metricsCfg.getHttpSchema(),
-                getDomain(METRICS_LOG_PATH));
         MetricLogMessage metricLogMessage = MetricLogMessage.
                 newBuilder().
                 addAllMetricLogs(metricsLogs).
                 build();
-        try {
-            metricsReporter.report(metricLogMessage, url);
-        } catch (BizException e) {
-            log.error("[BytePlusSDK][Metrics] report metrics log exception, msg:{}, url:{}", e.getMessage(), url);
-        }
+        metricsReporter.report(metricLogMessage, METRICS_LOG_PATH);
     }
 
     @Getter
@@ -294,6 +398,35 @@ public class MetricsCollector {
         private Duration reportInterval;
         // Timeout for request reporting.
         private Duration httpTimeout;
+        // Metrics logs below this level are not reported, one of trace, debug, info, notice, warn, error and fatal,
+        // the default is trace.
+        private String metricsLogLevel;
+        // Metrics logs of these loggers are not reported, e.g. "HTTPCaller", see MetricsLog.getLogger.
+        private Set<String> disabledMetricsLoggers;
+        // Metrics logs below warn are kept with this probability, the default is 1.
+        private double metricsLogSampleRate;
+        // At most so many metrics logs below warn are kept per second for each message template,
+        // 0 or negative means unlimited, which is the default. Logs beyond the limit are dropped
+        // and counted as metrics.log.dropped with reason:rate_limited.
+        private int metricsLogRatePerTemplate;
+        // Metrics logs are reported before reportInterval ends once so many are buffered, the default is 2000.
+        private int metricsLogFlushSize;
+        // At most so many reports are uploaded at the same time, the default is 2.
+        private int maxConcurrentReports;
+        // Report bodies are gzip compressed if it is set, the metrics server must accept Content-Encoding gzip.
+        private boolean enableReportGzip;
+        // If set, reports which fail to upload are kept in this directory and replayed once uploading recovers.
+        // The directory is locked while the process runs, so it is never shared by two processes.
+        private String spoolDir;
+        // The spool keeps at most so many bytes on disk, dropping the oldest reports, the default is 64MB.
+        private long spoolMaxBytes;
+        // Spooled reports older than it are dropped, the default is 24h.
+        private Duration spoolMaxAge;
+        // Metrics are also exported to these exporters every reportInterval, even if enableMetrics is false,
+        // e.g. PrometheusExporter, JmxExporter or a lambda as an in-process callback sink.
+        // The collector owns them once Init accepts the config, and shuts them down with SdkRuntime.shutdown.
+        // Exporters of a config ignored by Init are shut down at once.
+        private List<MetricsExporter> exporters;
 
         // build default metricsCfg
         public MetricsCfg() {
@@ -304,6 +437,13 @@ public class MetricsCollector {
             this.setHttpSchema(DEFAULT_METRICS_HTTP_SCHEMA);
             this.setReportInterval(DEFAULT_REPORT_INTERVAL);
             this.setHttpTimeout(DEFAULT_HTTP_TIMEOUT);
+            this.setMetricsLogLevel(DEFAULT_METRICS_LOG_LEVEL);
+            this.setMetricsLogSampleRate(DEFAULT_METRICS_LOG_SAMPLE_RATE);
+            this.setMetricsLogRatePerTemplate(DEFAULT_METRICS_LOG_RATE_PER_TEMPLATE);
+            this.setMetricsLogFlushSize(DEFAULT_METRICS_LOG_FLUSH_SIZE);
+            this.setMaxConcurrentReports(DEFAULT_MAX_CONCURRENT_REPORTS);
+            this.setSpoolMaxBytes(DEFAULT_SPOOL_MAX_BYTES);
+            this.setSpoolMaxAge(DEFAULT_SPOOL_MAX_AGE);
         }
     }
 }
@@ -0,0 +1,16 @@
+package com.byteplus.rec.core.metrics;
+
+import java.util.List;
+
+// Exports the aggregated metrics to local monitoring systems, besides reporting them to byteplus.
+// export is called by the report task once per report interval with every live series,
+// so exporters add no cost to recording metrics. Exporters are set with MetricsCfg.exporters,
+// and are shut down by MetricsCollector.shutdown, or at once if Init ignores their config. A lambda works as an in-process callback sink, e.g.
+//   MetricsOption.withMetricsExporters((timestamp, points) -> points.forEach(System.out::println))
+// points must not be modified, and export should return quickly since it runs on the report task.
+public interface MetricsExporter {
+    void export(long timestamp, List<MetricPoint> points);
+
+    default void shutdown() {
+    }
+}
@@ -1,38 +1,147 @@
 package com.byteplus.rec.core.metrics;
 
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Metrics logs are formatted only when they are accepted, i.e. metrics log is enabled,
+// the level is not below MetricsCfg.metricsLogLevel and the logger is enabled,
+// the log is sampled for its format string (see MetricsLogSampler),
+// and there is room left in the current report interval.
+// Named loggers can be enabled or disabled separately, e.g.
+//   private static final MetricsLog.Logger metricsLog = MetricsLog.getLogger("HTTPCaller");
 public class MetricsLog {
+    private static final int SEVERITY_TRACE = 0;
+    private static final int SEVERITY_DEBUG = 1;
+    private static final int SEVERITY_INFO = 2;
+    private static final int SEVERITY_NOTICE = 3;
+    private static final int SEVERITY_WARN = 4;
+    private static final int SEVERITY_ERROR = 5;
+    private static final int SEVERITY_FATAL = 6;
+
+    private static final Map<String, Logger> loggers = new ConcurrentHashMap<>();
+
+    private static final Logger defaultLogger = getLogger("default");
+
+    public static Logger getLogger(String name) {
+        return loggers.computeIfAbsent(name, Logger::new);
+    }
+
+    // also applies to the logger if it is created later
+    public static void setLoggerEnabled(String name, boolean enabled) {
+        getLogger(name).setEnabled(enabled);
+    }
+
+    // unknown levels are treated as info
+    static int severityOf(String level) {
+        switch (level) {
+            case Constant.LOG_LEVEL_TRACE:
+                return SEVERITY_TRACE;
+            case Constant.LOG_LEVEL_DEBUG:
+                return SEVERITY_DEBUG;
+            case Constant.LOG_LEVEL_NOTICE:
+                return SEVERITY_NOTICE;
+            case Constant.LOG_LEVEL_WARN:
+                return SEVERITY_WARN;
+            case Constant.LOG_LEVEL_ERROR:
+                return SEVERITY_ERROR;
+            case Constant.LOG_LEVEL_FATAL:
+                return SEVERITY_FATAL;
+            default:
+                return SEVERITY_INFO;
+        }
+    }
+
     public static void trace(String logID, String format, Object... args) {
-        String message = String.format(format, args);
-        MetricsCollector.emitLog(logID, message, Constant.LOG_LEVEL_TRACE, System.currentTimeMillis());
+        defaultLogger.trace(logID, format, args);
     }
 
     public static void debug(String logID, String format, Object... args) {
-        String message = String.format(format, args);
-        MetricsCollector.emitLog(logID, message, Constant.LOG_LEVEL_DEBUG, System.currentTimeMillis());
+        defaultLogger.debug(logID, format, args);
     }
 
     public static void info(String logID, String format, Object... args) {
-        String message = String.format(format, args);
-        MetricsCollector.emitLog(logID, message, Constant.LOG_LEVEL_INFO, System.currentTimeMillis());
+        defaultLogger.info(logID, format, args);
     }
 
     public static void notice(String logID, String format, Object... args) {
-        String message = String.format(format, args);
-        MetricsCollector.emitLog(logID, message, Constant.LOG_LEVEL_NOTICE, System.currentTimeMillis());
+        defaultLogger.notice(logID, format, args);
     }
 
     public static void warn(String logID, String format, Object... args) {
-        String message = String.format(format, args);
-        MetricsCollector.emitLog(logID, message, Constant.LOG_LEVEL_WARN, System.currentTimeMillis());
+        defaultLogger.warn(logID, format, args);
     }
 
     public static void error(String logID, String format, Object... args) {
-        String message = String.format(format, args);
-        MetricsCollector.emitLog(logID, message, Constant.LOG_LEVEL_ERROR, System.currentTimeMillis());
+        defaultLogger.error(logID, format, args);
     }
 
     public static void fatal(String logID, String format, Object... args) {
-        String message = String.format(format, args);
-        MetricsCollector.emitLog(logID, message, Constant.LOG_LEVEL_FATAL, System.currentTimeMillis());
+        defaultLogger.fatal(logID, format, args);
+    }
+
+    public static class Logger {
+        private final String name;
+
+        private volatile boolean enabled = true;
+
+        private Logger(String name) {
+            this.name = name;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        // callers may check it before computing expensive arguments
+        public boolean isEnabled(String level) {
+            return enabled && MetricsCollector.isMetricsLogAccepted(severityOf(level));
+        }
+
+        public boolean isInfoEnabled() {
+            return enabled && MetricsCollector.isMetricsLogAccepted(SEVERITY_INFO);
+        }
+
+        public void trace(String logID, String format, Object... args) {
+            log(Constant.LOG_LEVEL_TRACE, SEVERITY_TRACE, logID, format, args);
+        }
+
+        public void debug(String logID, String format, Object... args) {
+            log(Constant.LOG_LEVEL_DEBUG, SEVERITY_DEBUG, logID, format, args);
+        }
+
+        public void info(String logID, String format, Object... args) {
+            log(Constant.LOG_LEVEL_INFO, SEVERITY_INFO, logID, format, args);
+        }
+
+        public void notice(String logID, String format, Object... args) {
+            log(Constant.LOG_LEVEL_NOTICE, SEVERITY_NOTICE, logID, format, args);
+        }
+
+        public void warn(String logID, String format, Object... args) {
+            log(Constant.LOG_LEVEL_WARN, SEVERITY_WARN, logID, format, args);
+        }
+
+        public void error(String logID, String format, Object... args) {
+            log(Constant.LOG_LEVEL_ERROR, SEVERITY_ERROR, logID, format, args);
+        }
+
+        public void fatal(String logID, String format, Object... args) {
+            log(Constant.LOG_LEVEL_FATAL, SEVERITY_FATAL, logID, format, args);
+        }
+
+        private void log(String level, int severity, String logID, String format, Object... args) {
+            if (!enabled || !MetricsCollector.isMetricsLogAccepted(severity)) {
+                return;
+            }
+            MetricsCollector.emitLog(name, logID, level, severity, System.currentTimeMillis(), format, args);
+        }
     }
 }
@@ -0,0 +1,101 @@
+package com.byteplus.rec.core.metrics;
+
+import com.byteplus.rec.core.metrics.protocol.ByteplusRecSdkMetrics.MetricLog;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+// A bounded multi-producer single-consumer ring buffer of metrics logs, allocated once.
+// Every slot has a sequence telling whose turn it is:
+// - sequence == position: the slot is free for the producer claiming that position
+// - sequence == position + 1: the log at that position is published and can be consumed
+// A producer claims a position with one CAS on `tail`, so offers are O(1) and never wait for
+// the consumer. Writing a log is split into claim and publish, so the message is only formatted
+// once there is room for it. The consumer stops at the first claimed but unpublished slot, and
+// picks it up in the next drain.
+class MetricsLogBuffer {
+    private final int mask;
+
+    private final AtomicReferenceArray<MetricLog> logs;
+
+    private final AtomicLongArray sequences;
+
+    // the next position to claim
+    private final AtomicLong tail = new AtomicLong();
+
+    // the next position to consume, only written by the consumer
+    private final AtomicLong head = new AtomicLong();
+
+    // the capacity must be a power of two
+    MetricsLogBuffer(int capacity) {
+        if (capacity <= 0 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("capacity must be a power of two: " + capacity);
+        }
+        mask = capacity - 1;
+        logs = new AtomicReferenceArray<>(capacity);
+        sequences = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            sequences.set(i, i);
+        }
+    }
+
+    // returns the claimed position, -1 if the buffer is full.
+    // A claimed position must be published, even with a null log
+    long claim() {
+        while (true) {
+            long position = tail.get();
+            long sequence = sequences.get((int) position & mask);
+            if (sequence < position) {
+                // the slot still holds the log of the previous round
+                return -1;
+            }
+            if (sequence == position && tail.compareAndSet(position, position + 1)) {
+                return position;
+            }
+        }
+    }
+
+    // the number of claimed logs not consumed yet, including the one at position
+    int sizeAt(long position) {
+        return (int) (position + 1 - head.get());
+    }
+
+    // a null log frees the slot without being consumed, e.g. if building it failed
+    void publish(long position, MetricLog metricLog) {
+        int index = (int) position & mask;
+        logs.lazySet(index, metricLog);
+        sequences.set(index, position + 1);
+    }
+
+    boolean isEmpty() {
+        long position = head.get();
+        return sequences.get((int) position & mask) != position + 1;
+    }
+
+    // consumes all published logs in order. The report task and the early flush may both
+    // call it, so consumers are serialized here
+    synchronized List<MetricLog> drain() {
+        List<MetricLog> drained = new ArrayList<>();
+        long position = head.get();
+        while (true) {
+            int index = (int) position & mask;
+            if (sequences.get(index) != position + 1) {
+                break;
+            }
+            MetricLog metricLog = logs.get(index);
+            logs.lazySet(index, null);
+            if (Objects.nonNull(metricLog)) {
+                drained.add(metricLog);
+            }
+            head.lazySet(position + 1);
+            // hand the slot to the producer of the next round, after head so it sees the new size
+            sequences.set(index, position + mask + 1);
+            position++;
+        }
+        return drained;
+    }
+}
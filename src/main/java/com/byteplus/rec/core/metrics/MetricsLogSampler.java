@@ -0,0 +1,145 @@
+package com.byteplus.rec.core.metrics;
+
+import com.byteplus.rec.core.Utils;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.byteplus.rec.core.metrics.Constant.*;
+
+// Decides which metrics logs are kept, per message template (the format string of a logger):
+// - logs at warn and above are always kept
+// - other logs are kept with probability sampleRate
+// - then at most ratePerTemplate logs per second are kept per template, with bursts of as many
+// Kept and dropped logs are counted per template as metrics, so the server can extrapolate.
+// The counters are reported along with the metrics logs, even if metrics is not enabled.
+// The template tag is the logger name and the hash of the format string, e.g. "HTTPCaller_1a2b3c4d",
+// which is short, has no reserved chars and is the same in every process.
+class MetricsLogSampler {
+    // templates beyond the limit, and messages formatted by callers, share one state
+    private static final int MAX_TEMPLATES = 1024;
+
+    private static final String OTHER_TEMPLATE = "other";
+
+    private final double sampleRate;
+
+    // 0 or negative means unlimited
+    private final int ratePerTemplate;
+
+    private final int keepSeverity;
+
+    // logger name->format string->state
+    private final Map<String, Map<String, TemplateState>> templates = new ConcurrentHashMap<>();
+
+    private final AtomicInteger templateCount = new AtomicInteger();
+
+    private final TemplateState otherTemplate;
+
+    MetricsLogSampler(double sampleRate, int ratePerTemplate, int keepSeverity) {
+        this.sampleRate = sampleRate;
+        this.ratePerTemplate = ratePerTemplate;
+        this.keepSeverity = keepSeverity;
+        this.otherTemplate = new TemplateState(OTHER_TEMPLATE, ratePerTemplate);
+    }
+
+    // returns the state of the template to count the result of the write if the log is sampled,
+    // otherwise null. template is null if the message is formatted already
+    TemplateState sample(String loggerName, String template, int severity) {
+        TemplateState state = templateState(loggerName, template);
+        if (severity >= keepSeverity) {
+            return state;
+        }
+        if (sampleRate < 1 && ThreadLocalRandom.current().nextDouble() >= sampleRate) {
+            state.sampled.inc(1);
+            return null;
+        }
+        if (ratePerTemplate > 0 && !state.tryAcquire()) {
+            state.rateLimited.inc(1);
+            return null;
+        }
+        return state;
+    }
+
+    private TemplateState templateState(String loggerName, String template) {
+        if (Objects.isNull(template)) {
+            return otherTemplate;
+        }
+        Map<String, TemplateState> loggerTemplates = templates.computeIfAbsent(loggerName, key -> new ConcurrentHashMap<>());
+        TemplateState state = loggerTemplates.get(template);
+        if (Objects.nonNull(state)) {
+            return state;
+        }
+        // the limit may be exceeded by a few concurrent writers, which is harmless
+        if (templateCount.get() >= MAX_TEMPLATES) {
+            return otherTemplate;
+        }
+        return loggerTemplates.computeIfAbsent(template, key -> {
+            templateCount.incrementAndGet();
+            return new TemplateState(templateID(loggerName, key), ratePerTemplate);
+        });
+    }
+
+    // String.hashCode is specified, so the id of a template never changes across processes
+    private static String templateID(String loggerName, String template) {
+        return Utils.escapeMetricsTagValue(String.format("%s_%08x", loggerName, template.hashCode()));
+    }
+
+    static class TemplateState {
+        private final MetricHandle kept;
+
+        private final MetricHandle sampled;
+
+        private final MetricHandle rateLimited;
+
+        private final MetricHandle bufferFull;
+
+        // GCRA, the theoretical arrival time of the next log in nanos, a log is kept if it
+        // is not more than burstToleranceNanos ahead of now
+        private final AtomicLong nextArrivalNanos = new AtomicLong(Long.MIN_VALUE);
+
+        private final long emissionIntervalNanos;
+
+        private final long burstToleranceNanos;
+
+        private TemplateState(String templateID, int ratePerSecond) {
+            String templateTag = "template:" + templateID;
+            this.kept = counterHandle(METRICS_KEY_METRICS_LOG_KEPT, templateTag);
+            this.sampled = counterHandle(METRICS_KEY_METRICS_LOG_DROPPED, templateTag, "reason:sampled");
+            this.rateLimited = counterHandle(METRICS_KEY_METRICS_LOG_DROPPED, templateTag, "reason:rate_limited");
+            this.bufferFull = counterHandle(METRICS_KEY_METRICS_LOG_DROPPED, templateTag, "reason:buffer_full");
+            this.emissionIntervalNanos = ratePerSecond > 0 ? 1_000_000_000L / ratePerSecond : 0;
+            this.burstToleranceNanos = emissionIntervalNanos * ratePerSecond;
+        }
+
+        private static MetricHandle counterHandle(String key, String... tagKvs) {
+            return new MetricHandle(METRICS_TYPE_COUNTER, key, true, tagKvs);
+        }
+
+        void onKept() {
+            kept.inc(1);
+        }
+
+        // the log is sampled but there is no room for it in the current report interval
+        void onBufferFull() {
+            bufferFull.inc(1);
+        }
+
+        private boolean tryAcquire() {
+            while (true) {
+                long now = System.nanoTime();
+                long arrival = nextArrivalNanos.get();
+                long next = Math.max(arrival, now) + emissionIntervalNanos;
+                if (next - now > burstToleranceNanos) {
+                    return false;
+                }
+                if (nextArrivalNanos.compareAndSet(arrival, next)) {
+                    return true;
+                }
+            }
+        }
+    }
+}
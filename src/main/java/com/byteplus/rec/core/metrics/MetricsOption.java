@@ -1,6 +1,8 @@
 package com.byteplus.rec.core.metrics;
 
 import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashSet;
 import java.util.Objects;
 
 public interface MetricsOption {
@@ -56,4 +58,51 @@ public interface MetricsOption {
             options.setHttpTimeout(timeout);
         };
     }
+
+    // metrics logs below the level are not reported, the default is trace
+    static MetricsOption withMetricsLogLevel(String level) {
+        return options -> {
+            if (Objects.nonNull(level) && !level.equals(""))
+                options.setMetricsLogLevel(level);
+        };
+    }
+
+    // metrics logs of these loggers are not reported
+    static MetricsOption disableMetricsLoggers(String... names) {
+        return options -> {
+            options.setDisabledMetricsLoggers(new HashSet<>(Arrays.asList(names)));
+        };
+    }
+
+    // metrics logs below warn are kept with the probability, which is in (0, 1]
+    static MetricsOption withMetricsLogSampleRate(double sampleRate) {
+        return options -> {
+            if (sampleRate > 0 && sampleRate <= 1)
+                options.setMetricsLogSampleRate(sampleRate);
+        };
+    }
+
+    // at most so many metrics logs below warn are kept per second for each message template,
+    // 0 or negative means unlimited, which is the default
+    static MetricsOption withMetricsLogRatePerTemplate(int ratePerTemplate) {
+        return options -> options.setMetricsLogRatePerTemplate(ratePerTemplate);
+    }
+
+    // metrics are also exported to these exporters, even if metrics are not reported to byteplus
+    static MetricsOption withMetricsExporters(MetricsExporter... exporters) {
+        return options -> {
+            options.setExporters(Arrays.asList(exporters));
+        };
+    }
+
+    // reports which fail to upload are kept in the directory and replayed once uploading recovers
+    static MetricsOption withMetricsSpool(String dir, long maxBytes, Duration maxAge) {
+        return options -> {
+            options.setSpoolDir(dir);
+            if (maxBytes > 0)
+                options.setSpoolMaxBytes(maxBytes);
+            if (Objects.nonNull(maxAge) && !maxAge.isZero())
+                options.setSpoolMaxAge(maxAge);
+        };
+    }
 }
@@ -1,81 +1,300 @@
 package com.byteplus.rec.core.metrics;
 
-import com.byteplus.rec.core.BizException;
-import com.byteplus.rec.core.metrics.protocol.ByteplusRecSdkMetrics.MetricMessage;
+import com.byteplus.rec.core.SdkRuntime;
+import com.byteplus.rec.core.metrics.protocol.ByteplusRecSdkMetrics.Metric;
+import com.byteplus.rec.core.metrics.protocol.ByteplusRecSdkMetrics.MetricLog;
 import com.byteplus.rec.core.metrics.protocol.ByteplusRecSdkMetrics.MetricLogMessage;
+import com.byteplus.rec.core.metrics.protocol.ByteplusRecSdkMetrics.MetricMessage;
+import com.google.protobuf.CodedOutputStream;
 import lombok.extern.slf4j.Slf4j;
 import okhttp3.*;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.zip.GZIPOutputStream;
+
 import com.byteplus.rec.core.metrics.MetricsCollector.MetricsCfg;
 import static com.byteplus.rec.core.metrics.Constant.*;
 
-
+// Uploads metrics and metrics logs without blocking the report task:
+// - a report is split into chunks of at most MAX_REPORT_CHUNK_SIZE bytes before compression
+// - chunks are gzip compressed if MetricsCfg.enableReportGzip is set
+// - at most MetricsCfg.maxConcurrentReports chunks are uploaded at the same time on SdkRuntime,
+//   the others wait in a queue of at most MAX_PENDING_REPORT_BYTES, the oldest ones are dropped first
+// - network errors, 429 and 5xx are retried with exponential backoff and jitter, up to MAX_TRY_TIMES
+// - if MetricsCfg.spoolDir is set, chunks failing all tries or dropped from the queue are kept in
+//   MetricsSpool, and replayed one by one in order after an upload succeeds again
+// Chunks keep the path they are reported to, the host is resolved by urlOf whenever they are sent,
+// so retried and replayed chunks follow host switches.
 @Slf4j
 public class MetricsReporter {
     private final OkHttpClient httpCli;
 
-    protected MetricsReporter(MetricsCfg metricsCfg) {
+    private final boolean gzip;
+
+    // path->url, with the host which is available now
+    private final Function<String, String> urlOf;
+
+    private final Semaphore uploadPermits;
+
+    private final Deque<Upload> pendingUploads = new ConcurrentLinkedDeque<>();
+
+    private final AtomicLong pendingBytes = new AtomicLong();
+
+    // null if spooling is not enabled
+    private final MetricsSpool spool;
+
+    // at most one spooled chunk is replayed at a time, to keep them in order
+    private final AtomicBoolean replaying = new AtomicBoolean(false);
+
+    protected MetricsReporter(MetricsCfg metricsCfg, Function<String, String> urlOf) {
         httpCli = new OkHttpClient.Builder()
                 .connectTimeout(metricsCfg.getHttpTimeout().toMillis(), TimeUnit.MILLISECONDS)
                 .writeTimeout(metricsCfg.getHttpTimeout().toMillis(), TimeUnit.MILLISECONDS)
                 .readTimeout(metricsCfg.getHttpTimeout().toMillis(), TimeUnit.MILLISECONDS)
                 .retryOnConnectionFailure(true)
                 .build();
+        gzip = metricsCfg.isEnableReportGzip();
+        this.urlOf = urlOf;
+        uploadPermits = new Semaphore(metricsCfg.getMaxConcurrentReports());
+        spool = newSpool(metricsCfg);
     }
 
-    protected void report(MetricMessage metricMessage, String url) throws BizException {
-        byte[] reqBodyBytes = metricMessage.toByteArray();
-        Headers headers = buildMetricsHeaders();
-        doRequest(url, reqBodyBytes, headers);
+    private static MetricsSpool newSpool(MetricsCfg metricsCfg) {
+        if (Objects.isNull(metricsCfg.getSpoolDir()) || metricsCfg.getSpoolDir().isEmpty()) {
+            return null;
+        }
+        try {
+            return new MetricsSpool(metricsCfg.getSpoolDir(), metricsCfg.getSpoolMaxBytes(), metricsCfg.getSpoolMaxAge());
+        } catch (IOException e) {
+            log.error("[BytePlusSDK][Metrics] open metrics spool fail, spooling is disabled, dir:{}, err:{}",
+                    metricsCfg.getSpoolDir(), e.toString());
+            return null;
+        }
     }
 
-    protected void report(MetricLogMessage metricLogMessage, String url) throws BizException {
-        byte[] reqBodyBytes = metricLogMessage.toByteArray();
-        Headers headers = buildMetricsHeaders();
-        doRequest(url, reqBodyBytes, headers);
+    protected void report(MetricMessage metricMessage, String path) {
+        for (List<Metric> chunk : split(metricMessage.getMetricsList(), Metric::getSerializedSize)) {
+            byte[] body = MetricMessage.newBuilder().addAllMetrics(chunk).build().toByteArray();
+            enqueue(new Upload(path, encode(body), chunk.size(), gzip, null));
+        }
+        drain();
     }
 
-    private void doRequest(String url, byte[] reqBodyBytes, Headers headers) throws BizException {
-        Request request = new Request.Builder()
-                .url(url)
-                .headers(headers)
-                .post(RequestBody.create(reqBodyBytes))
-                .build();
-        Response response = null;
-        for (int i = 0;; i++) {
-            try {
-                response = httpCli.newCall(request).execute();
-                if (response.code() == SUCCESS_HTTP_CODE) {
-                    return;
-                }
-                ResponseBody rspBody = response.body();
-                if (Objects.isNull(rspBody)) {
-                    throw new BizException("rsp body is null");
-                }
-                throw new BizException(String.format("do http request fail, code:%d, rsp:%s",
-                        response.code(), new String(rspBody.bytes())));
-            } catch (IOException e) {
-                if (!e.getMessage().toLowerCase().contains("timeout")) {
-                    throw new BizException(e.toString());
-                }
-                // timeout exception need retry
-                // not the last try time, retry
-                if (i == MAX_TRY_TIMES - 1) {
-                    throw new BizException(e.toString());
+    protected void report(MetricLogMessage metricLogMessage, String path) {
+        for (List<MetricLog> chunk : split(metricLogMessage.getMetricLogsList(), MetricLog::getSerializedSize)) {
+            byte[] body = MetricLogMessage.newBuilder().addAllMetricLogs(chunk).build().toByteArray();
+            enqueue(new Upload(path, encode(body), chunk.size(), gzip, null));
+        }
+        drain();
+    }
+
+    // splits items into chunks whose encoded size in a message is at most MAX_REPORT_CHUNK_SIZE,
+    // an item larger than that is sent alone
+    private static <T> List<List<T>> split(List<T> items, Function<T, Integer> sizeOf) {
+        List<List<T>> chunks = new ArrayList<>();
+        List<T> chunk = new ArrayList<>();
+        long chunkSize = 0;
+        for (T item : items) {
+            int itemSize = sizeOf.apply(item);
+            // field tag and length prefix of the repeated field
+            long encodedSize = 1 + CodedOutputStream.computeUInt32SizeNoTag(itemSize) + itemSize;
+            if (!chunk.isEmpty() && chunkSize + encodedSize > MAX_REPORT_CHUNK_SIZE) {
+                chunks.add(chunk);
+                chunk = new ArrayList<>();
+                chunkSize = 0;
+            }
+            chunk.add(item);
+            chunkSize += encodedSize;
+        }
+        if (!chunk.isEmpty()) {
+            chunks.add(chunk);
+        }
+        return chunks;
+    }
+
+    private byte[] encode(byte[] body) {
+        if (!gzip) {
+            return body;
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream(body.length / 4 + 64);
+        try (GZIPOutputStream gzipOut = new GZIPOutputStream(out)) {
+            gzipOut.write(body);
+        } catch (IOException e) {
+            // never happens with an in-memory stream
+            throw new IllegalStateException(e);
+        }
+        return out.toByteArray();
+    }
+
+    private void enqueue(Upload upload) {
+        pendingUploads.addLast(upload);
+        long total = pendingBytes.addAndGet(upload.body.length);
+        while (total > MAX_PENDING_REPORT_BYTES) {
+            Upload dropped = pendingUploads.pollFirst();
+            if (Objects.isNull(dropped)) {
+                break;
+            }
+            total = pendingBytes.addAndGet(-dropped.body.length);
+            onDropped(dropped, "queue_full");
+        }
+    }
+
+    // starts pending uploads while there are permits
+    private void drain() {
+        while (!pendingUploads.isEmpty() && uploadPermits.tryAcquire()) {
+            Upload upload = pendingUploads.pollFirst();
+            if (Objects.isNull(upload)) {
+                uploadPermits.release();
+                return;
+            }
+            pendingBytes.addAndGet(-upload.body.length);
+            Future<?> future = SdkRuntime.get().submit("metrics_upload", SdkRuntime.Workload.BLOCKING, () -> {
+                try {
+                    upload(upload);
+                } finally {
+                    uploadPermits.release();
+                    drain();
                 }
-            } finally {
-                if (response != null) response.close();
+            });
+            if (Objects.isNull(future)) {
+                // the io pool is saturated, try again with the next report
+                uploadPermits.release();
+                pendingUploads.addFirst(upload);
+                pendingBytes.addAndGet(upload.body.length);
+                return;
             }
         }
     }
 
-    private Headers buildMetricsHeaders() {
-        return new Headers.Builder()
-                .set("Content-Type", "application/x-protobuf")
-                .set("Accept", "application/json")
-                .build();
+    private void upload(Upload upload) {
+        upload.tryTimes++;
+        String url = urlOf.apply(upload.path);
+        Request.Builder builder = new Request.Builder()
+                .url(url)
+                .header("Content-Type", "application/x-protobuf")
+                .header("Accept", "application/json")
+                .post(RequestBody.create(upload.body));
+        if (upload.gzip) {
+            builder.header("Content-Encoding", "gzip");
+        }
+        String err;
+        boolean retryable;
+        try (Response response = httpCli.newCall(builder.build()).execute()) {
+            if (response.code() == SUCCESS_HTTP_CODE) {
+                onUploaded(upload);
+                return;
+            }
+            ResponseBody rspBody = response.body();
+            err = String.format("code:%d, rsp:%s", response.code(),
+                    Objects.isNull(rspBody) ? "" : rspBody.string());
+            retryable = response.code() == 429 || response.code() >= 500;
+        } catch (IOException e) {
+            err = e.toString();
+            retryable = true;
+        }
+        if (!retryable || upload.tryTimes >= MAX_TRY_TIMES) {
+            log.error("[BytePlusSDK][Metrics] report fail, try times:{}, url:{}, err:{}", upload.tryTimes, url, err);
+            onDropped(upload, retryable ? "retry_exhausted" : "rejected");
+            return;
+        }
+        Duration backoff = backoffOf(upload.tryTimes);
+        log.debug("[BytePlusSDK][Metrics] report fail, retry after {}ms, url:{}, err:{}", backoff.toMillis(), url, err);
+        // a retry rejected by a saturated pool or by shutdown is handled like one which failed all tries,
+        // so it is spooled or counted, and a replayed chunk hands over `replaying`
+        SdkRuntime.get().schedule("metrics_upload_retry", SdkRuntime.Workload.BLOCKING, () -> {
+            enqueue(upload);
+            drain();
+        }, backoff, () -> onDropped(upload, "retry_rejected"));
+    }
+
+    // full jitter, the upper bound doubles with every try
+    private static Duration backoffOf(int tryTimes) {
+        long maxMillis = Math.min(REPORT_RETRY_MAX_BACKOFF.toMillis(), REPORT_RETRY_BASE_BACKOFF.toMillis() << (tryTimes - 1));
+        return Duration.ofMillis(ThreadLocalRandom.current().nextLong(maxMillis / 2, maxMillis + 1));
+    }
+
+    private void onUploaded(Upload upload) {
+        if (Objects.isNull(spool)) {
+            return;
+        }
+        if (Objects.nonNull(upload.record)) {
+            spool.ack(upload.record);
+            replayNext();
+            return;
+        }
+        if (replaying.compareAndSet(false, true)) {
+            replayNext();
+        }
+    }
+
+    // only called by the owner of `replaying`
+    private void replayNext() {
+        MetricsSpool.Record record = spool.peek();
+        if (Objects.isNull(record)) {
+            replaying.set(false);
+            return;
+        }
+        enqueue(new Upload(record.path, record.body, record.itemCount, record.gzip, record));
+        drain();
+    }
+
+    private void onDropped(Upload upload, String reason) {
+        // a rejected chunk will never be accepted, so it is neither spooled nor kept in the spool
+        boolean rejected = "rejected".equals(reason);
+        if (Objects.nonNull(upload.record) && !rejected) {
+            // the chunk is still in the spool, replay it after the next success
+            replaying.set(false);
+            return;
+        }
+        if (Objects.nonNull(upload.record)) {
+            // go on with the next record, or the rejected one would block the spool forever
+            spool.ack(upload.record);
+            replayNext();
+        } else if (!rejected && Objects.nonNull(spool) &&
+                spool.append(upload.path, upload.body, upload.itemCount, upload.gzip)) {
+            return;
+        }
+        String[] metricsTags = new String[]{
+                "reason:" + reason
+        };
+        Metrics.counter(METRICS_KEY_REPORT_DROPPED, upload.itemCount, metricsTags);
+    }
+
+    private static class Upload {
+        private final String path;
+
+        private final byte[] body;
+
+        private final int itemCount;
+
+        private final boolean gzip;
+
+        // the spooled record it replays, null for a new chunk
+        private final MetricsSpool.Record record;
+
+        // only accessed by the thread running the upload
+        private int tryTimes;
+
+        private Upload(String path, byte[] body, int itemCount, boolean gzip, MetricsSpool.Record record) {
+            this.path = path;
+            this.body = body;
+            this.itemCount = itemCount;
+            this.gzip = gzip;
+            this.record = record;
+        }
     }
 }
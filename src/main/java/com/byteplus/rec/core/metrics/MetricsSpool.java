@@ -0,0 +1,381 @@
+package com.byteplus.rec.core.metrics;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.TreeMap;
+
+import static com.byteplus.rec.core.metrics.Constant.*;
+
+// Keeps report chunks which failed to upload on disk, so they can be replayed in order
+// once the endpoint recovers. The spool is a directory of append-only segment files,
+// each memory-mapped with a fixed size of SPOOL_SEGMENT_SIZE, and records are never moved:
+// - append writes a record at the end of the newest segment, or starts a new segment when it is full
+// - peek returns the oldest pending record, and ack marks it as consumed in place
+// - a segment is deleted once all its records are consumed and it is not the newest one
+// Records older than maxAge are dropped when they are peeked, and the oldest segments are
+// dropped when the spool grows beyond maxBytes, so disk usage stays bounded.
+// A segment is unmapped before it is deleted, otherwise the disk space is only freed once the
+// mapping is garbage collected, and Windows refuses to delete a mapped file at all.
+// The dir is locked by LOCK_FILE_NAME while the process runs, so two processes never share a spool.
+//
+// Record layout: int length of the record | byte state | byte gzip | long create time | int item count |
+// short path length | path | body. A zero length marks the end of the records in a segment.
+@Slf4j
+class MetricsSpool {
+    private static final String SEGMENT_SUFFIX = ".spool";
+
+    private static final String LOCK_FILE_NAME = "spool.lock";
+
+    private static final int STATE_OFFSET = 4;
+
+    private static final int GZIP_OFFSET = 5;
+
+    private static final int CREATE_TIME_OFFSET = 6;
+
+    private static final int ITEM_COUNT_OFFSET = 14;
+
+    private static final int PATH_LENGTH_OFFSET = 18;
+
+    private static final int RECORD_HEADER_SIZE = 20;
+
+    private static final byte STATE_PENDING = 0;
+
+    private static final byte STATE_CONSUMED = 1;
+
+    private final Clock clock = Clock.systemDefaultZone();
+
+    private final File dir;
+
+    private final long maxBytes;
+
+    private final Duration maxAge;
+
+    // segment sequence->segment, in the order they are written
+    private final TreeMap<Long, Segment> segments = new TreeMap<>();
+
+    // held until the process exits, never released explicitly
+    private final FileLock dirLock;
+
+    static class Record {
+        private final long sequence;
+
+        private final int offset;
+
+        final String path;
+
+        final byte[] body;
+
+        final int itemCount;
+
+        final boolean gzip;
+
+        private Record(long sequence, int offset, String path, byte[] body, int itemCount, boolean gzip) {
+            this.sequence = sequence;
+            this.offset = offset;
+            this.path = path;
+            this.body = body;
+            this.itemCount = itemCount;
+            this.gzip = gzip;
+        }
+    }
+
+    MetricsSpool(String dir, long maxBytes, Duration maxAge) throws IOException {
+        this.dir = new File(dir);
+        this.maxBytes = maxBytes;
+        this.maxAge = maxAge;
+        if (!this.dir.isDirectory() && !this.dir.mkdirs()) {
+            throw new IOException("cannot create metrics spool dir: " + dir);
+        }
+        dirLock = lockDir(this.dir);
+        File[] files = this.dir.listFiles((d, name) -> name.endsWith(SEGMENT_SUFFIX));
+        if (Objects.nonNull(files)) {
+            Arrays.sort(files);
+            for (File file : files) {
+                try {
+                    long sequence = Long.parseLong(file.getName().substring(0, file.getName().length() - SEGMENT_SUFFIX.length()));
+                    segments.put(sequence, new Segment(sequence, file));
+                } catch (NumberFormatException | IOException e) {
+                    log.warn("[ByteplusSDK] skip invalid metrics spool segment:{}, err:{}", file, e.toString());
+                }
+            }
+        }
+        removeConsumedSegments();
+    }
+
+    private static FileLock lockDir(File dir) throws IOException {
+        FileChannel channel = new RandomAccessFile(new File(dir, LOCK_FILE_NAME), "rw").getChannel();
+        FileLock lock;
+        try {
+            lock = channel.tryLock();
+        } catch (OverlappingFileLockException e) {
+            // locked by another spool in this process
+            lock = null;
+        }
+        if (Objects.isNull(lock)) {
+            channel.close();
+            throw new IOException("metrics spool dir is used by another spool: " + dir);
+        }
+        return lock;
+    }
+
+    // false if the record is larger than a segment or the spool is broken
+    synchronized boolean append(String path, byte[] body, int itemCount, boolean gzip) {
+        byte[] pathBytes = path.getBytes(StandardCharsets.UTF_8);
+        int length = RECORD_HEADER_SIZE + pathBytes.length + body.length;
+        // leave room for the end marker
+        if (length + 4 > SPOOL_SEGMENT_SIZE || pathBytes.length > Short.MAX_VALUE) {
+            return false;
+        }
+        try {
+            Segment segment = segments.isEmpty() ? null : segments.lastEntry().getValue();
+            if (Objects.isNull(segment) || segment.writeOffset + length + 4 > SPOOL_SEGMENT_SIZE) {
+                segment = newSegment();
+            }
+            segment.write(length, clock.millis(), itemCount, gzip, pathBytes, body);
+        } catch (IOException e) {
+            log.error("[ByteplusSDK] append metrics spool fail, err:{}", e.toString());
+            return false;
+        }
+        enforceMaxBytes();
+        return true;
+    }
+
+    // returns the oldest pending record, or null if there is none
+    synchronized Record peek() {
+        long expireTime = clock.millis() - maxAge.toMillis();
+        for (Segment segment : segments.values()) {
+            while (segment.readOffset < segment.writeOffset) {
+                int offset = segment.readOffset;
+                int length = segment.buffer.getInt(offset);
+                if (segment.buffer.get(offset + STATE_OFFSET) == STATE_PENDING) {
+                    if (segment.buffer.getLong(offset + CREATE_TIME_OFFSET) >= expireTime) {
+                        return segment.read(offset, length);
+                    }
+                    onDropped(segment.buffer.getInt(offset + ITEM_COUNT_OFFSET), "spool_expired");
+                    segment.buffer.put(offset + STATE_OFFSET, STATE_CONSUMED);
+                }
+                segment.readOffset += length;
+            }
+        }
+        removeConsumedSegments();
+        return null;
+    }
+
+    synchronized void ack(Record record) {
+        Segment segment = segments.get(record.sequence);
+        if (Objects.isNull(segment)) {
+            return;
+        }
+        segment.buffer.put(record.offset + STATE_OFFSET, STATE_CONSUMED);
+        if (segment.readOffset == record.offset) {
+            segment.readOffset += segment.buffer.getInt(record.offset);
+        }
+        removeConsumedSegments();
+    }
+
+    synchronized boolean isEmpty() {
+        for (Segment segment : segments.values()) {
+            if (segment.readOffset < segment.writeOffset) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private Segment newSegment() throws IOException {
+        long sequence = segments.isEmpty() ? clock.millis() : Math.max(clock.millis(), segments.lastKey() + 1);
+        Segment segment = new Segment(sequence, new File(dir, String.format("%020d%s", sequence, SEGMENT_SUFFIX)));
+        segments.put(sequence, segment);
+        return segment;
+    }
+
+    // drops the oldest segments until the spool fits in maxBytes, the newest one is always kept
+    private void enforceMaxBytes() {
+        while (segments.size() > 1 && (long) segments.size() * SPOOL_SEGMENT_SIZE > maxBytes) {
+            Segment oldest = segments.pollFirstEntry().getValue();
+            int dropped = 0;
+            for (int offset = oldest.readOffset; offset < oldest.writeOffset; offset += oldest.buffer.getInt(offset)) {
+                if (oldest.buffer.get(offset + STATE_OFFSET) == STATE_PENDING) {
+                    dropped += oldest.buffer.getInt(offset + ITEM_COUNT_OFFSET);
+                }
+            }
+            onDropped(dropped, "spool_full");
+            oldest.delete();
+        }
+    }
+
+    private void removeConsumedSegments() {
+        List<Long> consumed = new ArrayList<>();
+        for (Segment segment : segments.values()) {
+            if (segment == segments.lastEntry().getValue()) {
+                break;
+            }
+            if (segment.readOffset < segment.writeOffset) {
+                break;
+            }
+            consumed.add(segment.sequence);
+        }
+        for (Long sequence : consumed) {
+            segments.remove(sequence).delete();
+        }
+    }
+
+    private static void onDropped(int itemCount, String reason) {
+        if (itemCount <= 0) {
+            return;
+        }
+        String[] metricsTags = new String[]{
+                "reason:" + reason
+        };
+        Metrics.counter(METRICS_KEY_REPORT_DROPPED, itemCount, metricsTags);
+    }
+
+    private static class Segment {
+        private final long sequence;
+
+        private final File file;
+
+        private final MappedByteBuffer buffer;
+
+        private int writeOffset;
+
+        // records before it are all consumed
+        private int readOffset;
+
+        private Segment(long sequence, File file) throws IOException {
+            this.sequence = sequence;
+            this.file = file;
+            try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+                // the mapping stays valid after the channel is closed
+                buffer = raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, SPOOL_SEGMENT_SIZE);
+            }
+            // recover the offsets of an existing segment, a torn record at the end is dropped
+            int offset = 0;
+            while (offset + RECORD_HEADER_SIZE <= SPOOL_SEGMENT_SIZE) {
+                int length = buffer.getInt(offset);
+                if (length < RECORD_HEADER_SIZE || offset + length > SPOOL_SEGMENT_SIZE) {
+                    break;
+                }
+                offset += length;
+            }
+            writeOffset = offset;
+            while (readOffset < writeOffset && buffer.get(readOffset + STATE_OFFSET) == STATE_CONSUMED) {
+                readOffset += buffer.getInt(readOffset);
+            }
+        }
+
+        private void write(int length, long createTime, int itemCount, boolean gzip, byte[] path, byte[] body) {
+            ByteBuffer slice = buffer.duplicate();
+            ((Buffer) slice).position(writeOffset + STATE_OFFSET);
+            slice.put(STATE_PENDING)
+                    .put((byte) (gzip ? 1 : 0))
+                    .putLong(createTime)
+                    .putInt(itemCount)
+                    .putShort((short) path.length)
+                    .put(path)
+                    .put(body);
+            // terminate the records before publishing the length, so a crash never exposes a torn record
+            if (writeOffset + length + 4 <= SPOOL_SEGMENT_SIZE) {
+                buffer.putInt(writeOffset + length, 0);
+            }
+            buffer.putInt(writeOffset, length);
+            writeOffset += length;
+        }
+
+        private Record read(int offset, int length) {
+            int itemCount = buffer.getInt(offset + ITEM_COUNT_OFFSET);
+            boolean gzip = buffer.get(offset + GZIP_OFFSET) == 1;
+            int pathLength = buffer.getShort(offset + PATH_LENGTH_OFFSET);
+            ByteBuffer slice = buffer.duplicate();
+            ((Buffer) slice).position(offset + RECORD_HEADER_SIZE);
+            byte[] path = new byte[pathLength];
+            slice.get(path);
+            byte[] body = new byte[length - RECORD_HEADER_SIZE - pathLength];
+            slice.get(body);
+            return new Record(sequence, offset, new String(path, StandardCharsets.UTF_8), body, itemCount, gzip);
+        }
+
+        // the buffer must not be accessed any more, so the segment is removed from segments first
+        private void delete() {
+            Unmapper.unmap(buffer);
+            if (!file.delete()) {
+                log.warn("[ByteplusSDK] delete metrics spool segment fail:{}", file);
+            }
+        }
+    }
+
+    // MappedByteBuffer has no public way to unmap before Java 9+ exposes Unsafe.invokeCleaner,
+    // and Java 8 only has the cleaner of the buffer, so whichever exists is looked up once.
+    // If neither is usable the mapping is left to the garbage collector.
+    private static class Unmapper {
+        private static final Object unsafe;
+
+        private static final Method invokeCleaner;
+
+        private static final Method cleaner;
+
+        private static final Method clean;
+
+        static {
+            Object unsafeInstance = null;
+            Method invokeCleanerMethod = null;
+            Method cleanerMethod = null;
+            Method cleanMethod = null;
+            try {
+                Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+                Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+                theUnsafe.setAccessible(true);
+                unsafeInstance = theUnsafe.get(null);
+                invokeCleanerMethod = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+            } catch (Exception e) {
+                // Java 8
+                unsafeInstance = null;
+                invokeCleanerMethod = null;
+                try {
+                    cleanerMethod = Class.forName("sun.nio.ch.DirectBuffer").getMethod("cleaner");
+                    cleanMethod = Class.forName("sun.misc.Cleaner").getMethod("clean");
+                } catch (Exception ignored) {
+                    cleanerMethod = null;
+                    cleanMethod = null;
+                }
+            }
+            unsafe = unsafeInstance;
+            invokeCleaner = invokeCleanerMethod;
+            cleaner = cleanerMethod;
+            clean = cleanMethod;
+        }
+
+        private static void unmap(MappedByteBuffer buffer) {
+            try {
+                if (Objects.nonNull(invokeCleaner)) {
+                    invokeCleaner.invoke(unsafe, buffer);
+                } else if (Objects.nonNull(cleaner)) {
+                    Object bufferCleaner = cleaner.invoke(buffer);
+                    if (Objects.nonNull(bufferCleaner)) {
+                        clean.invoke(bufferCleaner);
+                    }
+                }
+            } catch (Exception e) {
+                log.warn("[ByteplusSDK] unmap metrics spool segment fail, err:{}", e.toString());
+            }
+        }
+    }
+}
@@ -0,0 +1,191 @@
+package com.byteplus.rec.core.metrics;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+// Serves the metrics in the Prometheus text format, e.g. http://localhost:9464/metrics
+// - counter, rate_counter and meter: counter `<name>_total`
+// - store: gauge `<name>`
+// - timer: summary `<name>` with the p50/p90/p99 of the last report interval, and the _sum and _count
+//   since the series is created
+// Names are sanitized, e.g. byteplus.rec.sdk.request.cost -> byteplus_rec_sdk_request_cost.
+// The page is rendered once per report interval, scrapes only write the rendered bytes.
+@Slf4j
+public class PrometheusExporter implements MetricsExporter {
+    private static final String DEFAULT_PATH = "/metrics";
+
+    private static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+    private static final double[] QUANTILES = {0.5, 0.9, 0.99};
+
+    private final HttpServer server;
+
+    private volatile byte[] page = new byte[0];
+
+    public PrometheusExporter(int port) throws IOException {
+        this(new InetSocketAddress(port), DEFAULT_PATH);
+    }
+
+    public PrometheusExporter(InetSocketAddress address, String path) throws IOException {
+        server = HttpServer.create(address, 0);
+        server.createContext(path, this::handle);
+        // the dispatcher thread of HttpServer inherits the daemon flag of the thread starting it,
+        // start it from a daemon thread so it never keeps the application alive
+        Thread starter = new Thread(server::start, "byteplus-sdk-prometheus-starter");
+        starter.setDaemon(true);
+        starter.start();
+        try {
+            starter.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            server.stop(0);
+            throw new IOException("interrupted when starting prometheus exporter");
+        }
+        log.info("[ByteplusSDK] prometheus exporter listens on {}{}", server.getAddress(), path);
+    }
+
+    public InetSocketAddress getAddress() {
+        return server.getAddress();
+    }
+
+    @Override
+    public void export(long timestamp, List<MetricPoint> points) {
+        // samples of a metric family must be adjacent
+        Map<String, List<MetricPoint>> families = new LinkedHashMap<>();
+        for (MetricPoint point : points) {
+            families.computeIfAbsent(sanitizeName(point.getName()) + " " + point.getType(),
+                    key -> new ArrayList<>()).add(point);
+        }
+        StringBuilder builder = new StringBuilder();
+        for (List<MetricPoint> family : families.values()) {
+            MetricPoint first = family.get(0);
+            String name = sanitizeName(first.getName());
+            switch (first.getType()) {
+                case Constant.METRICS_TYPE_STORE:
+                    builder.append("# TYPE ").append(name).append(" gauge\n");
+                    for (MetricPoint point : family) {
+                        appendSample(builder, name, point.getTags(), null, point.getTotal());
+                    }
+                    break;
+                case Constant.METRICS_TYPE_TIMER:
+                    builder.append("# TYPE ").append(name).append(" summary\n");
+                    for (MetricPoint point : family) {
+                        HistogramSnapshot histogram = point.getHistogram();
+                        for (double quantile : QUANTILES) {
+                            double value = Objects.isNull(histogram) ? Double.NaN : histogram.percentile(quantile);
+                            appendSample(builder, name, point.getTags(), String.valueOf(quantile), value);
+                        }
+                        appendSample(builder, name + "_sum", point.getTags(), null, point.getTotal());
+                        appendSample(builder, name + "_count", point.getTags(), null, point.getCount());
+                    }
+                    break;
+                default:
+                    builder.append("# TYPE ").append(name).append("_total counter\n");
+                    for (MetricPoint point : family) {
+                        appendSample(builder, name + "_total", point.getTags(), null, point.getTotal());
+                    }
+            }
+        }
+        page = builder.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static void appendSample(StringBuilder builder, String name, Map<String, String> tags,
+                                     String quantile, double value) {
+        builder.append(name);
+        if (!tags.isEmpty() || Objects.nonNull(quantile)) {
+            builder.append('{');
+            boolean first = true;
+            for (Map.Entry<String, String> tag : tags.entrySet()) {
+                if (!first) {
+                    builder.append(',');
+                }
+                first = false;
+                builder.append(sanitizeName(tag.getKey()).replace(':', '_')).append("=\"");
+                appendEscapedLabelValue(builder, tag.getValue());
+                builder.append('"');
+            }
+            if (Objects.nonNull(quantile)) {
+                if (!first) {
+                    builder.append(',');
+                }
+                builder.append("quantile=\"").append(quantile).append('"');
+            }
+            builder.append('}');
+        }
+        builder.append(' ').append(formatValue(value)).append('\n');
+    }
+
+    private static String sanitizeName(String name) {
+        StringBuilder builder = new StringBuilder(name.length() + 1);
+        if (name.isEmpty() || Character.isDigit(name.charAt(0))) {
+            builder.append('_');
+        }
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            boolean valid = (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') ||
+                    c == '_' || c == ':';
+            builder.append(valid ? c : '_');
+        }
+        return builder.toString();
+    }
+
+    private static void appendEscapedLabelValue(StringBuilder builder, String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '\\' || c == '"') {
+                builder.append('\\').append(c);
+            } else if (c == '\n') {
+                builder.append("\\n");
+            } else {
+                builder.append(c);
+            }
+        }
+    }
+
+    private static String formatValue(double value) {
+        if (Double.isNaN(value)) {
+            return "NaN";
+        }
+        if (value == Math.rint(value) && Math.abs(value) < 1e15) {
+            return String.valueOf((long) value);
+        }
+        return String.valueOf(value);
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            if (!"GET".equals(exchange.getRequestMethod()) && !"HEAD".equals(exchange.getRequestMethod())) {
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+            byte[] body = page;
+            exchange.getResponseHeaders().set("Content-Type", CONTENT_TYPE);
+            if ("HEAD".equals(exchange.getRequestMethod())) {
+                exchange.sendResponseHeaders(200, -1);
+                return;
+            }
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream output = exchange.getResponseBody()) {
+                output.write(body);
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+
+    @Override
+    public void shutdown() {
+        server.stop(0);
+    }
+}
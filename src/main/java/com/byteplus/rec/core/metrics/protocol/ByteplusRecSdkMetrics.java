@@ -87,6 +87,33 @@ public final class ByteplusRecSdkMetrics {
 
     java.lang.String getTagsOrThrow(
         java.lang.String key);
+
+    /**
+     * <pre>
+     * only set for timers, value is the average then
+     * </pre>
+     *
+     * <code>.byteplus.recommend.metric.Histogram histogram = 6;</code>
+     * @return Whether the histogram field is set.
+     */
+    boolean hasHistogram();
+    /**
+     * <pre>
+     * only set for timers, value is the average then
+     * </pre>
+     *
+     * <code>.byteplus.recommend.metric.Histogram histogram = 6;</code>
+     * @return The histogram.
+     */
+    com.byteplus.rec.core.metrics.protocol.ByteplusRecSdkMetrics.Histogram getHistogram();
+    /**
+     * <pre>
+     * only set for timers, value is the average then
+     * </pre>
+     *
+     * <code>.byteplus.recommend.metric.Histogram histogram = 6;</code>
+     */
+    com.byteplus.rec.core.metrics.protocol.ByteplusRecSdkMetrics.HistogramOrBuilder getHistogramOrBuilder();
   }
   /**
    * Protobuf type {@code byteplus.recommend.metric.Metric}
@@ -171,6 +198,19 @@ public final class ByteplusRecSdkMetrics {
                   tags__.getKey(), tags__.getValue());
               break;
             }
+            case 50: {
+              com.byteplus.rec.core.metrics.protocol.ByteplusRecSdkMetrics.Histogram.Builder subBuilder = null;
+              if (histogram_ != null) {
+                subBuilder = histogram_.toBuilder();
+              }
+              histogram_ = input.readMessage(com.byteplus.rec.core.metrics.protocol.ByteplusRecSdkMetrics.Histogram.parser(), extensionRegistry);
+              if (subBuilder != null) {
+                subBuilder.mergeFrom(histogram_);
+                histogram_ = subBuilder.buildPartial();
+              }
+
+              break;
+            }
             default: {
               if (!parseUnknownField(
                   input, unknownFields, extensionRegistry, tag)) {
@@ -346,7 +386,7 @@ public final class ByteplusRecSdkMetrics {
     @java.lang.Override
     public boolean containsTags(
         java.lang.String key) {
-      if (key == null) { throw new java.lang.NullPointerException(); }
+      if (key == null) { throw new NullPointerException("map key"); }
       return internalGetTags().getMap().containsKey(key);
     }
     /**
@@ -373,7 +413,7 @@ public final class ByteplusRecSdkMetrics {
     public java.lang.String getTagsOrDefault(
         java.lang.String key,
         java.lang.String defaultValue) {
-      if (key == null) { throw new java.lang.NullPointerException(); }
+      if (key == null) { throw new NullPointerException("map key"); }
       java.util.Map<java.lang.String, java.lang.String> map =
           internalGetTags().getMap();
       return map.containsKey(key) ? map.get(key) : defaultValue;
@@ -385,7 +425,7 @@ public final class ByteplusRecSdkMetrics {
 
     public java.lang.String getTagsOrThrow(
         java.lang.String key) {
-      if (key == null) { throw new java.lang.NullPointerException(); }
+      if (key == null) { throw new NullPointerException("map key"); }
       java.util.Map<java.lang.String, java.lang.String> map =
           internalGetTags().getMap();
       if (!map.containsKey(key)) {
@@ -394,6 +434,44 @@ public final class ByteplusRecSdkMetrics {
       return map.get(key);
     }
 
+    public static final int HISTOGRAM_FIELD_NUMBER = 6;
+    private com.byteplus.rec.core.metrics.protocol.ByteplusRecSdkMetrics.Histogram histogram_;
+    /**
+     * <pre>
+     * only set for timers, value is the average then
+     * </pre>
+     *
+     * <code>.byteplus.recommend.metric.Histogram histogram = 6;</code>
+     * @return Whether the histogram field is set.
+     */
+    @java.lang.Override
+    public boolean hasHistogram() {
+      return histogram_ != null;
+    }
+    /**
+     * <pre>
+     * only set for timers, value is the average then
+     * </pre>
+     *
+     * <code>.byteplus.recommend.metric.Histogram histogram = 6;</code>
+     * @return The histogram.
+     */
+    @java.lang.Override
+    public com.byteplus.rec.core.metrics.protocol.ByteplusRecSdkMetrics.Histogram getHistogram() {
+      return histogram_ == null ? com.byteplus.rec.core.metrics.protocol.ByteplusRecSdkMetrics.Histogram.getDefaultInstance() : histogram_;
+    }
+    /**
+     * <pre>
+     * only set for timers, value is the average then
+     * </pre>
+     *
+     * <code>.byteplus.recommend.metric.Histogram histogram = 6;</code>
+     */
+    @java.lang.Override
+    public com.byteplus.rec.core.metrics.protocol.ByteplusRecSdkMetrics.HistogramOrBuilder getHistogramOrBuilder() {
+      return getHistogram();
+    }
+
     private byte memoizedIsInitialized = -1;
     @java.lang.Override
     public final boolean isInitialized() {
@@ -408,16 +486,16 @@ public final class ByteplusRecSdkMetrics {
     @java.lang.Override
     public void writeTo(com.google.protobuf.CodedOutputStream output)
                         throws java.io.IOException {
-      if (!getNameBytes().isEmpty()) {
+      if (!com.google.protobuf.GeneratedMessageV3.isStringEmpty(name_)) {
         com.google.protobuf.GeneratedMessageV3.writeString(output, 1, name_);
       }
-      if (!getTypeBytes().isEmpty()) {
+      if (!com.google.protobuf.GeneratedMessageV3.isStringEmpty(type_)) {
         com.google.protobuf.GeneratedMessageV3.writeString(output, 2, type_);
       }
       if (timestamp_ != 0L) {
         output.writeInt64(3, timestamp_);
       }
-      if (value_ != 0D) {
+      if (java.lang.Double.doubleToRawLongBits(value_) != 0) {
         output.writeDouble(4, value_);
       }
       com.google.protobuf.GeneratedMessageV3
@@ -426,6 +504,9 @@ public final class ByteplusRecSdkMetrics {
           internalGetTags(),
           TagsDefaultEntryHolder.defaultEntry,
           5);
+      if (histogram_ != null) {
+        output.writeMessage(6, getHistogram());
+      }
       unknownFields.writeTo(output);
     }
 
@@ -435,17 +516,17 @@ public final class ByteplusRecSdkMetrics {
       if (size != -1) return size;
 
       size = 0;
-      if (!getNameBytes().isEmpty()) {
+      if (!com.google.protobuf.GeneratedMessageV3.isStringEmpty(name_)) {
         size += com.google.protobuf.GeneratedMessageV3.computeStringSize(1, name_);
       }
-      if (!getTypeBytes().isEmpty()) {
+      if (!com.google.protobuf.GeneratedMessageV3.isStringEmpty(type_)) {
         size += com.google.protobuf.GeneratedMessageV3.computeStringSize(2, type_);
       }
       if (timestamp_ != 0L) {
         size += com.google.protobuf.CodedOutputStream
           .computeInt64Size(3, timestamp_);
       }
-      if (value_ != 0D) {
+      if (java.lang.Double.doubleToRawLongBits(value_) != 0) {
         size += com.google.protobuf.CodedOutputStream
           .computeDoubleSize(4, value_);
       }
@@ -459,6 +540,10 @@ public final class ByteplusRecSdkMetrics {
         size += com.google.protobuf.CodedOutputStream
             .computeMessageSize(5, tags__);
       }
+      if (histogram_ != null) {
+        size += com.google.protobuf.CodedOutputStream
+          .computeMessageSize(6, getHistogram());
+      }
       size += unknownFields.getSerializedSize();
       memoizedSize = size;
       return size;
@@ -485,6 +570,11 @@ public final class ByteplusRecSdkMetrics {
               other.getValue())) return false;
       if (!internalGetTags().equals(
           other.internalGetTags())) return false;
+      if (hasHistogram() != other.hasHistogram()) return false;
+      if (hasHistogram()) {
+        if (!getHistogram()
+            .equals(other.getHistogram())) return false;
+      }
       if (!unknownFields.equals(other.unknownFields)) return false;
       return true;
     }
@@ -510,6 +600,10 @@ public final class ByteplusRecSdkMetrics {
         hash = (37 * hash) + TAGS_FIELD_NUMBER;
         hash = (53 * hash) + internalGetTags().hashCode();
       }
+      if (hasHistogram()) {
+        hash = (37 * hash) + HISTOGRAM_FIELD_NUMBER;
+        hash = (53 * hash) + getHistogram().hashCode();
+      }
       hash = (29 * hash) + unknownFields.hashCode();
       memoizedHashCode = hash;
       return hash;
@@ -674,6 +768,12 @@ public final class ByteplusRecSdkMetrics {
         value_ = 0D;
 
         internalGetMutableTags().clear();
+        if (histogramBuilder_ == null) {
+          histogram_ = null;
+        } else {
+          histogram_ = null;
+          histogramBuilder_ = null;
+        }
         return this;
       }
 
@@ -707,6 +807,11 @@ public final class ByteplusRecSdkMetrics {
         result.value_ = value_;
         result.tags_ = internalGetTags();
         result.tags_.makeImmutable();
+        if (histogramBuilder_ == null) {
+          result.histogram_ = histogram_;
+        } else {
+          result.histogram_ = histogramBuilder_.build();
+        }
         onBuilt();
         return result;
       }
@@ -771,6 +876,9 @@ public final class ByteplusRecSdkMetrics {
         }
         internalGetMutableTags().mergeFrom(
             other.internalGetTags());
+        if (other.hasHistogram()) {
+          mergeHistogram(other.getHistogram());
+        }
         this.mergeUnknownFields(other.unknownFields);
         onChanged();
         return this;
@@ -822,324 +930,1929 @@ public final class ByteplusRecSdkMetrics {
        * <code>string name = 1;</code>
        * @return The bytes for name.
        */
-      public com.google.protobuf.ByteString
-          getNameBytes() {
-        java.lang.Object ref = name_;
-        if (ref instanceof String) {
-          com.google.protobuf.ByteString b = 
-              com.google.protobuf.ByteString.copyFromUtf8(
-                  (java.lang.String) ref);
-          name_ = b;
-          return b;
-        } else {
-          return (com.google.protobuf.ByteString) ref;
-        }
+      public com.google.protobuf.ByteString
+          getNameBytes() {
+        java.lang.Object ref = name_;
+        if (ref instanceof String) {
+          com.google.protobuf.ByteString b = 
+              com.google.protobuf.ByteString.copyFromUtf8(
+                  (java.lang.String) ref);
+          name_ = b;
+          return b;
+        } else {
+          return (com.google.protobuf.ByteString) ref;
+        }
+      }
+      /**
+       * <code>string name = 1;</code>
+       * @param value The name to set.
+       * @return This builder for chaining.
+       */
+      public Builder setName(
+          java.lang.String value) {
+        if (value == null) {
+    throw new NullPointerException();
+  }
+  
+        name_ = value;
+        onChanged();
+        return this;
+      }
+      /**
+       * <code>string name = 1;</code>
+       * @return This builder for chaining.
+       */
+      public Builder clearName() {
+        
+        name_ = getDefaultInstance().getName();
+        onChanged();
+        return this;
+      }
+      /**
+       * <code>string name = 1;</code>
+       * @param value The bytes for name to set.
+       * @return This builder for chaining.
+       */
+      public Builder setNameBytes(
+          com.google.protobuf.ByteString value) {
+        if (value == null) {
+    throw new NullPointerException();
+  }
+  checkByteStringIsUtf8(value);
+        
+        name_ = value;
+        onChanged();
+        return this;
+      }
+
+      private java.lang.Object type_ = "";
+      /**
+       * <code>string type = 2;</code>
+       * @return The type.
+       */
+      public java.lang.String getType() {
+        java.lang.Object ref = type_;
+        if (!(ref instanceof java.lang.String)) {
+          com.google.protobuf.ByteString bs =
+              (com.google.protobuf.ByteString) ref;
+          java.lang.String s = bs.toStringUtf8();
+          type_ = s;
+          return s;
+        } else {
+          return (java.lang.String) ref;
+        }
+      }
+      /**
+       * <code>string type = 2;</code>
+       * @return The bytes for type.
+       */
+      public com.google.protobuf.ByteString
+          getTypeBytes() {
+        java.lang.Object ref = type_;
+        if (ref instanceof String) {
+          com.google.protobuf.ByteString b = 
+              com.google.protobuf.ByteString.copyFromUtf8(
+                  (java.lang.String) ref);
+          type_ = b;
+          return b;
+        } else {
+          return (com.google.protobuf.ByteString) ref;
+        }
+      }
+      /**
+       * <code>string type = 2;</code>
+       * @param value The type to set.
+       * @return This builder for chaining.
+       */
+      public Builder setType(
+          java.lang.String value) {
+        if (value == null) {
+    throw new NullPointerException();
+  }
+  
+        type_ = value;
+        onChanged();
+        return this;
+      }
+      /**
+       * <code>string type = 2;</code>
+       * @return This builder for chaining.
+       */
+      public Builder clearType() {
+        
+        type_ = getDefaultInstance().getType();
+        onChanged();
+        return this;
+      }
+      /**
+       * <code>string type = 2;</code>
+       * @param value The bytes for type to set.
+       * @return This builder for chaining.
+       */
+      public Builder setTypeBytes(
+          com.google.protobuf.ByteString value) {
+        if (value == null) {
+    throw new NullPointerException();
+  }
+  checkByteStringIsUtf8(value);
+        
+        type_ = value;
+        onChanged();
+        return this;
+      }
+
+      private long timestamp_ ;
+      /**
+       * <code>int64 timestamp = 3;</code>
+       * @return The timestamp.
+       */
+      @java.lang.Override
+      public long getTimestamp() {
+        return timestamp_;
+      }
+      /**
+       * <code>int64 timestamp = 3;</code>
+       * @param value The timestamp to set.
+       * @return This builder for chaining.
+       */
+      public Builder setTimestamp(long value) {
+        
+        timestamp_ = value;
+        onChanged();
+        return this;
+      }
+      /**
+       * <code>int64 timestamp = 3;</code>
+       * @return This builder for chaining.
+       */
+      public Builder clearTimestamp() {
+        
+        timestamp_ = 0L;
+        onChanged();
+        return this;
+      }
+
+      private double value_ ;
+      /**
+       * <code>double value = 4;</code>
+       * @return The value.
+       */
+      @java.lang.Override
+      public double getValue() {
+        return value_;
+      }
+      /**
+       * <code>double value = 4;</code>
+       * @param value The value to set.
+       * @return This builder for chaining.
+       */
+      public Builder setValue(double value) {
+        
+        value_ = value;
+        onChanged();
+        return this;
+      }
+      /**
+       * <code>double value = 4;</code>
+       * @return This builder for chaining.
+       */
+      public Builder clearValue() {
+        
+        value_ = 0D;
+        onChanged();
+        return this;
+      }
+
+      private com.google.protobuf.MapField<
+          java.lang.String, java.lang.String> tags_;
+      private com.google.protobuf.MapField<java.lang.String, java.lang.String>
+      internalGetTags() {
+        if (tags_ == null) {
+          return com.google.protobuf.MapField.emptyMapField(
+              TagsDefaultEntryHolder.defaultEntry);
+        }
+        return tags_;
+      }
+      private com.google.protobuf.MapField<java.lang.String, java.lang.String>
+      internalGetMutableTags() {
+        onChanged();;
+        if (tags_ == null) {
+          tags_ = com.google.protobuf.MapField.newMapField(
+              TagsDefaultEntryHolder.defaultEntry);
+        }
+        if (!tags_.isMutable()) {
+          tags_ = tags_.copy();
+        }
+        return tags_;
+      }
+
+      public int getTagsCount() {
+        return internalGetTags().getMap().size();
+      }
+      /**
+       * <code>map&lt;string, string&gt; tags = 5;</code>
+       */
+
+      @java.lang.Override
+      public boolean containsTags(
+          java.lang.String key) {
+        if (key == null) { throw new NullPointerException("map key"); }
+        return internalGetTags().getMap().containsKey(key);
+      }
+      /**
+       * Use {@link #getTagsMap()} instead.
+       */
+      @java.lang.Override
+      @java.lang.Deprecated
+      public java.util.Map<java.lang.String, java.lang.String> getTags() {
+        return getTagsMap();
+      }
+      /**
+       * <code>map&lt;string, string&gt; tags = 5;</code>
+       */
+      @java.lang.Override
+
+      public java.util.Map<java.lang.String, java.lang.String> getTagsMap() {
+        return internalGetTags().getMap();
+      }
+      /**
+       * <code>map&lt;string, string&gt; tags = 5;</code>
+       */
+      @java.lang.Override
+
+      public java.lang.String getTagsOrDefault(
+          java.lang.String key,
+          java.lang.String defaultValue) {
+        if (key == null) { throw new NullPointerException("map key"); }
+        java.util.Map<java.lang.String, java.lang.String> map =
+            internalGetTags().getMap();
+        return map.containsKey(key) ? map.get(key) : defaultValue;
+      }
+      /**
+       * <code>map&lt;string, string&gt; tags = 5;</code>
+       */
+      @java.lang.Override
+
+      public java.lang.String getTagsOrThrow(
+          java.lang.String key) {
+        if (key == null) { throw new NullPointerException("map key"); }
+        java.util.Map<java.lang.String, java.lang.String> map =
+            internalGetTags().getMap();
+        if (!map.containsKey(key)) {
+          throw new java.lang.IllegalArgumentException();
+        }
+        return map.get(key);
+      }
+
+      public Builder clearTags() {
+        internalGetMutableTags().getMutableMap()
+            .clear();
+        return this;
+      }
+      /**
+       * <code>map&lt;string, string&gt; tags = 5;</code>
+       */
+
+      public Builder removeTags(
+          java.lang.String key) {
+        if (key == null) { throw new NullPointerException("map key"); }
+        internalGetMutableTags().getMutableMap()
+            .remove(key);
+        return this;
+      }
+      /**
+       * Use alternate mutation accessors instead.
+       */
+      @java.lang.Deprecated
+      public java.util.Map<java.lang.String, java.lang.String>
+      getMutableTags() {
+        return internalGetMutableTags().getMutableMap();
+      }
+      /**
+       * <code>map&lt;string, string&gt; tags = 5;</code>
+       */
+      public Builder putTags(
+          java.lang.String key,
+          java.lang.String value) {
+        if (key == null) { throw new NullPointerException("map key"); }
+        if (value == null) {
+  throw new NullPointerException("map value");
+}
+
+        internalGetMutableTags().getMutableMap()
+            .put(key, value);
+        return this;
+      }
+      /**
+       * <code>map&lt;string, string&gt; tags = 5;</code>
+       */
+
+      public Builder putAllTags(
+          java.util.Map<java.lang.String, java.lang.String> values) {
+        internalGetMutableTags().getMutableMap()
+            .putAll(values);
+        return this;
+      }
+
+      private com.byteplus.rec.core.metrics.protocol.ByteplusRecSdkMetrics.Histogram histogram_;
+      private com.google.protobuf.SingleFieldBuilderV3<
+          com.byteplus.rec.core.metrics.protocol.ByteplusRecSdkMetrics.Histogram, com.byteplus.rec.core.metrics.protocol.ByteplusRecSdkMetrics.Histogram.Builder, com.byteplus.rec.core.metrics.protocol.ByteplusRecSdkMetrics.HistogramOrBuilder> histogramBuilder_;
+      /**
+       * <pre>
+       * only set for timers, value is the average then
+       * </pre>
+       *
+       * <code>.byteplus.recommend.metric.Histogram histogram = 6;</code>
+       * @return Whether the histogram field is set.
+       */
+      public boolean hasHistogram() {
+        return histogramBuilder_ != null || histogram_ != null;
+      }
+      /**
+       * <pre>
+       * only set for timers, value is the average then
+       * </pre>
+       *
+       * <code>.byteplus.recommend.metric.Histogram histogram = 6;</code>
+       * @return The histogram.
+       */
+      public com.byteplus.rec.core.metrics.protocol.ByteplusRecSdkMetrics.Histogram getHistogram() {
+        if (histogramBuilder_ == null) {
+          return histogram_ == null ? com.byteplus.rec.core.metrics.protocol.ByteplusRecSdkMetrics.Histogram.getDefaultInstance() : histogram_;
+        } else {
+          return histogramBuilder_.getMessage();
+        }
+      }
+      /**
+       * <pre>
+       * only set for timers, value is the average then
+       * </pre>
+       *
+       * <code>.byteplus.recommend.metric.Histogram histogram = 6;</code>
+       */
+      public Builder setHistogram(com.byteplus.rec.core.metrics.protocol.ByteplusRecSdkMetrics.Histogram value) {
+        if (histogramBuilder_ == null) {
+          if (value == null) {
+            throw new NullPointerException();
+          }
+          histogram_ = value;
+          onChanged();
+        } else {
+          histogramBuilder_.setMessage(value);
+        }
+
+        return this;
+      }
+      /**
+       * <pre>
+       * only set for timers, value is the average then
+       * </pre>
+       *
+       * <code>.byteplus.recommend.metric.Histogram histogram = 6;</code>
+       */
+      public Builder setHistogram(
+          com.byteplus.rec.core.metrics.protocol.ByteplusRecSdkMetrics.Histogram.Builder builderForValue) {
+        if (histogramBuilder_ == null) {
+          histogram_ = builderForValue.build();
+          onChanged();
+        } else {
+          histogramBuilder_.setMessage(builderForValue.build());
+        }
+
+        return this;
+      }
+      /**
+       * <pre>
+       * only set for timers, value is the average then
+       * </pre>
+       *
+       * <code>.byteplus.recommend.metric.Histogram histogram = 6;</code>
+       */
+      public Builder mergeHistogram(com.byteplus.rec.core.metrics.protocol.ByteplusRecSdkMetrics.Histogram value) {
+        if (histogramBuilder_ == null) {
+          if (histogram_ != null) {
+            histogram_ =
+              com.byteplus.rec.core.metrics.protocol.ByteplusRecSdkMetrics.Histogram.newBuilder(histogram_).mergeFrom(value).buildPartial();
+          } else {
+            histogram_ = value;
+          }
+          onChanged();
+        } else {
+          histogramBuilder_.mergeFrom(value);
+        }
+
+        return this;
+      }
+      /**
+       * <pre>
+       * only set for timers, value is the average then
+       * </pre>
+       *
+       * <code>.byteplus.recommend.metric.Histogram histogram = 6;</code>
+       */
+      public Builder clearHistogram() {
+        if (histogramBuilder_ == null) {
+          histogram_ = null;
+          onChanged();
+        } else {
+          histogram_ = null;
+          histogramBuilder_ = null;
+        }
+
+        return this;
+      }
+      /**
+       * <pre>
+       * only set for timers, value is the average then
+       * </pre>
+       *
+       * <code>.byteplus.recommend.metric.Histogram histogram = 6;</code>
+       */
+      public com.byteplus.rec.core.metrics.protocol.ByteplusRecSdkMetrics.Histogram.Builder getHistogramBuilder() {
+        
+        onChanged();
+        return getHistogramFieldBuilder().getBuilder();
+      }
+      /**
+       * <pre>
+       * only set for timers, value is the average then
+       * </pre>
+       *
+       * <code>.byteplus.recommend.metric.Histogram histogram = 6;</code>
+       */
+      public com.byteplus.rec.core.metrics.protocol.ByteplusRecSdkMetrics.HistogramOrBuilder getHistogramOrBuilder() {
+        if (histogramBuilder_ != null) {
+          return histogramBuilder_.getMessageOrBuilder();
+        } else {
+          return histogram_ == null ?
+              com.byteplus.rec.core.metrics.protocol.ByteplusRecSdkMetrics.Histogram.getDefaultInstance() : histogram_;
+        }
+      }
+      /**
+       * <pre>
+       * only set for timers, value is the average then
+       * </pre>
+       *
+       * <code>.byteplus.recommend.metric.Histogram histogram = 6;</code>
+       */
+      private com.google.protobuf.SingleFieldBuilderV3<
+          com.byteplus.rec.core.metrics.protocol.ByteplusRecSdkMetrics.Histogram, com.byteplus.rec.core.metrics.protocol.ByteplusRecSdkMetrics.Histogram.Builder, com.byteplus.rec.core.metrics.protocol.ByteplusRecSdkMetrics.HistogramOrBuilder> 
+          getHistogramFieldBuilder() {
+        if (histogramBuilder_ == null) {
+          histogramBuilder_ = new com.google.protobuf.SingleFieldBuilderV3<
+              com.byteplus.rec.core.metrics.protocol.ByteplusRecSdkMetrics.Histogram, com.byteplus.rec.core.metrics.protocol.ByteplusRecSdkMetrics.Histogram.Builder, com.byteplus.rec.core.metrics.protocol.ByteplusRecSdkMetrics.HistogramOrBuilder>(
+                  getHistogram(),
+                  getParentForChildren(),
+                  isClean());
+          histogram_ = null;
+        }
+        return histogramBuilder_;
+      }
+      @java.lang.Override
+      public final Builder setUnknownFields(
+          final com.google.protobuf.UnknownFieldSet unknownFields) {
+        return super.setUnknownFields(unknownFields);
+      }
+
+      @java.lang.Override
+      public final Builder mergeUnknownFields(
+          final com.google.protobuf.UnknownFieldSet unknownFields) {
+        return super.mergeUnknownFields(unknownFields);
+      }
+
+
+      // @@protoc_insertion_point(builder_scope:byteplus.recommend.metric.Metric)
+    }
+
+    // @@protoc_insertion_point(class_scope:byteplus.recommend.metric.Metric)
+    private static final com.byteplus.rec.core.metrics.protocol.ByteplusRecSdkMetrics.Metric DEFAULT_INSTANCE;
+    static {
+      DEFAULT_INSTANCE = new com.byteplus.rec.core.metrics.protocol.ByteplusRecSdkMetrics.Metric();
+    }
+
+    public static com.byteplus.rec.core.metrics.protocol.ByteplusRecSdkMetrics.Metric getDefaultInstance() {
+      return DEFAULT_INSTANCE;
+    }
+
+    private static final com.google.protobuf.Parser<Metric>
+        PARSER = new com.google.protobuf.AbstractParser<Metric>() {
+      @java.lang.Override
+      public Metric parsePartialFrom(
+          com.google.protobuf.CodedInputStream input,
+          com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+          throws com.google.protobuf.InvalidProtocolBufferException {
+        return new Metric(input, extensionRegistry);
+      }
+    };
+
+    public static com.google.protobuf.Parser<Metric> parser() {
+      return PARSER;
+    }
+
+    @java.lang.Override
+    public com.google.protobuf.Parser<Metric> getParserForType() {
+      return PARSER;
+    }
+
+    @java.lang.Override
+    public com.byteplus.rec.core.metrics.protocol.ByteplusRecSdkMetrics.Metric getDefaultInstanceForType() {
+      return DEFAULT_INSTANCE;
+    }
+
+  }
+
+  public interface HistogramOrBuilder extends
+      // @@protoc_insertion_point(interface_extends:byteplus.recommend.metric.Histogram)
+      com.google.protobuf.MessageOrBuilder {
+
+    /**
+     * <code>int32 sub_bucket_bits = 1;</code>
+     * @return The subBucketBits.
+     */
+    int getSubBucketBits();
+
+    /**
+     * <pre>
+     * non-empty buckets only, bucket_counts[i] is the count of bucket bucket_indexes[i]
+     * </pre>
+     *
+     * <code>repeated int32 bucket_indexes = 2;</code>
+     * @return A list containing the bucketIndexes.
+     */
+    java.util.List<java.lang.Integer> getBucketIndexesList();
+    /**
+     * <pre>
+     * non-empty buckets only, bucket_counts[i] is the count of bucket bucket_indexes[i]
+     * </pre>
+     *
+     * <code>repeated int32 bucket_indexes = 2;</code>
+     * @return The count of bucketIndexes.
+     */
+    int getBucketIndexesCount();
+    /**
+     * <pre>
+     * non-empty buckets only, bucket_counts[i] is the count of bucket bucket_indexes[i]
+     * </pre>
+     *
+     * <code>repeated int32 bucket_indexes = 2;</code>
+     * @param index The index of the element to return.
+     * @return The bucketIndexes at the given index.
+     */
+    int getBucketIndexes(int index);
+
+    /**
+     * <code>repeated int64 bucket_counts = 3;</code>
+     * @return A list containing the bucketCounts.
+     */
+    java.util.List<java.lang.Long> getBucketCountsList();
+    /**
+     * <code>repeated int64 bucket_counts = 3;</code>
+     * @return The count of bucketCounts.
+     */
+    int getBucketCountsCount();
+    /**
+     * <code>repeated int64 bucket_counts = 3;</code>
+     * @param index The index of the element to return.
+     * @return The bucketCounts at the given index.
+     */
+    long getBucketCounts(int index);
+
+    /**
+     * <code>int64 count = 4;</code>
+     * @return The count.
+     */
+    long getCount();
+
+    /**
+     * <code>double sum = 5;</code>
+     * @return The sum.
+     */
+    double getSum();
+
+    /**
+     * <code>double min = 6;</code>
+     * @return The min.
+     */
+    double getMin();
+
+    /**
+     * <code>double max = 7;</code>
+     * @return The max.
+     */
+    double getMax();
+
+    /**
+     * <code>double p50 = 8;</code>
+     * @return The p50.
+     */
+    double getP50();
+
+    /**
+     * <code>double p90 = 9;</code>
+     * @return The p90.
+     */
+    double getP90();
+
+    /**
+     * <code>double p99 = 10;</code>
+     * @return The p99.
+     */
+    double getP99();
+  }
+  /**
+   * <pre>
+   * Log-linear histogram of the values in one report interval, histograms with the same
+   * sub_bucket_bits merge by adding the counts of the same bucket indexes.
+   * Bucket i &lt; 2^sub_bucket_bits holds exactly value i, every following power of two range
+   * is split into 2^sub_bucket_bits buckets of equal width.
+   * </pre>
+   *
+   * Protobuf type {@code byteplus.recommend.metric.Histogram}
+   */
+  public static final class Histogram extends
+      com.google.protobuf.GeneratedMessageV3 implements
+      // @@protoc_insertion_point(message_implements:byteplus.recommend.metric.Histogram)
+      HistogramOrBuilder {
+  private static final long serialVersionUID = 0L;
+    // Use Histogram.newBuilder() to construct.
+    private Histogram(com.google.protobuf.GeneratedMessageV3.Builder<?> builder) {
+      super(builder);
+    }
+    private Histogram() {
+      bucketIndexes_ = emptyIntList();
+      bucketCounts_ = emptyLongList();
+    }
+
+    @java.lang.Override
+    @SuppressWarnings({"unused"})
+    protected java.lang.Object newInstance(
+        UnusedPrivateParameter unused) {
+      return new Histogram();
+    }
+
+    @java.lang.Override
+    public final com.google.protobuf.UnknownFieldSet
+    getUnknownFields() {
+      return this.unknownFields;
+    }
+    private Histogram(
+        com.google.protobuf.CodedInputStream input,
+        com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+        throws com.google.protobuf.InvalidProtocolBufferException {
+      this();
+      if (extensionRegistry == null) {
+        throw new java.lang.NullPointerException();
+      }
+      int mutable_bitField0_ = 0;
+      com.google.protobuf.UnknownFieldSet.Builder unknownFields =
+          com.google.protobuf.UnknownFieldSet.newBuilder();
+      try {
+        boolean done = false;
+        while (!done) {
+          int tag = input.readTag();
+          switch (tag) {
+            case 0:
+              done = true;
+              break;
+            case 8: {
+
+              subBucketBits_ = input.readInt32();
+              break;
+            }
+            case 16: {
+              if (!((mutable_bitField0_ & 0x00000001) != 0)) {
+                bucketIndexes_ = newIntList();
+                mutable_bitField0_ |= 0x00000001;
+              }
+              bucketIndexes_.addInt(input.readInt32());
+              break;
+            }
+            case 18: {
+              int length = input.readRawVarint32();
+              int limit = input.pushLimit(length);
+              if (!((mutable_bitField0_ & 0x00000001) != 0) && input.getBytesUntilLimit() > 0) {
+                bucketIndexes_ = newIntList();
+                mutable_bitField0_ |= 0x00000001;
+              }
+              while (input.getBytesUntilLimit() > 0) {
+                bucketIndexes_.addInt(input.readInt32());
+              }
+              input.popLimit(limit);
+              break;
+            }
+            case 24: {
+              if (!((mutable_bitField0_ & 0x00000002) != 0)) {
+                bucketCounts_ = newLongList();
+                mutable_bitField0_ |= 0x00000002;
+              }
+              bucketCounts_.addLong(input.readInt64());
+              break;
+            }
+            case 26: {
+              int length = input.readRawVarint32();
+              int limit = input.pushLimit(length);
+              if (!((mutable_bitField0_ & 0x00000002) != 0) && input.getBytesUntilLimit() > 0) {
+                bucketCounts_ = newLongList();
+                mutable_bitField0_ |= 0x00000002;
+              }
+              while (input.getBytesUntilLimit() > 0) {
+                bucketCounts_.addLong(input.readInt64());
+              }
+              input.popLimit(limit);
+              break;
+            }
+            case 32: {
+
+              count_ = input.readInt64();
+              break;
+            }
+            case 41: {
+
+              sum_ = input.readDouble();
+              break;
+            }
+            case 49: {
+
+              min_ = input.readDouble();
+              break;
+            }
+            case 57: {
+
+              max_ = input.readDouble();
+              break;
+            }
+            case 65: {
+
+              p50_ = input.readDouble();
+              break;
+            }
+            case 73: {
+
+              p90_ = input.readDouble();
+              break;
+            }
+            case 81: {
+
+              p99_ = input.readDouble();
+              break;
+            }
+            default: {
+              if (!parseUnknownField(
+                  input, unknownFields, extensionRegistry, tag)) {
+                done = true;
+              }
+              break;
+            }
+          }
+        }
+      } catch (com.google.protobuf.InvalidProtocolBufferException e) {
+        throw e.setUnfinishedMessage(this);
+      } catch (java.io.IOException e) {
+        throw new com.google.protobuf.InvalidProtocolBufferException(
+            e).setUnfinishedMessage(this);
+      } finally {
+        if (((mutable_bitField0_ & 0x00000001) != 0)) {
+          bucketIndexes_.makeImmutable(); // C
+        }
+        if (((mutable_bitField0_ & 0x00000002) != 0)) {
+          bucketCounts_.makeImmutable(); // C
+        }
+        this.unknownFields = unknownFields.build();
+        makeExtensionsImmutable();
+      }
+    }
+    public static final com.google.protobuf.Descriptors.Descriptor
+        getDescriptor() {
+      return com.byteplus.rec.core.metrics.protocol.ByteplusRecSdkMetrics.internal_static_byteplus_recommend_metric_Histogram_descriptor;
+    }
+
+    @java.lang.Override
+    protected com.google.protobuf.GeneratedMessageV3.FieldAccessorTable
+        internalGetFieldAccessorTable() {
+      return com.byteplus.rec.core.metrics.protocol.ByteplusRecSdkMetrics.internal_static_byteplus_recommend_metric_Histogram_fieldAccessorTable
+          .ensureFieldAccessorsInitialized(
+              com.byteplus.rec.core.metrics.protocol.ByteplusRecSdkMetrics.Histogram.class, com.byteplus.rec.core.metrics.protocol.ByteplusRecSdkMetrics.Histogram.Builder.class);
+    }
+
+    public static final int SUB_BUCKET_BITS_FIELD_NUMBER = 1;
+    private int subBucketBits_;
+    /**
+     * <code>int32 sub_bucket_bits = 1;</code>
+     * @return The subBucketBits.
+     */
+    @java.lang.Override
+    public int getSubBucketBits() {
+      return subBucketBits_;
+    }
+
+    public static final int BUCKET_INDEXES_FIELD_NUMBER = 2;
+    private com.google.protobuf.Internal.IntList bucketIndexes_;
+    /**
+     * <pre>
+     * non-empty buckets only, bucket_counts[i] is the count of bucket bucket_indexes[i]
+     * </pre>
+     *
+     * <code>repeated int32 bucket_indexes = 2;</code>
+     * @return A list containing the bucketIndexes.
+     */
+    @java.lang.Override
+    public java.util.List<java.lang.Integer>
+        getBucketIndexesList() {
+      return bucketIndexes_;
+    }
+    /**
+     * <pre>
+     * non-empty buckets only, bucket_counts[i] is the count of bucket bucket_indexes[i]
+     * </pre>
+     *
+     * <code>repeated int32 bucket_indexes = 2;</code>
+     * @return The count of bucketIndexes.
+     */
+    public int getBucketIndexesCount() {
+      return bucketIndexes_.size();
+    }
+    /**
+     * <pre>
+     * non-empty buckets only, bucket_counts[i] is the count of bucket bucket_indexes[i]
+     * </pre>
+     *
+     * <code>repeated int32 bucket_indexes = 2;</code>
+     * @param index The index of the element to return.
+     * @return The bucketIndexes at the given index.
+     */
+    public int getBucketIndexes(int index) {
+      return bucketIndexes_.getInt(index);
+    }
+    private int bucketIndexesMemoizedSerializedSize = -1;
+
+    public static final int BUCKET_COUNTS_FIELD_NUMBER = 3;
+    private com.google.protobuf.Internal.LongList bucketCounts_;
+    /**
+     * <code>repeated int64 bucket_counts = 3;</code>
+     * @return A list containing the bucketCounts.
+     */
+    @java.lang.Override
+    public java.util.List<java.lang.Long>
+        getBucketCountsList() {
+      return bucketCounts_;
+    }
+    /**
+     * <code>repeated int64 bucket_counts = 3;</code>
+     * @return The count of bucketCounts.
+     */
+    public int getBucketCountsCount() {
+      return bucketCounts_.size();
+    }
+    /**
+     * <code>repeated int64 bucket_counts = 3;</code>
+     * @param index The index of the element to return.
+     * @return The bucketCounts at the given index.
+     */
+    public long getBucketCounts(int index) {
+      return bucketCounts_.getLong(index);
+    }
+    private int bucketCountsMemoizedSerializedSize = -1;
+
+    public static final int COUNT_FIELD_NUMBER = 4;
+    private long count_;
+    /**
+     * <code>int64 count = 4;</code>
+     * @return The count.
+     */
+    @java.lang.Override
+    public long getCount() {
+      return count_;
+    }
+
+    public static final int SUM_FIELD_NUMBER = 5;
+    private double sum_;
+    /**
+     * <code>double sum = 5;</code>
+     * @return The sum.
+     */
+    @java.lang.Override
+    public double getSum() {
+      return sum_;
+    }
+
+    public static final int MIN_FIELD_NUMBER = 6;
+    private double min_;
+    /**
+     * <code>double min = 6;</code>
+     * @return The min.
+     */
+    @java.lang.Override
+    public double getMin() {
+      return min_;
+    }
+
+    public static final int MAX_FIELD_NUMBER = 7;
+    private double max_;
+    /**
+     * <code>double max = 7;</code>
+     * @return The max.
+     */
+    @java.lang.Override
+    public double getMax() {
+      return max_;
+    }
+
+    public static final int P50_FIELD_NUMBER = 8;
+    private double p50_;
+    /**
+     * <code>double p50 = 8;</code>
+     * @return The p50.
+     */
+    @java.lang.Override
+    public double getP50() {
+      return p50_;
+    }
+
+    public static final int P90_FIELD_NUMBER = 9;
+    private double p90_;
+    /**
+     * <code>double p90 = 9;</code>
+     * @return The p90.
+     */
+    @java.lang.Override
+    public double getP90() {
+      return p90_;
+    }
+
+    public static final int P99_FIELD_NUMBER = 10;
+    private double p99_;
+    /**
+     * <code>double p99 = 10;</code>
+     * @return The p99.
+     */
+    @java.lang.Override
+    public double getP99() {
+      return p99_;
+    }
+
+    private byte memoizedIsInitialized = -1;
+    @java.lang.Override
+    public final boolean isInitialized() {
+      byte isInitialized = memoizedIsInitialized;
+      if (isInitialized == 1) return true;
+      if (isInitialized == 0) return false;
+
+      memoizedIsInitialized = 1;
+      return true;
+    }
+
+    @java.lang.Override
+    public void writeTo(com.google.protobuf.CodedOutputStream output)
+                        throws java.io.IOException {
+      getSerializedSize();
+      if (subBucketBits_ != 0) {
+        output.writeInt32(1, subBucketBits_);
+      }
+      if (getBucketIndexesList().size() > 0) {
+        output.writeUInt32NoTag(18);
+        output.writeUInt32NoTag(bucketIndexesMemoizedSerializedSize);
+      }
+      for (int i = 0; i < bucketIndexes_.size(); i++) {
+        output.writeInt32NoTag(bucketIndexes_.getInt(i));
+      }
+      if (getBucketCountsList().size() > 0) {
+        output.writeUInt32NoTag(26);
+        output.writeUInt32NoTag(bucketCountsMemoizedSerializedSize);
+      }
+      for (int i = 0; i < bucketCounts_.size(); i++) {
+        output.writeInt64NoTag(bucketCounts_.getLong(i));
+      }
+      if (count_ != 0L) {
+        output.writeInt64(4, count_);
+      }
+      if (java.lang.Double.doubleToRawLongBits(sum_) != 0) {
+        output.writeDouble(5, sum_);
+      }
+      if (java.lang.Double.doubleToRawLongBits(min_) != 0) {
+        output.writeDouble(6, min_);
+      }
+      if (java.lang.Double.doubleToRawLongBits(max_) != 0) {
+        output.writeDouble(7, max_);
+      }
+      if (java.lang.Double.doubleToRawLongBits(p50_) != 0) {
+        output.writeDouble(8, p50_);
+      }
+      if (java.lang.Double.doubleToRawLongBits(p90_) != 0) {
+        output.writeDouble(9, p90_);
+      }
+      if (java.lang.Double.doubleToRawLongBits(p99_) != 0) {
+        output.writeDouble(10, p99_);
+      }
+      unknownFields.writeTo(output);
+    }
+
+    @java.lang.Override
+    public int getSerializedSize() {
+      int size = memoizedSize;
+      if (size != -1) return size;
+
+      size = 0;
+      if (subBucketBits_ != 0) {
+        size += com.google.protobuf.CodedOutputStream
+          .computeInt32Size(1, subBucketBits_);
+      }
+      {
+        int dataSize = 0;
+        for (int i = 0; i < bucketIndexes_.size(); i++) {
+          dataSize += com.google.protobuf.CodedOutputStream
+            .computeInt32SizeNoTag(bucketIndexes_.getInt(i));
+        }
+        size += dataSize;
+        if (!getBucketIndexesList().isEmpty()) {
+          size += 1;
+          size += com.google.protobuf.CodedOutputStream
+              .computeInt32SizeNoTag(dataSize);
+        }
+        bucketIndexesMemoizedSerializedSize = dataSize;
+      }
+      {
+        int dataSize = 0;
+        for (int i = 0; i < bucketCounts_.size(); i++) {
+          dataSize += com.google.protobuf.CodedOutputStream
+            .computeInt64SizeNoTag(bucketCounts_.getLong(i));
+        }
+        size += dataSize;
+        if (!getBucketCountsList().isEmpty()) {
+          size += 1;
+          size += com.google.protobuf.CodedOutputStream
+              .computeInt32SizeNoTag(dataSize);
+        }
+        bucketCountsMemoizedSerializedSize = dataSize;
+      }
+      if (count_ != 0L) {
+        size += com.google.protobuf.CodedOutputStream
+          .computeInt64Size(4, count_);
+      }
+      if (java.lang.Double.doubleToRawLongBits(sum_) != 0) {
+        size += com.google.protobuf.CodedOutputStream
+          .computeDoubleSize(5, sum_);
+      }
+      if (java.lang.Double.doubleToRawLongBits(min_) != 0) {
+        size += com.google.protobuf.CodedOutputStream
+          .computeDoubleSize(6, min_);
+      }
+      if (java.lang.Double.doubleToRawLongBits(max_) != 0) {
+        size += com.google.protobuf.CodedOutputStream
+          .computeDoubleSize(7, max_);
+      }
+      if (java.lang.Double.doubleToRawLongBits(p50_) != 0) {
+        size += com.google.protobuf.CodedOutputStream
+          .computeDoubleSize(8, p50_);
+      }
+      if (java.lang.Double.doubleToRawLongBits(p90_) != 0) {
+        size += com.google.protobuf.CodedOutputStream
+          .computeDoubleSize(9, p90_);
+      }
+      if (java.lang.Double.doubleToRawLongBits(p99_) != 0) {
+        size += com.google.protobuf.CodedOutputStream
+          .computeDoubleSize(10, p99_);
+      }
+      size += unknownFields.getSerializedSize();
+      memoizedSize = size;
+      return size;
+    }
+
+    @java.lang.Override
+    public boolean equals(final java.lang.Object obj) {
+      if (obj == this) {
+       return true;
+      }
+      if (!(obj instanceof com.byteplus.rec.core.metrics.protocol.ByteplusRecSdkMetrics.Histogram)) {
+        return super.equals(obj);
+      }
+      com.byteplus.rec.core.metrics.protocol.ByteplusRecSdkMetrics.Histogram other = (com.byteplus.rec.core.metrics.protocol.ByteplusRecSdkMetrics.Histogram) obj;
+
+      if (getSubBucketBits()
+          != other.getSubBucketBits()) return false;
+      if (!getBucketIndexesList()
+          .equals(other.getBucketIndexesList())) return false;
+      if (!getBucketCountsList()
+          .equals(other.getBucketCountsList())) return false;
+      if (getCount()
+          != other.getCount()) return false;
+      if (java.lang.Double.doubleToLongBits(getSum())
+          != java.lang.Double.doubleToLongBits(
+              other.getSum())) return false;
+      if (java.lang.Double.doubleToLongBits(getMin())
+          != java.lang.Double.doubleToLongBits(
+              other.getMin())) return false;
+      if (java.lang.Double.doubleToLongBits(getMax())
+          != java.lang.Double.doubleToLongBits(
+              other.getMax())) return false;
+      if (java.lang.Double.doubleToLongBits(getP50())
+          != java.lang.Double.doubleToLongBits(
+              other.getP50())) return false;
+      if (java.lang.Double.doubleToLongBits(getP90())
+          != java.lang.Double.doubleToLongBits(
+              other.getP90())) return false;
+      if (java.lang.Double.doubleToLongBits(getP99())
+          != java.lang.Double.doubleToLongBits(
+              other.getP99())) return false;
+      if (!unknownFields.equals(other.unknownFields)) return false;
+      return true;
+    }
+
+    @java.lang.Override
+    public int hashCode() {
+      if (memoizedHashCode != 0) {
+        return memoizedHashCode;
+      }
+      int hash = 41;
+      hash = (19 * hash) + getDescriptor().hashCode();
+      hash = (37 * hash) + SUB_BUCKET_BITS_FIELD_NUMBER;
+      hash = (53 * hash) + getSubBucketBits();
+      if (getBucketIndexesCount() > 0) {
+        hash = (37 * hash) + BUCKET_INDEXES_FIELD_NUMBER;
+        hash = (53 * hash) + getBucketIndexesList().hashCode();
+      }
+      if (getBucketCountsCount() > 0) {
+        hash = (37 * hash) + BUCKET_COUNTS_FIELD_NUMBER;
+        hash = (53 * hash) + getBucketCountsList().hashCode();
+      }
+      hash = (37 * hash) + COUNT_FIELD_NUMBER;
+      hash = (53 * hash) + com.google.protobuf.Internal.hashLong(
+          getCount());
+      hash = (37 * hash) + SUM_FIELD_NUMBER;
+      hash = (53 * hash) + com.google.protobuf.Internal.hashLong(
+          java.lang.Double.doubleToLongBits(getSum()));
+      hash = (37 * hash) + MIN_FIELD_NUMBER;
+      hash = (53 * hash) + com.google.protobuf.Internal.hashLong(
+          java.lang.Double.doubleToLongBits(getMin()));
+      hash = (37 * hash) + MAX_FIELD_NUMBER;
+      hash = (53 * hash) + com.google.protobuf.Internal.hashLong(
+          java.lang.Double.doubleToLongBits(getMax()));
+      hash = (37 * hash) + P50_FIELD_NUMBER;
+      hash = (53 * hash) + com.google.protobuf.Internal.hashLong(
+          java.lang.Double.doubleToLongBits(getP50()));
+      hash = (37 * hash) + P90_FIELD_NUMBER;
+      hash = (53 * hash) + com.google.protobuf.Internal.hashLong(
+          java.lang.Double.doubleToLongBits(getP90()));
+      hash = (37 * hash) + P99_FIELD_NUMBER;
+      hash = (53 * hash) + com.google.protobuf.Internal.hashLong(
+          java.lang.Double.doubleToLongBits(getP99()));
+      hash = (29 * hash) + unknownFields.hashCode();
+      memoizedHashCode = hash;
+      return hash;
+    }
+
+    public static com.byteplus.rec.core.metrics.protocol.ByteplusRecSdkMetrics.Histogram parseFrom(
+        java.nio.ByteBuffer data)
+        throws com.google.protobuf.InvalidProtocolBufferException {
+      return PARSER.parseFrom(data);
+    }
+    public static com.byteplus.rec.core.metrics.protocol.ByteplusRecSdkMetrics.Histogram parseFrom(
+        java.nio.ByteBuffer data,
+        com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+        throws com.google.protobuf.InvalidProtocolBufferException {
+      return PARSER.parseFrom(data, extensionRegistry);
+    }
+    public static com.byteplus.rec.core.metrics.protocol.ByteplusRecSdkMetrics.Histogram parseFrom(
+        com.google.protobuf.ByteString data)
+        throws com.google.protobuf.InvalidProtocolBufferException {
+      return PARSER.parseFrom(data);
+    }
+    public static com.byteplus.rec.core.metrics.protocol.ByteplusRecSdkMetrics.Histogram parseFrom(
+        com.google.protobuf.ByteString data,
+        com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+        throws com.google.protobuf.InvalidProtocolBufferException {
+      return PARSER.parseFrom(data, extensionRegistry);
+    }
+    public static com.byteplus.rec.core.metrics.protocol.ByteplusRecSdkMetrics.Histogram parseFrom(byte[] data)
+        throws com.google.protobuf.InvalidProtocolBufferException {
+      return PARSER.parseFrom(data);
+    }
+    public static com.byteplus.rec.core.metrics.protocol.ByteplusRecSdkMetrics.Histogram parseFrom(
+        byte[] data,
+        com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+        throws com.google.protobuf.InvalidProtocolBufferException {
+      return PARSER.parseFrom(data, extensionRegistry);
+    }
+    public static com.byteplus.rec.core.metrics.protocol.ByteplusRecSdkMetrics.Histogram parseFrom(java.io.InputStream input)
+        throws java.io.IOException {
+      return com.google.protobuf.GeneratedMessageV3
+          .parseWithIOException(PARSER, input);
+    }
+    public static com.byteplus.rec.core.metrics.protocol.ByteplusRecSdkMetrics.Histogram parseFrom(
+        java.io.InputStream input,
+        com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+        throws java.io.IOException {
+      return com.google.protobuf.GeneratedMessageV3
+          .parseWithIOException(PARSER, input, extensionRegistry);
+    }
+    public static com.byteplus.rec.core.metrics.protocol.ByteplusRecSdkMetrics.Histogram parseDelimitedFrom(java.io.InputStream input)
+        throws java.io.IOException {
+      return com.google.protobuf.GeneratedMessageV3
+          .parseDelimitedWithIOException(PARSER, input);
+    }
+    public static com.byteplus.rec.core.metrics.protocol.ByteplusRecSdkMetrics.Histogram parseDelimitedFrom(
+        java.io.InputStream input,
+        com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+        throws java.io.IOException {
+      return com.google.protobuf.GeneratedMessageV3
+          .parseDelimitedWithIOException(PARSER, input, extensionRegistry);
+    }
+    public static com.byteplus.rec.core.metrics.protocol.ByteplusRecSdkMetrics.Histogram parseFrom(
+        com.google.protobuf.CodedInputStream input)
+        throws java.io.IOException {
+      return com.google.protobuf.GeneratedMessageV3
+          .parseWithIOException(PARSER, input);
+    }
+    public static com.byteplus.rec.core.metrics.protocol.ByteplusRecSdkMetrics.Histogram parseFrom(
+        com.google.protobuf.CodedInputStream input,
+        com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+        throws java.io.IOException {
+      return com.google.protobuf.GeneratedMessageV3
+          .parseWithIOException(PARSER, input, extensionRegistry);
+    }
+
+    @java.lang.Override
+    public Builder newBuilderForType() { return newBuilder(); }
+    public static Builder newBuilder() {
+      return DEFAULT_INSTANCE.toBuilder();
+    }
+    public static Builder newBuilder(com.byteplus.rec.core.metrics.protocol.ByteplusRecSdkMetrics.Histogram prototype) {
+      return DEFAULT_INSTANCE.toBuilder().mergeFrom(prototype);
+    }
+    @java.lang.Override
+    public Builder toBuilder() {
+      return this == DEFAULT_INSTANCE
+          ? new Builder() : new Builder().mergeFrom(this);
+    }
+
+    @java.lang.Override
+    protected Builder newBuilderForType(
+        com.google.protobuf.GeneratedMessageV3.BuilderParent parent) {
+      Builder builder = new Builder(parent);
+      return builder;
+    }
+    /**
+     * <pre>
+     * Log-linear histogram of the values in one report interval, histograms with the same
+     * sub_bucket_bits merge by adding the counts of the same bucket indexes.
+     * Bucket i &lt; 2^sub_bucket_bits holds exactly value i, every following power of two range
+     * is split into 2^sub_bucket_bits buckets of equal width.
+     * </pre>
+     *
+     * Protobuf type {@code byteplus.recommend.metric.Histogram}
+     */
+    public static final class Builder extends
+        com.google.protobuf.GeneratedMessageV3.Builder<Builder> implements
+        // @@protoc_insertion_point(builder_implements:byteplus.recommend.metric.Histogram)
+        com.byteplus.rec.core.metrics.protocol.ByteplusRecSdkMetrics.HistogramOrBuilder {
+      public static final com.google.protobuf.Descriptors.Descriptor
+          getDescriptor() {
+        return com.byteplus.rec.core.metrics.protocol.ByteplusRecSdkMetrics.internal_static_byteplus_recommend_metric_Histogram_descriptor;
+      }
+
+      @java.lang.Override
+      protected com.google.protobuf.GeneratedMessageV3.FieldAccessorTable
+          internalGetFieldAccessorTable() {
+        return com.byteplus.rec.core.metrics.protocol.ByteplusRecSdkMetrics.internal_static_byteplus_recommend_metric_Histogram_fieldAccessorTable
+            .ensureFieldAccessorsInitialized(
+                com.byteplus.rec.core.metrics.protocol.ByteplusRecSdkMetrics.Histogram.class, com.byteplus.rec.core.metrics.protocol.ByteplusRecSdkMetrics.Histogram.Builder.class);
+      }
+
+      // Construct using com.byteplus.rec.core.metrics.protocol.ByteplusRecSdkMetrics.Histogram.newBuilder()
+      private Builder() {
+        maybeForceBuilderInitialization();
+      }
+
+      private Builder(
+          com.google.protobuf.GeneratedMessageV3.BuilderParent parent) {
+        super(parent);
+        maybeForceBuilderInitialization();
+      }
+      private void maybeForceBuilderInitialization() {
+        if (com.google.protobuf.GeneratedMessageV3
+                .alwaysUseFieldBuilders) {
+        }
+      }
+      @java.lang.Override
+      public Builder clear() {
+        super.clear();
+        subBucketBits_ = 0;
+
+        bucketIndexes_ = emptyIntList();
+        bitField0_ = (bitField0_ & ~0x00000001);
+        bucketCounts_ = emptyLongList();
+        bitField0_ = (bitField0_ & ~0x00000002);
+        count_ = 0L;
+
+        sum_ = 0D;
+
+        min_ = 0D;
+
+        max_ = 0D;
+
+        p50_ = 0D;
+
+        p90_ = 0D;
+
+        p99_ = 0D;
+
+        return this;
+      }
+
+      @java.lang.Override
+      public com.google.protobuf.Descriptors.Descriptor
+          getDescriptorForType() {
+        return com.byteplus.rec.core.metrics.protocol.ByteplusRecSdkMetrics.internal_static_byteplus_recommend_metric_Histogram_descriptor;
+      }
+
+      @java.lang.Override
+      public com.byteplus.rec.core.metrics.protocol.ByteplusRecSdkMetrics.Histogram getDefaultInstanceForType() {
+        return com.byteplus.rec.core.metrics.protocol.ByteplusRecSdkMetrics.Histogram.getDefaultInstance();
+      }
+
+      @java.lang.Override
+      public com.byteplus.rec.core.metrics.protocol.ByteplusRecSdkMetrics.Histogram build() {
+        com.byteplus.rec.core.metrics.protocol.ByteplusRecSdkMetrics.Histogram result = buildPartial();
+        if (!result.isInitialized()) {
+          throw newUninitializedMessageException(result);
+        }
+        return result;
+      }
+
+      @java.lang.Override
+      public com.byteplus.rec.core.metrics.protocol.ByteplusRecSdkMetrics.Histogram buildPartial() {
+        com.byteplus.rec.core.metrics.protocol.ByteplusRecSdkMetrics.Histogram result = new com.byteplus.rec.core.metrics.protocol.ByteplusRecSdkMetrics.Histogram(this);
+        int from_bitField0_ = bitField0_;
+        result.subBucketBits_ = subBucketBits_;
+        if (((bitField0_ & 0x00000001) != 0)) {
+          bucketIndexes_.makeImmutable();
+          bitField0_ = (bitField0_ & ~0x00000001);
+        }
+        result.bucketIndexes_ = bucketIndexes_;
+        if (((bitField0_ & 0x00000002) != 0)) {
+          bucketCounts_.makeImmutable();
+          bitField0_ = (bitField0_ & ~0x00000002);
+        }
+        result.bucketCounts_ = bucketCounts_;
+        result.count_ = count_;
+        result.sum_ = sum_;
+        result.min_ = min_;
+        result.max_ = max_;
+        result.p50_ = p50_;
+        result.p90_ = p90_;
+        result.p99_ = p99_;
+        onBuilt();
+        return result;
+      }
+
+      @java.lang.Override
+      public Builder clone() {
+        return super.clone();
+      }
+      @java.lang.Override
+      public Builder setField(
+          com.google.protobuf.Descriptors.FieldDescriptor field,
+          java.lang.Object value) {
+        return super.setField(field, value);
+      }
+      @java.lang.Override
+      public Builder clearField(
+          com.google.protobuf.Descriptors.FieldDescriptor field) {
+        return super.clearField(field);
+      }
+      @java.lang.Override
+      public Builder clearOneof(
+          com.google.protobuf.Descriptors.OneofDescriptor oneof) {
+        return super.clearOneof(oneof);
+      }
+      @java.lang.Override
+      public Builder setRepeatedField(
+          com.google.protobuf.Descriptors.FieldDescriptor field,
+          int index, java.lang.Object value) {
+        return super.setRepeatedField(field, index, value);
+      }
+      @java.lang.Override
+      public Builder addRepeatedField(
+          com.google.protobuf.Descriptors.FieldDescriptor field,
+          java.lang.Object value) {
+        return super.addRepeatedField(field, value);
+      }
+      @java.lang.Override
+      public Builder mergeFrom(com.google.protobuf.Message other) {
+        if (other instanceof com.byteplus.rec.core.metrics.protocol.ByteplusRecSdkMetrics.Histogram) {
+          return mergeFrom((com.byteplus.rec.core.metrics.protocol.ByteplusRecSdkMetrics.Histogram)other);
+        } else {
+          super.mergeFrom(other);
+          return this;
+        }
+      }
+
+      public Builder mergeFrom(com.byteplus.rec.core.metrics.protocol.ByteplusRecSdkMetrics.Histogram other) {
+        if (other == com.byteplus.rec.core.metrics.protocol.ByteplusRecSdkMetrics.Histogram.getDefaultInstance()) return this;
+        if (other.getSubBucketBits() != 0) {
+          setSubBucketBits(other.getSubBucketBits());
+        }
+        if (!other.bucketIndexes_.isEmpty()) {
+          if (bucketIndexes_.isEmpty()) {
+            bucketIndexes_ = other.bucketIndexes_;
+            bitField0_ = (bitField0_ & ~0x00000001);
+          } else {
+            ensureBucketIndexesIsMutable();
+            bucketIndexes_.addAll(other.bucketIndexes_);
+          }
+          onChanged();
+        }
+        if (!other.bucketCounts_.isEmpty()) {
+          if (bucketCounts_.isEmpty()) {
+            bucketCounts_ = other.bucketCounts_;
+            bitField0_ = (bitField0_ & ~0x00000002);
+          } else {
+            ensureBucketCountsIsMutable();
+            bucketCounts_.addAll(other.bucketCounts_);
+          }
+          onChanged();
+        }
+        if (other.getCount() != 0L) {
+          setCount(other.getCount());
+        }
+        if (other.getSum() != 0D) {
+          setSum(other.getSum());
+        }
+        if (other.getMin() != 0D) {
+          setMin(other.getMin());
+        }
+        if (other.getMax() != 0D) {
+          setMax(other.getMax());
+        }
+        if (other.getP50() != 0D) {
+          setP50(other.getP50());
+        }
+        if (other.getP90() != 0D) {
+          setP90(other.getP90());
+        }
+        if (other.getP99() != 0D) {
+          setP99(other.getP99());
+        }
+        this.mergeUnknownFields(other.unknownFields);
+        onChanged();
+        return this;
+      }
+
+      @java.lang.Override
+      public final boolean isInitialized() {
+        return true;
+      }
+
+      @java.lang.Override
+      public Builder mergeFrom(
+          com.google.protobuf.CodedInputStream input,
+          com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+          throws java.io.IOException {
+        com.byteplus.rec.core.metrics.protocol.ByteplusRecSdkMetrics.Histogram parsedMessage = null;
+        try {
+          parsedMessage = PARSER.parsePartialFrom(input, extensionRegistry);
+        } catch (com.google.protobuf.InvalidProtocolBufferException e) {
+          parsedMessage = (com.byteplus.rec.core.metrics.protocol.ByteplusRecSdkMetrics.Histogram) e.getUnfinishedMessage();
+          throw e.unwrapIOException();
+        } finally {
+          if (parsedMessage != null) {
+            mergeFrom(parsedMessage);
+          }
+        }
+        return this;
+      }
+      private int bitField0_;
+
+      private int subBucketBits_ ;
+      /**
+       * <code>int32 sub_bucket_bits = 1;</code>
+       * @return The subBucketBits.
+       */
+      @java.lang.Override
+      public int getSubBucketBits() {
+        return subBucketBits_;
+      }
+      /**
+       * <code>int32 sub_bucket_bits = 1;</code>
+       * @param value The subBucketBits to set.
+       * @return This builder for chaining.
+       */
+      public Builder setSubBucketBits(int value) {
+        
+        subBucketBits_ = value;
+        onChanged();
+        return this;
+      }
+      /**
+       * <code>int32 sub_bucket_bits = 1;</code>
+       * @return This builder for chaining.
+       */
+      public Builder clearSubBucketBits() {
+        
+        subBucketBits_ = 0;
+        onChanged();
+        return this;
+      }
+
+      private com.google.protobuf.Internal.IntList bucketIndexes_ = emptyIntList();
+      private void ensureBucketIndexesIsMutable() {
+        if (!((bitField0_ & 0x00000001) != 0)) {
+          bucketIndexes_ = mutableCopy(bucketIndexes_);
+          bitField0_ |= 0x00000001;
+         }
+      }
+      /**
+       * <pre>
+       * non-empty buckets only, bucket_counts[i] is the count of bucket bucket_indexes[i]
+       * </pre>
+       *
+       * <code>repeated int32 bucket_indexes = 2;</code>
+       * @return A list containing the bucketIndexes.
+       */
+      public java.util.List<java.lang.Integer>
+          getBucketIndexesList() {
+        return ((bitField0_ & 0x00000001) != 0) ?
+                 java.util.Collections.unmodifiableList(bucketIndexes_) : bucketIndexes_;
+      }
+      /**
+       * <pre>
+       * non-empty buckets only, bucket_counts[i] is the count of bucket bucket_indexes[i]
+       * </pre>
+       *
+       * <code>repeated int32 bucket_indexes = 2;</code>
+       * @return The count of bucketIndexes.
+       */
+      public int getBucketIndexesCount() {
+        return bucketIndexes_.size();
+      }
+      /**
+       * <pre>
+       * non-empty buckets only, bucket_counts[i] is the count of bucket bucket_indexes[i]
+       * </pre>
+       *
+       * <code>repeated int32 bucket_indexes = 2;</code>
+       * @param index The index of the element to return.
+       * @return The bucketIndexes at the given index.
+       */
+      public int getBucketIndexes(int index) {
+        return bucketIndexes_.getInt(index);
+      }
+      /**
+       * <pre>
+       * non-empty buckets only, bucket_counts[i] is the count of bucket bucket_indexes[i]
+       * </pre>
+       *
+       * <code>repeated int32 bucket_indexes = 2;</code>
+       * @param index The index to set the value at.
+       * @param value The bucketIndexes to set.
+       * @return This builder for chaining.
+       */
+      public Builder setBucketIndexes(
+          int index, int value) {
+        ensureBucketIndexesIsMutable();
+        bucketIndexes_.setInt(index, value);
+        onChanged();
+        return this;
+      }
+      /**
+       * <pre>
+       * non-empty buckets only, bucket_counts[i] is the count of bucket bucket_indexes[i]
+       * </pre>
+       *
+       * <code>repeated int32 bucket_indexes = 2;</code>
+       * @param value The bucketIndexes to add.
+       * @return This builder for chaining.
+       */
+      public Builder addBucketIndexes(int value) {
+        ensureBucketIndexesIsMutable();
+        bucketIndexes_.addInt(value);
+        onChanged();
+        return this;
+      }
+      /**
+       * <pre>
+       * non-empty buckets only, bucket_counts[i] is the count of bucket bucket_indexes[i]
+       * </pre>
+       *
+       * <code>repeated int32 bucket_indexes = 2;</code>
+       * @param values The bucketIndexes to add.
+       * @return This builder for chaining.
+       */
+      public Builder addAllBucketIndexes(
+          java.lang.Iterable<? extends java.lang.Integer> values) {
+        ensureBucketIndexesIsMutable();
+        com.google.protobuf.AbstractMessageLite.Builder.addAll(
+            values, bucketIndexes_);
+        onChanged();
+        return this;
+      }
+      /**
+       * <pre>
+       * non-empty buckets only, bucket_counts[i] is the count of bucket bucket_indexes[i]
+       * </pre>
+       *
+       * <code>repeated int32 bucket_indexes = 2;</code>
+       * @return This builder for chaining.
+       */
+      public Builder clearBucketIndexes() {
+        bucketIndexes_ = emptyIntList();
+        bitField0_ = (bitField0_ & ~0x00000001);
+        onChanged();
+        return this;
+      }
+
+      private com.google.protobuf.Internal.LongList bucketCounts_ = emptyLongList();
+      private void ensureBucketCountsIsMutable() {
+        if (!((bitField0_ & 0x00000002) != 0)) {
+          bucketCounts_ = mutableCopy(bucketCounts_);
+          bitField0_ |= 0x00000002;
+         }
+      }
+      /**
+       * <code>repeated int64 bucket_counts = 3;</code>
+       * @return A list containing the bucketCounts.
+       */
+      public java.util.List<java.lang.Long>
+          getBucketCountsList() {
+        return ((bitField0_ & 0x00000002) != 0) ?
+                 java.util.Collections.unmodifiableList(bucketCounts_) : bucketCounts_;
+      }
+      /**
+       * <code>repeated int64 bucket_counts = 3;</code>
+       * @return The count of bucketCounts.
+       */
+      public int getBucketCountsCount() {
+        return bucketCounts_.size();
+      }
+      /**
+       * <code>repeated int64 bucket_counts = 3;</code>
+       * @param index The index of the element to return.
+       * @return The bucketCounts at the given index.
+       */
+      public long getBucketCounts(int index) {
+        return bucketCounts_.getLong(index);
+      }
+      /**
+       * <code>repeated int64 bucket_counts = 3;</code>
+       * @param index The index to set the value at.
+       * @param value The bucketCounts to set.
+       * @return This builder for chaining.
+       */
+      public Builder setBucketCounts(
+          int index, long value) {
+        ensureBucketCountsIsMutable();
+        bucketCounts_.setLong(index, value);
+        onChanged();
+        return this;
       }
       /**
-       * <code>string name = 1;</code>
-       * @param value The name to set.
+       * <code>repeated int64 bucket_counts = 3;</code>
+       * @param value The bucketCounts to add.
        * @return This builder for chaining.
        */
-      public Builder setName(
-          java.lang.String value) {
-        if (value == null) {
-    throw new NullPointerException();
-  }
-  
-        name_ = value;
+      public Builder addBucketCounts(long value) {
+        ensureBucketCountsIsMutable();
+        bucketCounts_.addLong(value);
         onChanged();
         return this;
       }
       /**
-       * <code>string name = 1;</code>
+       * <code>repeated int64 bucket_counts = 3;</code>
+       * @param values The bucketCounts to add.
        * @return This builder for chaining.
        */
-      public Builder clearName() {
-        
-        name_ = getDefaultInstance().getName();
+      public Builder addAllBucketCounts(
+          java.lang.Iterable<? extends java.lang.Long> values) {
+        ensureBucketCountsIsMutable();
+        com.google.protobuf.AbstractMessageLite.Builder.addAll(
+            values, bucketCounts_);
         onChanged();
         return this;
       }
       /**
-       * <code>string name = 1;</code>
-       * @param value The bytes for name to set.
+       * <code>repeated int64 bucket_counts = 3;</code>
        * @return This builder for chaining.
        */
-      public Builder setNameBytes(
-          com.google.protobuf.ByteString value) {
-        if (value == null) {
-    throw new NullPointerException();
-  }
-  checkByteStringIsUtf8(value);
-        
-        name_ = value;
+      public Builder clearBucketCounts() {
+        bucketCounts_ = emptyLongList();
+        bitField0_ = (bitField0_ & ~0x00000002);
         onChanged();
         return this;
       }
 
-      private java.lang.Object type_ = "";
+      private long count_ ;
       /**
-       * <code>string type = 2;</code>
-       * @return The type.
+       * <code>int64 count = 4;</code>
+       * @return The count.
        */
-      public java.lang.String getType() {
-        java.lang.Object ref = type_;
-        if (!(ref instanceof java.lang.String)) {
-          com.google.protobuf.ByteString bs =
-              (com.google.protobuf.ByteString) ref;
-          java.lang.String s = bs.toStringUtf8();
-          type_ = s;
-          return s;
-        } else {
-          return (java.lang.String) ref;
-        }
+      @java.lang.Override
+      public long getCount() {
+        return count_;
       }
       /**
-       * <code>string type = 2;</code>
-       * @return The bytes for type.
+       * <code>int64 count = 4;</code>
+       * @param value The count to set.
+       * @return This builder for chaining.
        */
-      public com.google.protobuf.ByteString
-          getTypeBytes() {
-        java.lang.Object ref = type_;
-        if (ref instanceof String) {
-          com.google.protobuf.ByteString b = 
-              com.google.protobuf.ByteString.copyFromUtf8(
-                  (java.lang.String) ref);
-          type_ = b;
-          return b;
-        } else {
-          return (com.google.protobuf.ByteString) ref;
-        }
+      public Builder setCount(long value) {
+        
+        count_ = value;
+        onChanged();
+        return this;
       }
       /**
-       * <code>string type = 2;</code>
-       * @param value The type to set.
+       * <code>int64 count = 4;</code>
        * @return This builder for chaining.
        */
-      public Builder setType(
-          java.lang.String value) {
-        if (value == null) {
-    throw new NullPointerException();
-  }
-  
-        type_ = value;
+      public Builder clearCount() {
+        
+        count_ = 0L;
         onChanged();
         return this;
       }
+
+      private double sum_ ;
       /**
-       * <code>string type = 2;</code>
+       * <code>double sum = 5;</code>
+       * @return The sum.
+       */
+      @java.lang.Override
+      public double getSum() {
+        return sum_;
+      }
+      /**
+       * <code>double sum = 5;</code>
+       * @param value The sum to set.
        * @return This builder for chaining.
        */
-      public Builder clearType() {
+      public Builder setSum(double value) {
         
-        type_ = getDefaultInstance().getType();
+        sum_ = value;
         onChanged();
         return this;
       }
       /**
-       * <code>string type = 2;</code>
-       * @param value The bytes for type to set.
+       * <code>double sum = 5;</code>
        * @return This builder for chaining.
        */
-      public Builder setTypeBytes(
-          com.google.protobuf.ByteString value) {
-        if (value == null) {
-    throw new NullPointerException();
-  }
-  checkByteStringIsUtf8(value);
+      public Builder clearSum() {
         
-        type_ = value;
+        sum_ = 0D;
         onChanged();
         return this;
       }
 
-      private long timestamp_ ;
+      private double min_ ;
       /**
-       * <code>int64 timestamp = 3;</code>
-       * @return The timestamp.
+       * <code>double min = 6;</code>
+       * @return The min.
        */
       @java.lang.Override
-      public long getTimestamp() {
-        return timestamp_;
+      public double getMin() {
+        return min_;
       }
       /**
-       * <code>int64 timestamp = 3;</code>
-       * @param value The timestamp to set.
+       * <code>double min = 6;</code>
+       * @param value The min to set.
        * @return This builder for chaining.
        */
-      public Builder setTimestamp(long value) {
+      public Builder setMin(double value) {
         
-        timestamp_ = value;
+        min_ = value;
         onChanged();
         return this;
       }
       /**
-       * <code>int64 timestamp = 3;</code>
+       * <code>double min = 6;</code>
        * @return This builder for chaining.
        */
-      public Builder clearTimestamp() {
+      public Builder clearMin() {
         
-        timestamp_ = 0L;
+        min_ = 0D;
         onChanged();
         return this;
       }
 
-      private double value_ ;
+      private double max_ ;
       /**
-       * <code>double value = 4;</code>
-       * @return The value.
+       * <code>double max = 7;</code>
+       * @return The max.
        */
       @java.lang.Override
-      public double getValue() {
-        return value_;
+      public double getMax() {
+        return max_;
       }
       /**
-       * <code>double value = 4;</code>
-       * @param value The value to set.
+       * <code>double max = 7;</code>
+       * @param value The max to set.
        * @return This builder for chaining.
        */
-      public Builder setValue(double value) {
+      public Builder setMax(double value) {
         
-        value_ = value;
+        max_ = value;
         onChanged();
         return this;
       }
       /**
-       * <code>double value = 4;</code>
+       * <code>double max = 7;</code>
        * @return This builder for chaining.
        */
-      public Builder clearValue() {
+      public Builder clearMax() {
         
-        value_ = 0D;
+        max_ = 0D;
         onChanged();
         return this;
       }
 
-      private com.google.protobuf.MapField<
-          java.lang.String, java.lang.String> tags_;
-      private com.google.protobuf.MapField<java.lang.String, java.lang.String>
-      internalGetTags() {
-        if (tags_ == null) {
-          return com.google.protobuf.MapField.emptyMapField(
-              TagsDefaultEntryHolder.defaultEntry);
-        }
-        return tags_;
-      }
-      private com.google.protobuf.MapField<java.lang.String, java.lang.String>
-      internalGetMutableTags() {
-        onChanged();;
-        if (tags_ == null) {
-          tags_ = com.google.protobuf.MapField.newMapField(
-              TagsDefaultEntryHolder.defaultEntry);
-        }
-        if (!tags_.isMutable()) {
-          tags_ = tags_.copy();
-        }
-        return tags_;
-      }
-
-      public int getTagsCount() {
-        return internalGetTags().getMap().size();
-      }
+      private double p50_ ;
       /**
-       * <code>map&lt;string, string&gt; tags = 5;</code>
+       * <code>double p50 = 8;</code>
+       * @return The p50.
        */
-
       @java.lang.Override
-      public boolean containsTags(
-          java.lang.String key) {
-        if (key == null) { throw new java.lang.NullPointerException(); }
-        return internalGetTags().getMap().containsKey(key);
+      public double getP50() {
+        return p50_;
       }
       /**
-       * Use {@link #getTagsMap()} instead.
+       * <code>double p50 = 8;</code>
+       * @param value The p50 to set.
+       * @return This builder for chaining.
        */
-      @java.lang.Override
-      @java.lang.Deprecated
-      public java.util.Map<java.lang.String, java.lang.String> getTags() {
-        return getTagsMap();
+      public Builder setP50(double value) {
+        
+        p50_ = value;
+        onChanged();
+        return this;
       }
       /**
-       * <code>map&lt;string, string&gt; tags = 5;</code>
+       * <code>double p50 = 8;</code>
+       * @return This builder for chaining.
        */
-      @java.lang.Override
-
-      public java.util.Map<java.lang.String, java.lang.String> getTagsMap() {
-        return internalGetTags().getMap();
+      public Builder clearP50() {
+        
+        p50_ = 0D;
+        onChanged();
+        return this;
       }
+
+      private double p90_ ;
       /**
-       * <code>map&lt;string, string&gt; tags = 5;</code>
+       * <code>double p90 = 9;</code>
+       * @return The p90.
        */
       @java.lang.Override
-
-      public java.lang.String getTagsOrDefault(
-          java.lang.String key,
-          java.lang.String defaultValue) {
-        if (key == null) { throw new java.lang.NullPointerException(); }
-        java.util.Map<java.lang.String, java.lang.String> map =
-            internalGetTags().getMap();
-        return map.containsKey(key) ? map.get(key) : defaultValue;
+      public double getP90() {
+        return p90_;
       }
       /**
-       * <code>map&lt;string, string&gt; tags = 5;</code>
+       * <code>double p90 = 9;</code>
+       * @param value The p90 to set.
+       * @return This builder for chaining.
        */
-      @java.lang.Override
-
-      public java.lang.String getTagsOrThrow(
-          java.lang.String key) {
-        if (key == null) { throw new java.lang.NullPointerException(); }
-        java.util.Map<java.lang.String, java.lang.String> map =
-            internalGetTags().getMap();
-        if (!map.containsKey(key)) {
-          throw new java.lang.IllegalArgumentException();
-        }
-        return map.get(key);
-      }
-
-      public Builder clearTags() {
-        internalGetMutableTags().getMutableMap()
-            .clear();
+      public Builder setP90(double value) {
+        
+        p90_ = value;
+        onChanged();
         return this;
       }
       /**
-       * <code>map&lt;string, string&gt; tags = 5;</code>
+       * <code>double p90 = 9;</code>
+       * @return This builder for chaining.
        */
-
-      public Builder removeTags(
-          java.lang.String key) {
-        if (key == null) { throw new java.lang.NullPointerException(); }
-        internalGetMutableTags().getMutableMap()
-            .remove(key);
+      public Builder clearP90() {
+        
+        p90_ = 0D;
+        onChanged();
         return this;
       }
+
+      private double p99_ ;
       /**
-       * Use alternate mutation accessors instead.
+       * <code>double p99 = 10;</code>
+       * @return The p99.
        */
-      @java.lang.Deprecated
-      public java.util.Map<java.lang.String, java.lang.String>
-      getMutableTags() {
-        return internalGetMutableTags().getMutableMap();
+      @java.lang.Override
+      public double getP99() {
+        return p99_;
       }
       /**
-       * <code>map&lt;string, string&gt; tags = 5;</code>
+       * <code>double p99 = 10;</code>
+       * @param value The p99 to set.
+       * @return This builder for chaining.
        */
-      public Builder putTags(
-          java.lang.String key,
-          java.lang.String value) {
-        if (key == null) { throw new java.lang.NullPointerException(); }
-        if (value == null) { throw new java.lang.NullPointerException(); }
-        internalGetMutableTags().getMutableMap()
-            .put(key, value);
+      public Builder setP99(double value) {
+        
+        p99_ = value;
+        onChanged();
         return this;
       }
       /**
-       * <code>map&lt;string, string&gt; tags = 5;</code>
+       * <code>double p99 = 10;</code>
+       * @return This builder for chaining.
        */
-
-      public Builder putAllTags(
-          java.util.Map<java.lang.String, java.lang.String> values) {
-        internalGetMutableTags().getMutableMap()
-            .putAll(values);
+      public Builder clearP99() {
+        
+        p99_ = 0D;
+        onChanged();
         return this;
       }
       @java.lang.Override
@@ -1155,41 +2868,41 @@ public final class ByteplusRecSdkMetrics {
       }
 
 
-      // @@protoc_insertion_point(builder_scope:byteplus.recommend.metric.Metric)
+      // @@protoc_insertion_point(builder_scope:byteplus.recommend.metric.Histogram)
     }
 
-    // @@protoc_insertion_point(class_scope:byteplus.recommend.metric.Metric)
-    private static final com.byteplus.rec.core.metrics.protocol.ByteplusRecSdkMetrics.Metric DEFAULT_INSTANCE;
+    // @@protoc_insertion_point(class_scope:byteplus.recommend.metric.Histogram)
+    private static final com.byteplus.rec.core.metrics.protocol.ByteplusRecSdkMetrics.Histogram DEFAULT_INSTANCE;
     static {
-      DEFAULT_INSTANCE = new com.byteplus.rec.core.metrics.protocol.ByteplusRecSdkMetrics.Metric();
+      DEFAULT_INSTANCE = new com.byteplus.rec.core.metrics.protocol.ByteplusRecSdkMetrics.Histogram();
     }
 
-    public static com.byteplus.rec.core.metrics.protocol.ByteplusRecSdkMetrics.Metric getDefaultInstance() {
+    public static com.byteplus.rec.core.metrics.protocol.ByteplusRecSdkMetrics.Histogram getDefaultInstance() {
       return DEFAULT_INSTANCE;
     }
 
-    private static final com.google.protobuf.Parser<Metric>
-        PARSER = new com.google.protobuf.AbstractParser<Metric>() {
+    private static final com.google.protobuf.Parser<Histogram>
+        PARSER = new com.google.protobuf.AbstractParser<Histogram>() {
       @java.lang.Override
-      public Metric parsePartialFrom(
+      public Histogram parsePartialFrom(
           com.google.protobuf.CodedInputStream input,
           com.google.protobuf.ExtensionRegistryLite extensionRegistry)
           throws com.google.protobuf.InvalidProtocolBufferException {
-        return new Metric(input, extensionRegistry);
+        return new Histogram(input, extensionRegistry);
       }
     };
 
-    public static com.google.protobuf.Parser<Metric> parser() {
+    public static com.google.protobuf.Parser<Histogram> parser() {
       return PARSER;
     }
 
     @java.lang.Override
-    public com.google.protobuf.Parser<Metric> getParserForType() {
+    public com.google.protobuf.Parser<Histogram> getParserForType() {
       return PARSER;
     }
 
     @java.lang.Override
-    public com.byteplus.rec.core.metrics.protocol.ByteplusRecSdkMetrics.Metric getDefaultInstanceForType() {
+    public com.byteplus.rec.core.metrics.protocol.ByteplusRecSdkMetrics.Histogram getDefaultInstanceForType() {
       return DEFAULT_INSTANCE;
     }
 
@@ -2276,16 +3989,16 @@ public final class ByteplusRecSdkMetrics {
     @java.lang.Override
     public void writeTo(com.google.protobuf.CodedOutputStream output)
                         throws java.io.IOException {
-      if (!getIdBytes().isEmpty()) {
+      if (!com.google.protobuf.GeneratedMessageV3.isStringEmpty(id_)) {
         com.google.protobuf.GeneratedMessageV3.writeString(output, 1, id_);
       }
-      if (!getLevelBytes().isEmpty()) {
+      if (!com.google.protobuf.GeneratedMessageV3.isStringEmpty(level_)) {
         com.google.protobuf.GeneratedMessageV3.writeString(output, 2, level_);
       }
       if (timestamp_ != 0L) {
         output.writeInt64(3, timestamp_);
       }
-      if (!getMessageBytes().isEmpty()) {
+      if (!com.google.protobuf.GeneratedMessageV3.isStringEmpty(message_)) {
         com.google.protobuf.GeneratedMessageV3.writeString(output, 4, message_);
       }
       unknownFields.writeTo(output);
@@ -2297,17 +4010,17 @@ public final class ByteplusRecSdkMetrics {
       if (size != -1) return size;
 
       size = 0;
-      if (!getIdBytes().isEmpty()) {
+      if (!com.google.protobuf.GeneratedMessageV3.isStringEmpty(id_)) {
         size += com.google.protobuf.GeneratedMessageV3.computeStringSize(1, id_);
       }
-      if (!getLevelBytes().isEmpty()) {
+      if (!com.google.protobuf.GeneratedMessageV3.isStringEmpty(level_)) {
         size += com.google.protobuf.GeneratedMessageV3.computeStringSize(2, level_);
       }
       if (timestamp_ != 0L) {
         size += com.google.protobuf.CodedOutputStream
           .computeInt64Size(3, timestamp_);
       }
-      if (!getMessageBytes().isEmpty()) {
+      if (!com.google.protobuf.GeneratedMessageV3.isStringEmpty(message_)) {
         size += com.google.protobuf.GeneratedMessageV3.computeStringSize(4, message_);
       }
       size += unknownFields.getSerializedSize();
@@ -3730,6 +5443,11 @@ public final class ByteplusRecSdkMetrics {
   private static final 
     com.google.protobuf.GeneratedMessageV3.FieldAccessorTable
       internal_static_byteplus_recommend_metric_Metric_TagsEntry_fieldAccessorTable;
+  private static final com.google.protobuf.Descriptors.Descriptor
+    internal_static_byteplus_recommend_metric_Histogram_descriptor;
+  private static final 
+    com.google.protobuf.GeneratedMessageV3.FieldAccessorTable
+      internal_static_byteplus_recommend_metric_Histogram_fieldAccessorTable;
   private static final com.google.protobuf.Descriptors.Descriptor
     internal_static_byteplus_recommend_metric_MetricMessage_descriptor;
   private static final 
@@ -3755,20 +5473,26 @@ public final class ByteplusRecSdkMetrics {
   static {
     java.lang.String[] descriptorData = {
       "\n\036byteplus_rec_sdk_metrics.proto\022\031bytepl" +
-      "us.recommend.metric\"\256\001\n\006Metric\022\014\n\004name\030\001" +
+      "us.recommend.metric\"\347\001\n\006Metric\022\014\n\004name\030\001" +
       " \001(\t\022\014\n\004type\030\002 \001(\t\022\021\n\ttimestamp\030\003 \001(\003\022\r\n" +
       "\005value\030\004 \001(\001\0229\n\004tags\030\005 \003(\0132+.byteplus.re" +
-      "commend.metric.Metric.TagsEntry\032+\n\tTagsE" +
-      "ntry\022\013\n\003key\030\001 \001(\t\022\r\n\005value\030\002 \001(\t:\0028\001\"C\n\r" +
-      "MetricMessage\0222\n\007metrics\030\001 \003(\0132!.byteplu" +
-      "s.recommend.metric.Metric\"J\n\tMetricLog\022\n" +
-      "\n\002id\030\001 \001(\t\022\r\n\005level\030\002 \001(\t\022\021\n\ttimestamp\030\003" +
-      " \001(\003\022\017\n\007message\030\004 \001(\t\"M\n\020MetricLogMessag" +
-      "e\0229\n\013metric_logs\030\001 \003(\0132$.byteplus.recomm" +
-      "end.metric.MetricLogBk\n&com.byteplus.rec" +
-      ".core.metrics.protocolZAgithub.com/bytep" +
-      "lus-sdk/byteplus-sdk-go-rec-core/metrics" +
-      "/protocolb\006proto3"
+      "commend.metric.Metric.TagsEntry\0227\n\thisto" +
+      "gram\030\006 \001(\0132$.byteplus.recommend.metric.H" +
+      "istogram\032+\n\tTagsEntry\022\013\n\003key\030\001 \001(\t\022\r\n\005va" +
+      "lue\030\002 \001(\t:\0028\001\"\260\001\n\tHistogram\022\027\n\017sub_bucke" +
+      "t_bits\030\001 \001(\005\022\026\n\016bucket_indexes\030\002 \003(\005\022\025\n\r" +
+      "bucket_counts\030\003 \003(\003\022\r\n\005count\030\004 \001(\003\022\013\n\003su" +
+      "m\030\005 \001(\001\022\013\n\003min\030\006 \001(\001\022\013\n\003max\030\007 \001(\001\022\013\n\003p50" +
+      "\030\010 \001(\001\022\013\n\003p90\030\t \001(\001\022\013\n\003p99\030\n \001(\001\"C\n\rMetr" +
+      "icMessage\0222\n\007metrics\030\001 \003(\0132!.byteplus.re" +
+      "commend.metric.Metric\"J\n\tMetricLog\022\n\n\002id" +
+      "\030\001 \001(\t\022\r\n\005level\030\002 \001(\t\022\021\n\ttimestamp\030\003 \001(\003" +
+      "\022\017\n\007message\030\004 \001(\t\"M\n\020MetricLogMessage\0229\n" +
+      "\013metric_logs\030\001 \003(\0132$.byteplus.recommend." +
+      "metric.MetricLogBk\n&com.byteplus.rec.cor" +
+      "e.metrics.protocolZAgithub.com/byteplus-" +
+      "sdk/byteplus-sdk-go-rec-core/metrics/pro" +
+      "tocolb\006proto3"
     };
     descriptor = com.google.protobuf.Descriptors.FileDescriptor
       .internalBuildGeneratedFileFrom(descriptorData,
@@ -3779,27 +5503,33 @@ public final class ByteplusRecSdkMetrics {
     internal_static_byteplus_recommend_metric_Metric_fieldAccessorTable = new
       com.google.protobuf.GeneratedMessageV3.FieldAccessorTable(
         internal_static_byteplus_recommend_metric_Metric_descriptor,
-        new java.lang.String[] { "Name", "Type", "Timestamp", "Value", "Tags", });
+        new java.lang.String[] { "Name", "Type", "Timestamp", "Value", "Tags", "Histogram", });
     internal_static_byteplus_recommend_metric_Metric_TagsEntry_descriptor =
       internal_static_byteplus_recommend_metric_Metric_descriptor.getNestedTypes().get(0);
     internal_static_byteplus_recommend_metric_Metric_TagsEntry_fieldAccessorTable = new
       com.google.protobuf.GeneratedMessageV3.FieldAccessorTable(
         internal_static_byteplus_recommend_metric_Metric_TagsEntry_descriptor,
         new java.lang.String[] { "Key", "Value", });
-    internal_static_byteplus_recommend_metric_MetricMessage_descriptor =
+    internal_static_byteplus_recommend_metric_Histogram_descriptor =
       getDescriptor().getMessageTypes().get(1);
+    internal_static_byteplus_recommend_metric_Histogram_fieldAccessorTable = new
+      com.google.protobuf.GeneratedMessageV3.FieldAccessorTable(
+        internal_static_byteplus_recommend_metric_Histogram_descriptor,
+        new java.lang.String[] { "SubBucketBits", "BucketIndexes", "BucketCounts", "Count", "Sum", "Min", "Max", "P50", "P90", "P99", });
+    internal_static_byteplus_recommend_metric_MetricMessage_descriptor =
+      getDescriptor().getMessageTypes().get(2);
     internal_static_byteplus_recommend_metric_MetricMessage_fieldAccessorTable = new
       com.google.protobuf.GeneratedMessageV3.FieldAccessorTable(
         internal_static_byteplus_recommend_metric_MetricMessage_descriptor,
         new java.lang.String[] { "Metrics", });
     internal_static_byteplus_recommend_metric_MetricLog_descriptor =
-      getDescriptor().getMessageTypes().get(2);
+      getDescriptor().getMessageTypes().get(3);
     internal_static_byteplus_recommend_metric_MetricLog_fieldAccessorTable = new
       com.google.protobuf.GeneratedMessageV3.FieldAccessorTable(
         internal_static_byteplus_recommend_metric_MetricLog_descriptor,
         new java.lang.String[] { "Id", "Level", "Timestamp", "Message", });
     internal_static_byteplus_recommend_metric_MetricLogMessage_descriptor =
-      getDescriptor().getMessageTypes().get(3);
+      getDescriptor().getMessageTypes().get(4);
     internal_static_byteplus_recommend_metric_MetricLogMessage_fieldAccessorTable = new
       com.google.protobuf.GeneratedMessageV3.FieldAccessorTable(
         internal_static_byteplus_recommend_metric_MetricLogMessage_descriptor,
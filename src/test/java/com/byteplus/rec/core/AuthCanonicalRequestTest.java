@@ -0,0 +1,147 @@
+package com.byteplus.rec.core;
+
+import okhttp3.HttpUrl;
+import okhttp3.MediaType;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+import static org.junit.Assert.assertEquals;
+
+// Auth.canonicalRequest must stay byte-identical to the canonical request built by the previous
+// implementation, which canonicalized the query by rebuilding the url with HttpUrl.Builder,
+// otherwise requests signed by the sdk are rejected by the server.
+public class AuthCanonicalRequestTest {
+    private static final String BASE_URL = "https://rec-api-sg1.recplusapi.com/RetailSaaS/Predict";
+
+    private static final String BODY_HASH = "e3b0c44298fc1c149afbf4c8996fb92427ae41e4649b934ca495991b7852b855";
+
+    @Test
+    public void testNoQuery() {
+        assertSameCanonicalRequest(BASE_URL);
+        assertSameCanonicalRequest(BASE_URL + "?");
+    }
+
+    @Test
+    public void testSortedQuery() {
+        assertSameCanonicalRequest(BASE_URL + "?project_id=1024&model_id=home&a=1&Z=2");
+    }
+
+    @Test
+    public void testReservedChars() {
+        assertSameCanonicalRequest(BASE_URL + "?q=a%20b+c&r=%2B%26%3D%25&s=!$'()*,;:@/?&t=%5B%5D%7B%7D%7C%5C%5E%60%22%3C%3E");
+        assertSameCanonicalRequest(BASE_URL + "?q=a~b-c_d.e&tab=%09&nul=%00&del=%7F");
+        HttpUrl url = Objects.requireNonNull(HttpUrl.parse(BASE_URL)).newBuilder()
+                .addQueryParameter("raw", " !\"#$%&'()*+,-./:;<=>?@[\\]^_`{|}~")
+                .addQueryParameter("a b+c", "x=y&z")
+                .build();
+        assertSameCanonicalRequest(url);
+    }
+
+    @Test
+    public void testRepeatedKeys() {
+        assertSameCanonicalRequest(BASE_URL + "?b=2&a=1&b=1&a=3&a");
+        assertSameCanonicalRequest(BASE_URL + "?a&a=1&a=");
+    }
+
+    @Test
+    public void testEmptyValues() {
+        assertSameCanonicalRequest(BASE_URL + "?a=&b&c=1&=d&=");
+        assertSameCanonicalRequest(BASE_URL + "?&&a=1&&");
+    }
+
+    @Test
+    public void testNonAscii() {
+        assertSameCanonicalRequest(BASE_URL + "?name=%E4%BD%A0%E5%A5%BD&emoji=%F0%9F%98%80");
+        HttpUrl url = Objects.requireNonNull(HttpUrl.parse(BASE_URL)).newBuilder()
+                .addQueryParameter("名字", "商品 ✓")
+                .addQueryParameter("emoji", "😀")
+                .addQueryParameter("latin", "café")
+                .build();
+        assertSameCanonicalRequest(url);
+    }
+
+    @Test
+    public void testHeaders() {
+        Request request = new Request.Builder()
+                .url(BASE_URL + "?project_id=1024")
+                .header("Host", "rec-api-sg1.recplusapi.com:443")
+                .header("Content-Type", "application/x-protobuf")
+                .header("X-Date", "20260101T000000Z")
+                .addHeader("x-custom", " first ")
+                .addHeader("X-Custom", "second")
+                .header("Accept", "application/x-protobuf")
+                .post(RequestBody.create(new byte[0], MediaType.get("application/x-protobuf")))
+                .build();
+        assertEquals(legacyCanonicalRequest(request, BODY_HASH), Auth.canonicalRequest(request, BODY_HASH));
+        request = request.newBuilder().header("Host", "localhost:8080").build();
+        assertEquals(legacyCanonicalRequest(request, BODY_HASH), Auth.canonicalRequest(request, BODY_HASH));
+    }
+
+    private static void assertSameCanonicalRequest(String url) {
+        assertSameCanonicalRequest(Objects.requireNonNull(HttpUrl.parse(url)));
+    }
+
+    private static void assertSameCanonicalRequest(HttpUrl url) {
+        Request request = new Request.Builder()
+                .url(url)
+                .header("Content-Type", "application/x-protobuf")
+                .header("X-Date", "20260101T000000Z")
+                .build();
+        assertEquals(url.toString(), legacyCanonicalRequest(request, BODY_HASH),
+                Auth.canonicalRequest(request, BODY_HASH));
+    }
+
+    // the canonical request of Auth before the query was canonicalized by hand
+    private static String legacyCanonicalRequest(Request request, String bodyHash) {
+        List<String> signedHeaders = new ArrayList<>();
+        for (String headerName : request.headers().names()) {
+            if (headerName.equals("Content-Type") || headerName.equals("Content-Md5") ||
+                    headerName.equals("Host") || headerName.startsWith("X-")) {
+                signedHeaders.add(headerName.toLowerCase());
+            }
+        }
+        Collections.sort(signedHeaders);
+        StringBuilder signedHeadersToSignStr = new StringBuilder();
+        for (String header : signedHeaders) {
+            String value = Objects.requireNonNull(request.header(header)).trim();
+            if (header.equals("host")) {
+                if (value.contains(":")) {
+                    String[] split = value.split(":");
+                    String port = split[1];
+                    if (port.equals("80") || port.equals("443")) {
+                        value = split[0];
+                    }
+                }
+            }
+            signedHeadersToSignStr.append(header).append(":").append(value).append("\n");
+        }
+        return String.join(
+                "\n", new String[]{
+                        request.method(),
+                        request.url().encodedPath().replace("%2F", "/").replace("+", "%20"),
+                        legacyNormQuery(request.url()),
+                        signedHeadersToSignStr.toString(),
+                        String.join(";", signedHeaders),
+                        bodyHash
+                });
+    }
+
+    private static String legacyNormQuery(HttpUrl url) {
+        final HttpUrl.Builder urlBuilder = url.newBuilder();
+        url.queryParameterNames()
+                .stream()
+                .sorted()
+                .forEach(queryName -> urlBuilder.setQueryParameter(queryName, url.queryParameter(queryName)));
+        String sortedQuery = urlBuilder.build().encodedQuery();
+        if (Objects.nonNull(sortedQuery)) {
+            return sortedQuery.replace("+", "%20");
+        }
+        return "";
+    }
+}
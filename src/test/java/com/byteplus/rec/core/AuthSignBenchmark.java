@@ -0,0 +1,78 @@
+package com.byteplus.rec.core;
+
+import okhttp3.Headers;
+import okhttp3.MediaType;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// Throughput, latency and allocation of signing a request with Auth.sign.
+// It is a manual benchmark on the test classpath, run its main method e.g. from the IDE.
+// The gc profiler reports the allocation per sign as gc.alloc.rate.norm.
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AuthSignBenchmark {
+    private static final int BODY_SIZE = 2048;
+
+    private Request request;
+
+    private byte[] body;
+
+    private Auth.Credential credential;
+
+    @Setup
+    public void setup() {
+        body = new byte[BODY_SIZE];
+        ThreadLocalRandom.current().nextBytes(body);
+        request = new Request.Builder()
+                .url("https://rec-api-sg1.recplusapi.com/RetailSaaS/Predict?project_id=1024&model_id=home")
+                .header("Content-Type", "application/x-protobuf")
+                .header("Accept", "application/x-protobuf")
+                .header("Request-Id", Utils.fastRandomUUID())
+                .post(RequestBody.create(body, MediaType.get("application/x-protobuf")))
+                .build();
+        credential = new Auth.Credential("AKLTYmVuY2htYXJr", "c2VjcmV0LWtleS1mb3ItYmVuY2htYXJr",
+                "air", "ap-singleton-1");
+    }
+
+    @Benchmark
+    @Threads(1)
+    public Headers sign() throws Exception {
+        return Auth.sign(request, body, credential);
+    }
+
+    // thread locals and the signing key cache must not become points of contention
+    @Benchmark
+    @Threads(32)
+    public Headers signConcurrently() throws Exception {
+        return Auth.sign(request, body, credential);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(AuthSignBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
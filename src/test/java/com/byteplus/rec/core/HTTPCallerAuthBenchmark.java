@@ -0,0 +1,122 @@
+package com.byteplus.rec.core;
+
+import okhttp3.Headers;
+import okhttp3.MediaType;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// Throughput and allocation of the air auth headers under 32 threads, against the previous way
+// of computing them: a MessageDigest looked up for every request and a nonce cut from
+// UUID.randomUUID, whose shared SecureRandom serializes the threads.
+// It is a manual benchmark on the test classpath, run its main method e.g. from the IDE.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(32)
+public class HTTPCallerAuthBenchmark {
+    private static final int BODY_SIZE = 2048;
+
+    private static final String TENANT_ID = "1024";
+
+    private static final String AIR_AUTH_TOKEN = "YmVuY2htYXJrLWFpci1hdXRoLXRva2Vu";
+
+    private HTTPCaller caller;
+
+    private Request request;
+
+    private byte[] body;
+
+    @Setup
+    public void setup() {
+        body = new byte[BODY_SIZE];
+        ThreadLocalRandom.current().nextBytes(body);
+        request = new Request.Builder()
+                .url("https://rec-api-sg1.recplusapi.com/RetailSaaS/Predict")
+                .header("Content-Type", "application/x-protobuf")
+                .post(RequestBody.create(body, MediaType.get("application/x-protobuf")))
+                .build();
+        caller = new HTTPCaller("benchmark", TENANT_ID, AIR_AUTH_TOKEN, new StaticHostAvailabler(),
+                HTTPCaller.getDefaultConfig(), "https", false);
+    }
+
+    @TearDown
+    public void tearDown() {
+        caller.shutdown();
+    }
+
+    @Benchmark
+    public Headers airAuth() throws BizException {
+        return caller.withAuthHeaders(request, body);
+    }
+
+    @Benchmark
+    public Headers legacyAirAuth() throws Exception {
+        String ts = "" + (System.currentTimeMillis() / 1000);
+        String nonce = UUID.randomUUID().toString().substring(0, 8);
+        MessageDigest digest = MessageDigest.getInstance("SHA-256");
+        digest.update(AIR_AUTH_TOKEN.getBytes(StandardCharsets.UTF_8));
+        digest.update(body);
+        digest.update(TENANT_ID.getBytes(StandardCharsets.UTF_8));
+        digest.update(ts.getBytes(StandardCharsets.UTF_8));
+        digest.update(nonce.getBytes(StandardCharsets.UTF_8));
+        String signature = Utils.bytes2Hex(digest.digest());
+        return request.headers().newBuilder()
+                .set("Tenant-Id", TENANT_ID)
+                .set("Tenant-Ts", ts)
+                .set("Tenant-Nonce", nonce)
+                .set("Tenant-Signature", signature)
+                .build();
+    }
+
+    private static class StaticHostAvailabler implements HostAvailabler {
+        private final List<String> hosts = Collections.singletonList("rec-api-sg1.recplusapi.com");
+
+        @Override
+        public String getHost(String httpPath) {
+            return hosts.get(0);
+        }
+
+        @Override
+        public List<String> getHosts() {
+            return hosts;
+        }
+
+        @Override
+        public void shutdown() {
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(HTTPCallerAuthBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
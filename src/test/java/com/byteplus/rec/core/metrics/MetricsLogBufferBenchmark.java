@@ -0,0 +1,122 @@
+package com.byteplus.rec.core.metrics;
+
+import com.byteplus.rec.core.metrics.protocol.ByteplusRecSdkMetrics.MetricLog;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+
+import static com.byteplus.rec.core.metrics.Constant.MAX_METRICS_LOG_SIZE;
+
+// Throughput of writing metrics logs from 32 producer threads while one consumer drains them,
+// with MetricsLogBuffer against the previous ConcurrentLinkedQueue capped by its O(n) size().
+// Writes rejected because the buffer is full are counted as "dropped".
+// It is a manual benchmark on the test classpath, run its main method e.g. from the IDE.
+@State(Scope.Group)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MetricsLogBufferBenchmark {
+    private static final int PRODUCER_THREADS = 32;
+
+    private final MetricLog metricLog = MetricLog.newBuilder()
+            .setId("benchmark")
+            .setMessage("[ByteplusSDK] ping fail, project_id:1024, host:rec-api-sg1.recplusapi.com, cost:12ms")
+            .setLevel(Constant.LOG_LEVEL_WARN)
+            .setTimestamp(System.currentTimeMillis())
+            .build();
+
+    private MetricsLogBuffer buffer;
+
+    private Queue<MetricLog> queue;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class WriteCounters {
+        public long written;
+
+        public long dropped;
+
+        @Setup
+        public void reset() {
+            written = 0;
+            dropped = 0;
+        }
+    }
+
+    @Setup
+    public void setup() {
+        buffer = new MetricsLogBuffer(MAX_METRICS_LOG_SIZE);
+        queue = new ConcurrentLinkedQueue<>();
+    }
+
+    @Benchmark
+    @Group("ringBuffer")
+    @GroupThreads(PRODUCER_THREADS)
+    public void ringBufferWrite(WriteCounters counters) {
+        long position = buffer.claim();
+        if (position < 0) {
+            counters.dropped++;
+            return;
+        }
+        buffer.publish(position, metricLog);
+        counters.written++;
+    }
+
+    @Benchmark
+    @Group("ringBuffer")
+    @GroupThreads(1)
+    public void ringBufferDrain(Blackhole blackhole) {
+        blackhole.consume(buffer.drain());
+    }
+
+    @Benchmark
+    @Group("linkedQueue")
+    @GroupThreads(PRODUCER_THREADS)
+    public void linkedQueueWrite(WriteCounters counters) {
+        if (queue.size() >= MAX_METRICS_LOG_SIZE) {
+            counters.dropped++;
+            return;
+        }
+        queue.offer(metricLog);
+        counters.written++;
+    }
+
+    @Benchmark
+    @Group("linkedQueue")
+    @GroupThreads(1)
+    public void linkedQueueDrain(Blackhole blackhole) {
+        MetricLog polled;
+        while (Objects.nonNull(polled = queue.poll())) {
+            blackhole.consume(polled);
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(MetricsLogBufferBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
@@ -0,0 +1,227 @@
+package com.byteplus.rec.core.simulation;
+
+import com.byteplus.rec.core.HTTPClient;
+import com.byteplus.rec.core.IRegion;
+import com.byteplus.rec.core.MultiRegionHostAvailabler;
+import com.byteplus.rec.core.Options;
+import com.byteplus.rec.core.SdkRuntime;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// Measures how quickly HTTPClient fails over, against local MockBackends.
+// It is a manual harness on the test classpath, not a unit test, run its main method e.g. from the IDE.
+// Each scenario drives a real HTTPClient under load, breaks the hosts serving the traffic,
+// heals them later, and reports:
+// - detect: time from the fault to the first request routed to a healthy host
+// - failover: time from the fault to the last request routed to a broken host
+// - errors: failed requests while the fault lasts
+// - recovery: time from healing to the first request routed back to a healed host,
+//   "> N" if it didn't happen in the N ms the scenario waited
+// In the PING scenarios the broken host is the main host, traffic only goes back to it once its
+// failure rate in the HealthWindow of PingHostAvailabler (60 x 1s) is below 10%, i.e. once most
+// failed probes leave the window, so the recovery phase lasts longer than the window.
+public class FailoverSimulation {
+    private static final String PREDICT_PATH = "/predict/api/simulation";
+
+    private static final int LOAD_THREADS = 8;
+
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(1);
+
+    private static final Duration WARM_UP_TIME = Duration.ofSeconds(5);
+
+    private static final Duration FAULT_TIME = Duration.ofSeconds(15);
+
+    // the default health window of PingHostAvailabler
+    private static final Duration HEALTH_WINDOW = Duration.ofSeconds(60);
+
+    private static final Duration PING_RECOVERY_TIME = HEALTH_WINDOW.plusSeconds(10);
+
+    private static final Duration MULTI_REGION_RECOVERY_TIME = Duration.ofSeconds(15);
+
+    enum Strategy {
+        // one region, PingHostAvailabler
+        PING,
+        // two regions, MultiRegionHostAvailabler, the whole primary region is broken
+        MULTI_REGION
+    }
+
+    enum Fault {
+        ERROR,
+        BLACKHOLE,
+        SLOW
+    }
+
+    public static void main(String[] args) throws Exception {
+        List<String> reports = new ArrayList<>();
+        for (Strategy strategy : Strategy.values()) {
+            for (Fault fault : Fault.values()) {
+                reports.add(run(strategy, fault));
+            }
+        }
+        System.out.println("strategy      fault      detect(ms) failover(ms) errors/total  recovery(ms)");
+        reports.forEach(System.out::println);
+        SdkRuntime.shutdown(Duration.ofSeconds(5));
+    }
+
+    private static String run(Strategy strategy, Fault fault) throws Exception {
+        System.out.printf("run %s with %s fault...%n", strategy, fault);
+        List<MockBackend> backends = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            backends.add(new MockBackend());
+        }
+        List<MockBackend> primaryBackends = backends.subList(0, 2);
+        HTTPClient client = newClient(strategy, backends);
+        ConcurrentLinkedQueue<long[]> results = new ConcurrentLinkedQueue<>();
+        AtomicBoolean running = new AtomicBoolean(true);
+        ExecutorService load = Executors.newFixedThreadPool(LOAD_THREADS);
+        for (int i = 0; i < LOAD_THREADS; i++) {
+            load.submit(() -> sendRequests(client, running, results));
+        }
+        TimeUnit.MILLISECONDS.sleep(WARM_UP_TIME.toMillis());
+
+        // break the hosts serving the traffic
+        long faultTime = System.currentTimeMillis();
+        List<MockBackend> broken = new ArrayList<>();
+        if (strategy == Strategy.MULTI_REGION) {
+            broken.addAll(primaryBackends);
+        } else {
+            // the main host
+            broken.add(primaryBackends.get(0));
+        }
+        broken.forEach(backend -> inject(backend, fault));
+        TimeUnit.MILLISECONDS.sleep(FAULT_TIME.toMillis());
+
+        long healTime = System.currentTimeMillis();
+        broken.forEach(MockBackend::heal);
+        Duration recoveryTime = strategy == Strategy.PING ? PING_RECOVERY_TIME : MULTI_REGION_RECOVERY_TIME;
+        TimeUnit.MILLISECONDS.sleep(recoveryTime.toMillis());
+        long endTime = System.currentTimeMillis();
+        running.set(false);
+        load.shutdown();
+        load.awaitTermination(10, TimeUnit.SECONDS);
+        client.shutdown();
+        backends.forEach(MockBackend::stop);
+
+        long firstHealthy = Long.MAX_VALUE;
+        for (MockBackend backend : backends) {
+            long first = broken.contains(backend) ? -1 : backend.firstPredictTime(faultTime, healTime);
+            if (first >= 0) {
+                firstHealthy = Math.min(firstHealthy, first);
+            }
+        }
+        long lastBroken = faultTime;
+        long firstHealed = Long.MAX_VALUE;
+        for (MockBackend backend : broken) {
+            lastBroken = Math.max(lastBroken, backend.lastPredictTime(faultTime, healTime));
+            long first = backend.firstPredictTime(healTime, endTime);
+            if (first >= 0) {
+                firstHealed = Math.min(firstHealed, first);
+            }
+        }
+        long errors = 0;
+        long total = 0;
+        for (long[] result : results) {
+            if (result[0] >= faultTime && result[0] < healTime) {
+                total++;
+                errors += result[1] == 0 ? 1 : 0;
+            }
+        }
+        return String.format("%-13s %-10s %10s %12d %6d/%-6d %12s",
+                strategy, fault,
+                firstHealthy == Long.MAX_VALUE ? "never" : String.valueOf(firstHealthy - faultTime),
+                lastBroken - faultTime, errors, total,
+                firstHealed == Long.MAX_VALUE ? "> " + (endTime - healTime) : String.valueOf(firstHealed - healTime));
+    }
+
+    private static HTTPClient newClient(Strategy strategy, List<MockBackend> backends) throws Exception {
+        IRegion primary = region("primary", backends.get(0), backends.get(1));
+        IRegion secondary = region("secondary", backends.get(2), backends.get(3));
+        HTTPClient.Builder builder = HTTPClient.builder()
+                .tenantID("simulation")
+                .projectID("simulation_" + System.nanoTime())
+                .useAirAuth(true)
+                .airAuthToken("simulation")
+                .schema("http")
+                .keepAlive(true)
+                .region(primary);
+        if (strategy == Strategy.PING) {
+            builder.hosts(primary.getHosts())
+                    .mainHost(backends.get(0).getHost());
+        } else {
+            List<String> primaryHosts = primary.getHosts();
+            List<String> secondaryHosts = secondary.getHosts();
+            backends.get(0).setHostConfig(Collections.singletonMap("*", primaryHosts));
+            backends.get(1).setHostConfig(Collections.singletonMap("*", primaryHosts));
+            backends.get(2).setHostConfig(Collections.singletonMap("*", secondaryHosts));
+            backends.get(3).setHostConfig(Collections.singletonMap("*", secondaryHosts));
+            builder.failoverRegions(Collections.singletonList(secondary))
+                    .multiRegionConfig(MultiRegionHostAvailabler.Config.builder()
+                            .evaluateInterval(Duration.ofSeconds(1))
+                            .hysteresisRounds(5)
+                            .build());
+        }
+        return builder.build();
+    }
+
+    private static IRegion region(String authRegion, MockBackend... backends) {
+        List<String> hosts = new ArrayList<>();
+        Arrays.stream(backends).forEach(backend -> hosts.add(backend.getHost()));
+        return new IRegion() {
+            @Override
+            public List<String> getHosts() {
+                return hosts;
+            }
+
+            @Override
+            public String getAuthRegion() {
+                return authRegion;
+            }
+        };
+    }
+
+    private static void sendRequests(HTTPClient client, AtomicBoolean running, ConcurrentLinkedQueue<long[]> results) {
+        Options options = new Options();
+        options.setTimeout(REQUEST_TIMEOUT);
+        while (running.get()) {
+            long start = System.currentTimeMillis();
+            boolean success = true;
+            try {
+                client.doJSONRequest(PREDICT_PATH, Collections.singletonMap("user", "simulation"),
+                        new HashMap<String, Object>(), options);
+            } catch (Exception e) {
+                success = false;
+            }
+            results.add(new long[]{start, success ? 1 : 0});
+            try {
+                TimeUnit.MILLISECONDS.sleep(5);
+            } catch (InterruptedException e) {
+                return;
+            }
+        }
+    }
+
+    private static void inject(MockBackend backend, Fault fault) {
+        switch (fault) {
+            case ERROR:
+                backend.setErrorStatus(500);
+                break;
+            case BLACKHOLE:
+                backend.setBlackhole(true);
+                break;
+            case SLOW:
+                // slower than the ping timeout, but faster than the request timeout
+                backend.setLatency(Duration.ofMillis(500));
+                break;
+        }
+    }
+}
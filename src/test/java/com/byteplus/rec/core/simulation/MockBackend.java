@@ -0,0 +1,124 @@
+package com.byteplus.rec.core.simulation;
+
+import com.alibaba.fastjson.JSON;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+// Local backend serving the ping, host config and predict endpoints, with programmable faults.
+// Faults apply to all endpoints, so that probes see the same failures as requests.
+public class MockBackend {
+    // blackholed requests are held this long, longer than any timeout of the sdk
+    private static final Duration BLACKHOLE_TIME = Duration.ofSeconds(30);
+
+    private final HttpServer server;
+
+    private final ExecutorService executor = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "mock-backend");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // arrival times of predict requests
+    private final ConcurrentLinkedQueue<Long> predictTimes = new ConcurrentLinkedQueue<>();
+
+    private volatile long latencyMs;
+
+    // 0 means no error
+    private volatile int errorStatus;
+
+    private volatile boolean blackhole;
+
+    private volatile Map<String, List<String>> hostConfig = Collections.emptyMap();
+
+    public MockBackend() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.setExecutor(executor);
+        server.createContext("/predict/api/ping", exchange -> handle(exchange, "pong"));
+        server.createContext("/data/api/sdk/host", exchange -> handle(exchange, JSON.toJSONString(hostConfig)));
+        server.createContext("/", exchange -> {
+            predictTimes.add(System.currentTimeMillis());
+            handle(exchange, "{}");
+        });
+        server.start();
+    }
+
+    private void handle(HttpExchange exchange, String body) throws IOException {
+        try (InputStream in = exchange.getRequestBody()) {
+            while (in.read() >= 0) {
+                // drain request body
+            }
+            if (blackhole) {
+                TimeUnit.MILLISECONDS.sleep(BLACKHOLE_TIME.toMillis());
+                return;
+            }
+            if (latencyMs > 0) {
+                TimeUnit.MILLISECONDS.sleep(latencyMs);
+            }
+            int status = errorStatus > 0 ? errorStatus : 200;
+            byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(status, bytes.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(bytes);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            exchange.close();
+        }
+    }
+
+    public String getHost() {
+        return "127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    public void setLatency(Duration latency) {
+        this.latencyMs = latency.toMillis();
+    }
+
+    public void setErrorStatus(int errorStatus) {
+        this.errorStatus = errorStatus;
+    }
+
+    public void setBlackhole(boolean blackhole) {
+        this.blackhole = blackhole;
+    }
+
+    public void setHostConfig(Map<String, List<String>> hostConfig) {
+        this.hostConfig = hostConfig;
+    }
+
+    public void heal() {
+        latencyMs = 0;
+        errorStatus = 0;
+        blackhole = false;
+    }
+
+    // the first predict request arrived in [from, to), -1 if none
+    public long firstPredictTime(long from, long to) {
+        return predictTimes.stream().filter(time -> time >= from && time < to).min(Long::compare).orElse(-1L);
+    }
+
+    // the last predict request arrived in [from, to), -1 if none
+    public long lastPredictTime(long from, long to) {
+        return predictTimes.stream().filter(time -> time >= from && time < to).max(Long::compare).orElse(-1L);
+    }
+
+    public void stop() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+}